@@ -13,4 +13,10 @@ public class BaseApplication extends Application {
         EventBus.builder().logNoSubscriberMessages(false).installDefaultEventBus();
 
     }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        Services.tracks.dataCache.onTrimMemory(level);
+    }
 }
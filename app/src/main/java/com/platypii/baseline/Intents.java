@@ -14,11 +14,16 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.speech.tts.TextToSpeech;
 import android.util.Log;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.core.content.FileProvider;
+import java.io.File;
+import java.io.IOException;
 
 import static com.platypii.baseline.RequestCodes.RC_BLUE_ENABLE;
 
@@ -98,8 +103,23 @@ public class Intents {
      * Share track data file
      */
     public static void exportTrackFile(@NonNull Context context, @NonNull TrackFile trackFile) {
+        // Binary tracks are converted to CSV first, off the main thread
+        final Handler handler = new Handler(Looper.getMainLooper());
+        AsyncTask.execute(() -> {
+            try {
+                final File exportFile = trackFile.exportFile(context.getCacheDir());
+                handler.post(() -> shareTrackFile(context, trackFile, exportFile));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to convert track file for export", e);
+                handler.post(() -> Toast.makeText(context, R.string.error_export_intent, Toast.LENGTH_SHORT).show());
+                Exceptions.report(e);
+            }
+        });
+    }
+
+    private static void shareTrackFile(@NonNull Context context, @NonNull TrackFile trackFile, @NonNull File exportFile) {
         try {
-            final Uri trackFileUri = FileProvider.getUriForFile(context, "com.platypii.baseline.provider", trackFile.file);
+            final Uri trackFileUri = FileProvider.getUriForFile(context, "com.platypii.baseline.provider", exportFile);
             Log.d(TAG, "Exporting track file " + trackFileUri);
             final Intent intent = new Intent();
             intent.setAction(Intent.ACTION_SEND);
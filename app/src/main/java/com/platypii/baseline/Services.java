@@ -13,6 +13,7 @@ import com.platypii.baseline.location.LandingZone;
 import com.platypii.baseline.location.LocationService;
 import com.platypii.baseline.places.Places;
 import com.platypii.baseline.sensors.MySensorManager;
+import com.platypii.baseline.tracks.LoggingPolicy;
 import com.platypii.baseline.tracks.Tracks;
 import com.platypii.baseline.util.Convert;
 import com.platypii.baseline.util.Numbers;
@@ -207,6 +208,11 @@ public class Services {
         // Auto-stop
         AutoStop.preferenceEnabled = prefs.getBoolean("auto_stop_enabled", true);
 
+        // Track logging
+        tracks.logger.setPreRollEnabled(prefs.getBoolean("preroll_enabled", true));
+        tracks.logger.setBinaryFormat(prefs.getBoolean("binary_tracks_enabled", false));
+        tracks.logger.setImuRates(prefs.getBoolean("imu_decimation_enabled", true) ? LoggingPolicy.DEFAULT_RATES : LoggingPolicy.FULL_RATES);
+
         // Sign in state
         AuthState.loadFromPreferences(prefs);
 
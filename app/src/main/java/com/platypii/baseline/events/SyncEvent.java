@@ -23,11 +23,13 @@ public abstract class SyncEvent {
     public static class DownloadProgress extends DownloadEvent {
         public final int progress;
         public final int total;
+        public final double bytesPerSecond;
 
-        public DownloadProgress(@NonNull TrackMetadata track, int progress, int total) {
+        public DownloadProgress(@NonNull TrackMetadata track, int progress, int total, double bytesPerSecond) {
             this.track = track;
             this.progress = progress;
             this.total = total;
+            this.bytesPerSecond = bytesPerSecond;
         }
     }
 
@@ -52,10 +54,12 @@ public abstract class SyncEvent {
     /* Uploads */
     public static class UploadProgress extends UploadEvent {
         public final int progress;
+        public final double bytesPerSecond;
 
-        public UploadProgress(@NonNull TrackFile trackFile, int progress) {
+        public UploadProgress(@NonNull TrackFile trackFile, int progress, double bytesPerSecond) {
             this.trackFile = trackFile;
             this.progress = progress;
+            this.bytesPerSecond = bytesPerSecond;
         }
     }
 
@@ -4,6 +4,7 @@ import com.platypii.baseline.Services;
 import com.platypii.baseline.events.AudibleEvent;
 import com.platypii.baseline.events.LoggingEvent;
 import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.PubSub;
 import com.platypii.baseline.util.PubSub.Subscriber;
 
 import android.util.Log;
@@ -25,6 +26,9 @@ public class FlightComputer implements Subscriber<MLocation> {
     // Public state
     public int flightMode = FlightMode.MODE_UNKNOWN;
 
+    // Notified when flight mode changes
+    public final PubSub<Integer> flightModeUpdates = new PubSub<>();
+
     /**
      * Return a human readable flight mode
      */
@@ -41,7 +45,11 @@ public class FlightComputer implements Subscriber<MLocation> {
     @Override
     public void apply(@NonNull MLocation loc) {
         // Update flight mode
-        flightMode = FlightMode.getMode(loc);
+        final int mode = FlightMode.getMode(loc);
+        if (mode != flightMode) {
+            flightMode = mode;
+            flightModeUpdates.post(mode);
+        }
         // Update autostop
         autoStop.update(loc);
     }
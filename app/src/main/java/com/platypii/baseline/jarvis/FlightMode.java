@@ -28,9 +28,13 @@ public class FlightMode {
      * Predict flight mode based on instantaneous horizontal and vertical velocity.
      */
     public static int getMode(@NonNull MLocation loc) {
-        final double groundSpeed = loc.groundSpeed();
-        final double climb = loc.climb;
+        return getMode(loc.groundSpeed(), loc.climb);
+    }
 
+    /**
+     * Predict flight mode based on horizontal and vertical speed.
+     */
+    public static int getMode(double groundSpeed, double climb) {
         if (-0.3 * groundSpeed + 7 < climb && 33 < groundSpeed) {
             return MODE_PLANE;
         } else if (climb < -13 && climb < -groundSpeed - 10 && groundSpeed < 19) {
@@ -1,6 +1,6 @@
 package com.platypii.baseline.measurements;
 
-import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.StringBuilderUtil;
 
 import androidx.annotation.NonNull;
 
@@ -27,11 +27,20 @@ public class MAccel extends MSensor {
         return Float.NaN;
     }
 
-    @NonNull
     @Override
-    public String toRow() {
+    public void appendRow(@NonNull StringBuilder sb) {
+        appendRow(sb, nano, acc);
+    }
+
+    /**
+     * Append an acceleration CSV row from primitive values
+     */
+    public static void appendRow(@NonNull StringBuilder sb, long nano, double acc) {
         // millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV,gX,gY,gZ,rotX,rotY,rotZ,acc
-        return "," + nano + ",acc,,,,,,,,,,,,,," + Numbers.format6.format(acc);
+        sb.append(',');
+        sb.append(nano);
+        sb.append(",acc,,,,,,,,,,,,,,");
+        StringBuilderUtil.formatDecimal(sb, acc, 6);
     }
 
 }
@@ -1,6 +1,6 @@
 package com.platypii.baseline.measurements;
 
-import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.StringBuilderUtil;
 
 import androidx.annotation.NonNull;
 
@@ -29,11 +29,24 @@ public class MGravity extends MSensor {
         return gZ;
     }
 
-    @NonNull
     @Override
-    public String toRow() {
+    public void appendRow(@NonNull StringBuilder sb) {
+        appendRow(sb, nano, gX, gY, gZ);
+    }
+
+    /**
+     * Append a gravity CSV row from primitive values
+     */
+    public static void appendRow(@NonNull StringBuilder sb, long nano, double x, double y, double z) {
         // millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV,gX,gY,gZ,rotX,rotY,rotZ,acc
-        return "," + nano + ",grv,,,,,,,," + Numbers.format6.format(gX) + "," + Numbers.format6.format(gY) + "," + Numbers.format6.format(gZ);
+        sb.append(',');
+        sb.append(nano);
+        sb.append(",grv,,,,,,,,");
+        StringBuilderUtil.formatDecimal(sb, x, 6);
+        sb.append(',');
+        StringBuilderUtil.formatDecimal(sb, y, 6);
+        sb.append(',');
+        StringBuilderUtil.formatDecimal(sb, z, 6);
     }
 
 }
@@ -1,6 +1,6 @@
 package com.platypii.baseline.measurements;
 
-import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.StringBuilderUtil;
 
 import androidx.annotation.NonNull;
 
@@ -29,11 +29,24 @@ public class MRotation extends MSensor {
         return rotZ;
     }
 
-    @NonNull
     @Override
-    public String toRow() {
+    public void appendRow(@NonNull StringBuilder sb) {
+        appendRow(sb, nano, rotX, rotY, rotZ);
+    }
+
+    /**
+     * Append a rotation CSV row from primitive values
+     */
+    public static void appendRow(@NonNull StringBuilder sb, long nano, double x, double y, double z) {
         // millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV,gX,gY,gZ,rotX,rotY,rotZ,acc
-        return "," + nano + ",rot,,,,,,,,,,," + Numbers.format6.format(rotX) + "," + Numbers.format6.format(rotY) + "," + Numbers.format6.format(rotZ);
+        sb.append(',');
+        sb.append(nano);
+        sb.append(",rot,,,,,,,,,,,");
+        StringBuilderUtil.formatDecimal(sb, x, 6);
+        sb.append(',');
+        StringBuilderUtil.formatDecimal(sb, y, 6);
+        sb.append(',');
+        StringBuilderUtil.formatDecimal(sb, z, 6);
     }
 
 }
@@ -9,6 +9,8 @@ import com.platypii.baseline.cloud.tasks.TaskType;
 import com.platypii.baseline.events.SyncEvent.DownloadFailure;
 import com.platypii.baseline.events.SyncEvent.DownloadProgress;
 import com.platypii.baseline.events.SyncEvent.DownloadSuccess;
+import com.platypii.baseline.util.IOUtil;
+import com.platypii.baseline.util.ProgressReporter;
 
 import android.content.Context;
 import android.util.Log;
@@ -57,11 +59,12 @@ public class DownloadTrackTask extends Task {
             throw new NullPointerException("TrackUploadTask needs Context");
         }
 
+        final File abbrvFile = track.abbrvFile(context);
         try {
             final File trackFile = track.localFile(context);
             if (!trackFile.exists()) {
                 Log.i(TAG, "Downloading track " + track);
-                EventBus.getDefault().post(new DownloadProgress(track, 0, 1));
+                EventBus.getDefault().post(new DownloadProgress(track, 0, 1, 0));
                 // Make HTTP request
                 downloadTrack(trackFile);
                 Log.i(TAG, "Download successful, track " + track);
@@ -69,16 +72,21 @@ public class DownloadTrackTask extends Task {
                 Log.i(TAG, "Track file exists, skipping download " + trackFile);
             }
 
-            final File abbrvFile = track.abbrvFile(context);
             if (!abbrvFile.exists()) {
                 // Make abbrv file
                 Log.i(TAG, "Generating abbreviated track file " + abbrvFile);
-                TrackAbbrv.abbreviate(trackFile, abbrvFile);
+                if (!TrackAbbrv.abbreviate(trackFile, abbrvFile)) {
+                    throw new IOException("Failed to abbreviate track " + trackFile);
+                }
             }
+            // Precompute track data for the abbrv file that remote tracks open, so that opening is fast
+            TrackSidecar.build(abbrvFile);
             // Notify listeners
             EventBus.getDefault().post(new DownloadSuccess(track, trackFile));
         } catch (Exception e) {
             Log.e(TAG, "Failed to download file", e);
+            // Don't leave a sidecar behind for a track that didn't load
+            TrackSidecar.delete(abbrvFile);
             // Notify listeners
             EventBus.getDefault().post(new DownloadFailure(track, e));
             // Re-throw exception to indicate Task failure
@@ -139,18 +147,20 @@ public class DownloadTrackTask extends Task {
         }
         // Copy input stream to output stream
         final OutputStream os = new FileOutputStream(file);
-        final byte[] buffer = new byte[1024];
+        // Post a few progress events per second, not one per buffer
+        final ProgressReporter progress = new ProgressReporter(contentLength, (bytes, total, bytesPerSecond) ->
+                EventBus.getDefault().post(new DownloadProgress(track, (int) bytes, contentLength, bytesPerSecond))
+        );
+        final byte[] buffer = new byte[IOUtil.BUFFER_SIZE];
         int bytesRead;
-        int bytesCopied = 0;
         while ((bytesRead = is.read(buffer)) != -1) {
             os.write(buffer, 0, bytesRead);
-            bytesCopied += bytesRead;
-
-            // Update download progress state
-            EventBus.getDefault().post(new DownloadProgress(track, bytesCopied, contentLength));
+            progress.add(bytesRead);
         }
+        progress.finish();
         is.close();
         os.close();
+        Log.i(TAG, "Downloaded " + progress.bytes() + " bytes at " + (int) (progress.bytesPerSecond() / 1024) + " KiB/s");
     }
 
     @NonNull
@@ -4,6 +4,7 @@ import com.platypii.baseline.Services;
 import com.platypii.baseline.cloud.AuthState;
 import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.util.IOUtil;
+import com.platypii.baseline.util.MD5;
 
 import android.content.ContentResolver;
 import android.content.Context;
@@ -21,6 +22,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.zip.GZIPOutputStream;
 
 public class ImportCSV {
@@ -64,18 +67,23 @@ public class ImportCSV {
         final File logDir = TrackFiles.getTrackDirectory(context);
         final TrackFile destination = TrackFiles.newTrackFile(logDir, sourceFilename);
         Log.i(TAG, "Importing CSV file " + uri + " as " + sourceFilename + " to " + destination);
-        try (OutputStream os = new GZIPOutputStream(new FileOutputStream(destination.file))) {
+        final MessageDigest digest = MD5.digest();
+        try (OutputStream os = new GZIPOutputStream(new DigestOutputStream(new FileOutputStream(destination.file), digest))) {
             final InputStream is = contentResolver.openInputStream(uri);
             IOUtil.copy(is, os);
-            Services.tracks.local.setNotUploaded(destination);
-            if (AuthState.getUser() != null) {
-                Log.i(TAG, "Uploading imported track " + destination);
-                Services.tasks.add(new UploadTrackTask(destination));
-            }
-
         } catch (IOException e) {
             Log.e(TAG, "Failed to import CSV file", e);
+            return;
+        }
+        // Hash is complete once the gzip stream is closed
+        TrackDigest.write(destination.file, MD5.hex(digest));
+        Services.tracks.local.setNotUploaded(destination);
+        if (AuthState.getUser() != null) {
+            Log.i(TAG, "Uploading imported track " + destination);
+            Services.tasks.add(new UploadTrackTask(destination));
         }
+        // Precompute track data
+        TrackSidecar.build(destination.file);
     }
 
     @Nullable
@@ -0,0 +1,73 @@
+package com.platypii.baseline.tracks;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+
+import static com.platypii.baseline.tracks.TrackWriter.ALT;
+import static com.platypii.baseline.tracks.TrackWriter.GPS;
+
+/**
+ * Computes track data and stats while recording, so they are ready as soon as logging stops.
+ * Sits in front of the track file encoder on the writer thread, and sees exactly the rows
+ * that go into the file, including pre-roll. Records are fused and fed through the same
+ * TrackPipeline used to load a track file, in constant time per fix.
+ */
+class LiveTrackStats implements TrackWriter.Encoder {
+
+    @NonNull
+    private final TrackWriter.Encoder out;
+
+    private final TrackPipeline pipeline = new TrackPipeline();
+    private final TrackFileReader.Integrator integrator = new TrackFileReader.Integrator(pipeline);
+
+    /**
+     * @param out encoder for the track file
+     */
+    LiveTrackStats(@NonNull TrackWriter.Encoder out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int kind, long millis, long nano, @NonNull double[] values, int offset, int n) throws IOException {
+        out.write(kind, millis, nano, values, offset, n);
+        // Round like the file columns, so the result matches re-reading the file
+        if (kind == GPS) {
+            integrator.gps(
+                    millis,
+                    round(values[offset], 6),
+                    round(values[offset + 1], 6),
+                    round(values[offset + 2], 3),
+                    round(values[offset + 3], 2),
+                    round(values[offset + 4], 2)
+            );
+        } else if (kind == ALT) {
+            integrator.alt(nano, round(values[offset], 3));
+        }
+    }
+
+    private static double round(double x, int places) {
+        return TrackBinary.dequantize(TrackBinary.quantize(x, places), places);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Return the trimmed track data, same as loading the finished file.
+     * Call after the writer is closed.
+     *
+     * @return null if no jump was found, since then the whole track has to be re-read
+     */
+    @Nullable
+    TrackData build(@NonNull String id) {
+        if (pipeline.isTrimmed()) {
+            return pipeline.build(id);
+        } else {
+            return null;
+        }
+    }
+
+}
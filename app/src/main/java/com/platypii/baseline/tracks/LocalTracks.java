@@ -142,6 +142,8 @@ public class LocalTracks {
         }
         // Delete file on disk
         if (trackFile.file.delete()) {
+            TrackSidecar.delete(trackFile.file);
+            TrackDigest.delete(trackFile.file);
             // Remove from store
             trackState.remove(trackFile);
             // Reload local tracks
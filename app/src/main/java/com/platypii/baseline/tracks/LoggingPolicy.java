@@ -0,0 +1,149 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MAccel;
+import com.platypii.baseline.measurements.MGravity;
+import com.platypii.baseline.measurements.MRotation;
+import com.platypii.baseline.measurements.Measurement;
+import com.platypii.baseline.util.PubSub.Subscriber;
+
+import androidx.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which IMU rows get logged, based on flight mode.
+ * Sensor rows are decimated on the ground and in the plane, and logged at full rate in flight.
+ * Location and pressure rows are always logged.
+ */
+public class LoggingPolicy implements Subscriber<Integer> {
+
+    /**
+     * Default max IMU rate in Hz, indexed by flight mode. Infinity means log every event.
+     */
+    public static final double[] DEFAULT_RATES = {
+            Double.POSITIVE_INFINITY, // unknown
+            1, // ground
+            1, // plane
+            Double.POSITIVE_INFINITY, // wingsuit
+            Double.POSITIVE_INFINITY, // freefall
+            Double.POSITIVE_INFINITY // canopy
+    };
+
+    /**
+     * Log every IMU event in every flight mode
+     */
+    public static final double[] FULL_RATES = {
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY
+    };
+
+    private static final String[] modeNames = {"unknown", "ground", "plane", "wingsuit", "freefall", "canopy"};
+
+    // Flight mode is noisy around exit and landing, so keep full rate for a while after leaving a full rate mode
+    private static final long HOLD_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    // Sensor kinds
+    private static final int ACC = 0;
+    private static final int GRV = 1;
+    private static final int ROT = 2;
+
+    @NonNull
+    private final double[] rates;
+    // Minimum nanoseconds between rows, indexed by flight mode, 0 means every event
+    @NonNull
+    private final long[] intervals;
+
+    private volatile int mode;
+
+    // Sensor thread only
+    private final long[] due = new long[3];
+    private long lastFullRate = Long.MIN_VALUE;
+    private long skipped = 0;
+
+    /**
+     * @param rates max IMU rate in Hz, indexed by flight mode, zero to skip all rows in that mode
+     * @param mode the current flight mode
+     */
+    public LoggingPolicy(@NonNull double[] rates, int mode) {
+        this.rates = rates.clone();
+        intervals = new long[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            intervals[i] = rates[i] > 0 ? (long) (1e9 / rates[i]) : Long.MAX_VALUE;
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * Listen for flight mode changes
+     */
+    @Override
+    public void apply(@NonNull Integer mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Return true if this sensor event should be written to the track file.
+     * Must be called from a single thread, in timestamp order.
+     */
+    public boolean shouldLog(@NonNull Measurement measure) {
+        final int kind;
+        if (measure instanceof MAccel) kind = ACC;
+        else if (measure instanceof MGravity) kind = GRV;
+        else if (measure instanceof MRotation) kind = ROT;
+        else return true;
+
+        final long nano = measure.nano;
+        final int currentMode = mode;
+        long interval = currentMode >= 0 && currentMode < intervals.length ? intervals[currentMode] : 0;
+        if (interval == 0) {
+            lastFullRate = nano;
+        } else if (lastFullRate != Long.MIN_VALUE && nano - lastFullRate < HOLD_NANOS) {
+            interval = 0;
+        }
+
+        if (interval == 0) {
+            due[kind] = nano;
+            return true;
+        } else if (interval == Long.MAX_VALUE) {
+            // Rate of zero, sensor is off in this mode
+            skipped++;
+            return false;
+        } else if (nano >= due[kind]) {
+            // Schedule from the previous due time, so that jitter doesn't lower the rate
+            due[kind] += interval;
+            if (due[kind] <= nano) {
+                due[kind] = nano + interval;
+            }
+            return true;
+        } else {
+            skipped++;
+            return false;
+        }
+    }
+
+    /**
+     * Number of sensor rows skipped so far
+     */
+    public long skipped() {
+        return skipped;
+    }
+
+    /**
+     * Track file header line recording the chosen rates
+     */
+    @NonNull
+    public String header() {
+        final StringBuilder sb = new StringBuilder("# imu_hz");
+        for (int i = 0; i < rates.length && i < modeNames.length; i++) {
+            sb.append(' ');
+            sb.append(modeNames[i]);
+            sb.append('=');
+            if (Double.isInfinite(rates[i])) {
+                sb.append("full");
+            } else {
+                sb.append(rates[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+}
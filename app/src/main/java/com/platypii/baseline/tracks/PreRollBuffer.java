@@ -0,0 +1,203 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MAccel;
+import com.platypii.baseline.measurements.MGravity;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.measurements.MRotation;
+import com.platypii.baseline.measurements.MSensor;
+import com.platypii.baseline.measurements.Measurement;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.platypii.baseline.tracks.TrackWriter.ACC;
+import static com.platypii.baseline.tracks.TrackWriter.ALT;
+import static com.platypii.baseline.tracks.TrackWriter.ALT_DISABLED;
+import static com.platypii.baseline.tracks.TrackWriter.GPS;
+import static com.platypii.baseline.tracks.TrackWriter.GRV;
+import static com.platypii.baseline.tracks.TrackWriter.ROT;
+import static com.platypii.baseline.tracks.TrackWriter.WIDTH;
+
+/**
+ * Always-on flight recorder that keeps the last few minutes of samples, even when not logging.
+ * When logging starts, the buffered samples are written at the top of the new track,
+ * so that forgetting to press record right away doesn't lose the exit.
+ * Samples are stored as primitive records in a fixed size ring, overwriting the oldest,
+ * so memory use is fixed when the buffer is created.
+ */
+class PreRollBuffer {
+
+    static final int DEFAULT_CAPACITY = 16384;
+    static final long DEFAULT_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    // Bytes per record: kind, millis, nano, int, values, arrival time
+    private static final int RECORD_BYTES = 4 + 8 + 8 + 4 + 8 * WIDTH + 8;
+
+    private final int capacity;
+    private final long windowNanos;
+
+    // Ring of records, guarded by this
+    private final int[] kinds;
+    private final long[] millis;
+    private final long[] nanos;
+    private final int[] ints;
+    private final double[] values;
+    // System.nanoTime when each record arrived, since gps and sensor timestamps use different clocks
+    private final long[] arrived;
+    private int next = 0;
+    private int size = 0;
+
+    /**
+     * @param capacity max records kept, regardless of window
+     * @param windowNanos max age of records kept
+     */
+    PreRollBuffer(int capacity, long windowNanos) {
+        this.capacity = capacity;
+        this.windowNanos = windowNanos;
+        kinds = new int[capacity];
+        millis = new long[capacity];
+        nanos = new long[capacity];
+        ints = new int[capacity];
+        values = new double[capacity * WIDTH];
+        arrived = new long[capacity];
+    }
+
+    void addLocation(@NonNull MLocation loc) {
+        add(GPS, loc.millis, 0, loc.latitude, loc.longitude, loc.altitude_gps, loc.vN, loc.vE, loc.satellitesUsed);
+    }
+
+    /**
+     * @param enabled false to log as "alt-" sensor, when barometric altimeter is disabled
+     */
+    void addPressure(@NonNull MPressure alt, boolean enabled) {
+        add(enabled ? ALT : ALT_DISABLED, alt.millis, alt.nano, alt.pressure, 0, 0, 0, 0, 0);
+    }
+
+    void addSensor(@NonNull Measurement measure) {
+        if (measure instanceof MGravity) {
+            final MSensor sensor = (MSensor) measure;
+            add(GRV, 0, measure.nano, sensor.x(), sensor.y(), sensor.z(), 0, 0, 0);
+        } else if (measure instanceof MRotation) {
+            final MSensor sensor = (MSensor) measure;
+            add(ROT, 0, measure.nano, sensor.x(), sensor.y(), sensor.z(), 0, 0, 0);
+        } else if (measure instanceof MAccel) {
+            add(ACC, 0, measure.nano, ((MAccel) measure).x(), 0, 0, 0, 0, 0);
+        }
+    }
+
+    private synchronized void add(int kind, long ms, long nano, double a, double b, double c, double d, double e, int n) {
+        final int slot = next;
+        kinds[slot] = kind;
+        millis[slot] = ms;
+        nanos[slot] = nano;
+        ints[slot] = n;
+        final int i = slot * WIDTH;
+        values[i] = a;
+        values[i + 1] = b;
+        values[i + 2] = c;
+        values[i + 3] = d;
+        values[i + 4] = e;
+        arrived[slot] = System.nanoTime();
+        next = slot + 1 == capacity ? 0 : slot + 1;
+        if (size < capacity) size++;
+    }
+
+    /**
+     * Copy out the records that arrived within the window, oldest first
+     */
+    @NonNull
+    Snapshot snapshot() {
+        return snapshot(System.nanoTime());
+    }
+
+    @NonNull
+    synchronized Snapshot snapshot(long now) {
+        // Skip records older than the window
+        int start = next - size;
+        if (start < 0) start += capacity;
+        int count = size;
+        while (count > 0 && now - arrived[start] > windowNanos) {
+            start = start + 1 == capacity ? 0 : start + 1;
+            count--;
+        }
+        final Snapshot snapshot = new Snapshot(count);
+        for (int j = 0; j < count; j++) {
+            final int slot = (start + j) % capacity;
+            snapshot.kinds[j] = kinds[slot];
+            snapshot.millis[j] = millis[slot];
+            snapshot.nanos[j] = nanos[slot];
+            snapshot.ints[j] = ints[slot];
+            System.arraycopy(values, slot * WIDTH, snapshot.values, j * WIDTH, WIDTH);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Forget buffered records, so that they aren't written twice
+     */
+    synchronized void clear() {
+        size = 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Memory held by the ring, fixed at construction
+     */
+    long memoryBytes() {
+        return (long) capacity * RECORD_BYTES;
+    }
+
+    /**
+     * Buffered records, copied out of the ring
+     */
+    static class Snapshot {
+        final int size;
+        private final int[] kinds;
+        private final long[] millis;
+        private final long[] nanos;
+        private final int[] ints;
+        private final double[] values;
+
+        private Snapshot(int size) {
+            this.size = size;
+            kinds = new int[size];
+            millis = new long[size];
+            nanos = new long[size];
+            ints = new int[size];
+            values = new double[size * WIDTH];
+        }
+
+        void writeTo(@NonNull TrackWriter.Encoder encoder) throws IOException {
+            for (int i = 0; i < size; i++) {
+                encoder.write(kinds[i], millis[i], nanos[i], values, i * WIDTH, ints[i]);
+            }
+        }
+
+        /**
+         * Write the records older than the first live record of the same kind
+         *
+         * @param before timestamp of the first live record, by kind
+         * @param last set to the timestamp of the last record written, by kind
+         * @return number of records written
+         */
+        int writeTo(@NonNull TrackWriter.Encoder encoder, @NonNull long[] before, @NonNull long[] last) throws IOException {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                final int kind = kinds[i];
+                final long timestamp = TrackWriter.timestamp(kind, millis[i], nanos[i]);
+                if (timestamp < before[kind]) {
+                    encoder.write(kind, millis[i], nanos[i], values, i * WIDTH, ints[i]);
+                    last[kind] = timestamp;
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+}
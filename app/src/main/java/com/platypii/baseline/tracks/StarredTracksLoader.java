@@ -0,0 +1,107 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.util.Exceptions;
+import com.platypii.baseline.util.PubSub.Subscriber;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads starred tracks in parallel on a small worker pool.
+ * Each track is delivered on the main thread as soon as it loads, until cancelled.
+ */
+public class StarredTracksLoader {
+    private static final String TAG = "StarredTracksLoader";
+
+    private static final int threads = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors()));
+
+    @Nullable
+    private static ExecutorService executor;
+
+    @NonNull
+    private final Tracks tracks;
+    @NonNull
+    private final Context context;
+    @NonNull
+    private final Subscriber<TrackData> listener;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Future<?>> futures = new ArrayList<>();
+    private volatile boolean cancelled = false;
+
+    StarredTracksLoader(@NonNull Tracks tracks, @NonNull Context context, @NonNull Subscriber<TrackData> listener) {
+        this.tracks = tracks;
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    @NonNull
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                final Thread thread = new Thread(r, TAG);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    void start() {
+        submit(() -> {
+            final List<TrackMetadata> starred = tracks.listStarred();
+            Log.i(TAG, "Loading " + starred.size() + " starred tracks");
+            for (TrackMetadata track : starred) {
+                submit(() -> load(track));
+            }
+        });
+    }
+
+    private synchronized void submit(@NonNull Runnable task) {
+        if (!cancelled) {
+            futures.add(executor().submit(task));
+        }
+    }
+
+    private void load(@NonNull TrackMetadata track) {
+        if (cancelled) return;
+        try {
+            final TrackData trackData = tracks.getStarredTrack(context, track);
+            if (trackData != null) {
+                handler.post(() -> {
+                    if (!cancelled) {
+                        listener.apply(trackData);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            Exceptions.report(e);
+        }
+    }
+
+    /**
+     * Stop loading, and drop any results not yet delivered
+     */
+    @MainThread
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+            futures.clear();
+        }
+        handler.removeCallbacksAndMessages(null);
+    }
+
+}
@@ -1,16 +1,16 @@
 package com.platypii.baseline.tracks;
 
+import com.platypii.baseline.util.BlockGzipInputStream;
+
 import android.util.Log;
 import androidx.annotation.NonNull;
 import java.io.BufferedReader;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.zip.GZIPInputStream;
 
 /**
  * Tools to strip down track data for faster processing
@@ -18,10 +18,16 @@ import java.util.zip.GZIPInputStream;
 public class TrackAbbrv {
     private static final String TAG = "TrackAbbrv";
 
-    public static void abbreviate(@NonNull File trackFileGz, @NonNull File abbrvFile) {
+    /**
+     * Write the alt and gps rows of a track file to an abbreviated track file.
+     * A partial abbreviated file is deleted on failure.
+     *
+     * @return false if the track file could not be read
+     */
+    public static boolean abbreviate(@NonNull File trackFileGz, @NonNull File abbrvFile) {
         final long startTime = System.currentTimeMillis();
         // Read file line by line
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(trackFileGz)), StandardCharsets.UTF_8))) {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(BlockGzipInputStream.open(trackFileGz), StandardCharsets.UTF_8))) {
             try (FileWriter writer = new FileWriter(abbrvFile)) {
                 boolean firstLine = true;
                 String line;
@@ -41,10 +47,21 @@ public class TrackAbbrv {
         } catch (EOFException e) {
             // Still error but less verbose
             Log.e(TAG, "Premature end of gzip track file " + trackFileGz + " to " + abbrvFile + "\n" + e);
+            deletePartial(abbrvFile);
+            return false;
         } catch (IOException e) {
             Log.e(TAG, "Error abbreviated track data from " + trackFileGz + " to " + abbrvFile, e);
+            deletePartial(abbrvFile);
+            return false;
         }
         Log.i(TAG, "Abbreviated track " + (trackFileGz.length() >> 10) + "kb -> " + (abbrvFile.length() >> 10) + "kb in " + (System.currentTimeMillis() - startTime) + "ms");
+        return true;
+    }
+
+    private static void deletePartial(@NonNull File abbrvFile) {
+        if (abbrvFile.exists() && !abbrvFile.delete()) {
+            Log.w(TAG, "Failed to delete partial abbreviated track " + abbrvFile);
+        }
     }
 
 }
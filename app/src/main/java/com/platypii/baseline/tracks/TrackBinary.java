@@ -0,0 +1,351 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.util.Numbers;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.platypii.baseline.tracks.TrackWriter.ACC;
+import static com.platypii.baseline.tracks.TrackWriter.ALT;
+import static com.platypii.baseline.tracks.TrackWriter.ALT_DISABLED;
+import static com.platypii.baseline.tracks.TrackWriter.GPS;
+import static com.platypii.baseline.tracks.TrackWriter.GRV;
+import static com.platypii.baseline.tracks.TrackWriter.ROT;
+import static com.platypii.baseline.tracks.TrackWriter.WIDTH;
+
+/**
+ * Compact binary track format.
+ * Values are quantized to the same precision as the CSV columns, so export back to CSV is lossless.
+ * Each record is a tag byte (kind, plus flags for optional gps fields),
+ * followed by zig-zag varint deltas from the previous record of the same kind.
+ * Timestamps are stored as delta of delta, which is usually tiny for periodic sensors.
+ *
+ * File layout: magic "BTRK", version, varint header length, header text (CSV header and comments), records.
+ */
+class TrackBinary {
+    private static final String TAG = "TrackBinary";
+
+    static final String EXTENSION = ".trk";
+
+    private static final byte[] MAGIC = {'B', 'T', 'R', 'K'};
+    private static final int VERSION = 1;
+
+    // Gps flags, stored in the high bits of the tag
+    private static final int HAS_VN = 0x10;
+    private static final int HAS_VE = 0x20;
+    private static final int HAS_SATS = 0x40;
+
+    // Quantized sentinels
+    private static final long Q_NAN = Long.MIN_VALUE;
+    private static final long Q_NEG_ZERO = Long.MIN_VALUE + 1;
+
+    private static final long[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    // Decimal places per record field, matching the CSV columns
+    private static final int[][] precision = new int[6][];
+
+    static {
+        precision[GPS] = new int[]{6, 6, 3, 2, 2};
+        precision[ALT] = new int[]{3};
+        precision[ALT_DISABLED] = new int[]{3};
+        precision[GRV] = new int[]{6, 6, 6};
+        precision[ROT] = new int[]{6, 6, 6};
+        precision[ACC] = new int[]{6};
+    }
+
+    /**
+     * Alt and alt- share delta state, since they come from the same sensor
+     */
+    private static int stream(int kind) {
+        return kind == ALT_DISABLED ? ALT : kind;
+    }
+
+    static boolean isBinary(@NonNull File file) {
+        try (InputStream is = new FileInputStream(file)) {
+            final byte[] magic = new byte[MAGIC.length];
+            return is.read(magic) == MAGIC.length && Arrays.equals(magic, MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Round to a fixed number of decimal places, half even, exactly like DecimalFormat
+     */
+    static long quantize(double x, int places) {
+        if (Double.isNaN(x) || Double.isInfinite(x)) return Q_NAN;
+        final double y = Math.abs(x) * POW10[places];
+        long n;
+        if (y < 0x1p52) {
+            final double floor = Math.floor(y);
+            final double frac = y - floor;
+            if (Math.abs(frac - 0.5) <= Math.ulp(y)) {
+                // Too close to call in double arithmetic
+                n = new BigDecimal(Math.abs(x)).setScale(places, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+            } else {
+                n = (long) floor + (frac > 0.5 ? 1 : 0);
+            }
+        } else if (y < 0x1p62) {
+            n = (long) y;
+        } else {
+            return Q_NAN;
+        }
+        if (x < 0 || (x == 0 && 1 / x < 0)) {
+            return n == 0 ? Q_NEG_ZERO : -n;
+        } else {
+            return n;
+        }
+    }
+
+    static double dequantize(long q, int places) {
+        if (q == Q_NAN) return Double.NaN;
+        if (q == Q_NEG_ZERO) return -0.0;
+        // Both are exact, so the quotient is the closest double to the decimal, same as parsing the CSV
+        return q / (double) POW10[places];
+    }
+
+    /**
+     * Writes binary track records
+     */
+    static class Encoder implements TrackWriter.Encoder {
+        @NonNull
+        private final OutputStream out;
+        private final byte[] buf = new byte[0x10000];
+        private int pos = 0;
+
+        // Delta state per stream
+        private final long[] lastMillis = new long[6];
+        private final long[] lastMillisDelta = new long[6];
+        private final long[] lastNano = new long[6];
+        private final long[] lastNanoDelta = new long[6];
+        private final long[][] last = new long[6][WIDTH];
+
+        Encoder(@NonNull OutputStream out, @NonNull String header) throws IOException {
+            this.out = out;
+            final byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+            out.write(MAGIC);
+            out.write(VERSION);
+            writeVarint(headerBytes.length);
+            flushBuffer();
+            out.write(headerBytes);
+        }
+
+        @Override
+        public void write(int kind, long millis, long nano, @NonNull double[] values, int offset, int n) throws IOException {
+            if (kind < 0 || kind >= precision.length) return;
+            // Longest record is a tag, six 10 byte varints, and a 5 byte varint
+            if (pos > buf.length - 128) {
+                flushBuffer();
+            }
+            final int stream = stream(kind);
+            final int[] places = precision[kind];
+            int tag = kind;
+            if (kind == GPS) {
+                if (Numbers.isReal(values[offset + 3])) tag |= HAS_VN;
+                if (Numbers.isReal(values[offset + 4])) tag |= HAS_VE;
+                if (n != -1) tag |= HAS_SATS;
+            }
+            buf[pos++] = (byte) tag;
+            if (kind == GPS || kind == ALT || kind == ALT_DISABLED) {
+                final long delta = millis - lastMillis[stream];
+                writeSigned(delta - lastMillisDelta[stream]);
+                lastMillis[stream] = millis;
+                lastMillisDelta[stream] = delta;
+            }
+            if (kind != GPS) {
+                final long delta = nano - lastNano[stream];
+                writeSigned(delta - lastNanoDelta[stream]);
+                lastNano[stream] = nano;
+                lastNanoDelta[stream] = delta;
+            }
+            for (int i = 0; i < places.length; i++) {
+                if (kind == GPS && ((i == 3 && (tag & HAS_VN) == 0) || (i == 4 && (tag & HAS_VE) == 0))) {
+                    continue;
+                }
+                final long q = quantize(values[offset + i], places[i]);
+                writeSigned(q - last[stream][i]);
+                last[stream][i] = q;
+            }
+            if ((tag & HAS_SATS) != 0) {
+                writeVarint(n & 0xffffffffL);
+            }
+        }
+
+        private void writeSigned(long value) {
+            // Zig-zag, so that small negative numbers are small
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushBuffer();
+            out.close();
+        }
+    }
+
+    /**
+     * Reads binary track records one at a time, without allocating
+     */
+    static class Decoder implements AutoCloseable {
+        @NonNull
+        private final InputStream in;
+        private final byte[] buf = new byte[0x10000];
+        private int pos = 0;
+        private int limit = 0;
+
+        @NonNull
+        final String header;
+
+        // Current record
+        int kind;
+        long millis;
+        long nano;
+        final double[] values = new double[WIDTH];
+        int sats;
+
+        private final long[] lastMillis = new long[6];
+        private final long[] lastMillisDelta = new long[6];
+        private final long[] lastNano = new long[6];
+        private final long[] lastNanoDelta = new long[6];
+        private final long[][] last = new long[6][WIDTH];
+
+        Decoder(@NonNull InputStream in) throws IOException {
+            this.in = in;
+            for (byte b : MAGIC) {
+                if (read() != b) throw new IOException("Not a binary track file");
+            }
+            final int version = read();
+            if (version != VERSION) throw new IOException("Unsupported binary track version " + version);
+            final int headerLength = (int) readVarint();
+            final byte[] headerBytes = new byte[headerLength];
+            for (int i = 0; i < headerLength; i++) {
+                headerBytes[i] = (byte) readByte();
+            }
+            header = new String(headerBytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Advance to the next record
+         *
+         * @return false at end of file, or if the last record was cut short
+         */
+        boolean next() throws IOException {
+            final int tag = read();
+            if (tag < 0) return false;
+            try {
+                kind = tag & 0x0f;
+                if (kind >= precision.length) {
+                    throw new IOException("Invalid binary track record " + tag);
+                }
+                final int stream = stream(kind);
+                final int[] places = precision[kind];
+                if (kind == GPS || kind == ALT || kind == ALT_DISABLED) {
+                    final long delta = lastMillisDelta[stream] + readSigned();
+                    millis = lastMillis[stream] + delta;
+                    lastMillis[stream] = millis;
+                    lastMillisDelta[stream] = delta;
+                } else {
+                    millis = 0;
+                }
+                if (kind != GPS) {
+                    final long delta = lastNanoDelta[stream] + readSigned();
+                    nano = lastNano[stream] + delta;
+                    lastNano[stream] = nano;
+                    lastNanoDelta[stream] = delta;
+                } else {
+                    nano = 0;
+                }
+                Arrays.fill(values, Double.NaN);
+                for (int i = 0; i < places.length; i++) {
+                    if (kind == GPS && ((i == 3 && (tag & HAS_VN) == 0) || (i == 4 && (tag & HAS_VE) == 0))) {
+                        continue;
+                    }
+                    final long q = last[stream][i] + readSigned();
+                    last[stream][i] = q;
+                    values[i] = dequantize(q, places[i]);
+                }
+                sats = (tag & HAS_SATS) != 0 ? (int) readVarint() : -1;
+                return true;
+            } catch (EOFException e) {
+                // Logging was interrupted mid-record
+                Log.w(TAG, "Binary track ends with a partial record");
+                return false;
+            }
+        }
+
+        private long readSigned() throws IOException {
+            final long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private int readByte() throws IOException {
+            final int b = read();
+            if (b < 0) throw new EOFException();
+            return b;
+        }
+
+        private int read() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++] & 0xff;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Convert a binary track file to CSV, byte identical to what the CSV logger would have written
+     */
+    static void exportCsv(@NonNull File binaryFile, @NonNull OutputStream os) throws IOException {
+        try (Decoder decoder = new Decoder(new FileInputStream(binaryFile))) {
+            final TrackCsvEncoder csv = new TrackCsvEncoder(os, decoder.header);
+            while (decoder.next()) {
+                csv.write(decoder.kind, decoder.millis, decoder.nano, decoder.values, 0, decoder.sats);
+            }
+            csv.close();
+        }
+    }
+
+}
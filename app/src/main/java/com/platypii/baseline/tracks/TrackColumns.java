@@ -0,0 +1,283 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.jarvis.FlightMode;
+import com.platypii.baseline.measurements.MLocation;
+
+import androidx.annotation.NonNull;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar track storage, with one primitive array per field.
+ * Much smaller than a list of MLocation, and faster to scan.
+ * Derived columns such as speed and flight mode are computed on first use.
+ */
+public class TrackColumns {
+
+    private int size = 0;
+    private long[] millis;
+    private double[] lat;
+    private double[] lon;
+    private double[] alt;
+    private double[] climb;
+    private double[] vN;
+    private double[] vE;
+
+    // Derived columns, computed lazily
+    private volatile double[] groundSpeed;
+    private volatile double[] totalSpeed;
+    private volatile int[] flightMode;
+
+    TrackColumns() {
+        this(256);
+    }
+
+    /**
+     * Wrap existing columns, which must all have the same length
+     */
+    TrackColumns(@NonNull long[] millis, @NonNull double[] lat, @NonNull double[] lon, @NonNull double[] alt,
+                 @NonNull double[] climb, @NonNull double[] vN, @NonNull double[] vE) {
+        this.size = millis.length;
+        this.millis = millis;
+        this.lat = lat;
+        this.lon = lon;
+        this.alt = alt;
+        this.climb = climb;
+        this.vN = vN;
+        this.vE = vE;
+    }
+
+    private TrackColumns(int capacity) {
+        millis = new long[capacity];
+        lat = new double[capacity];
+        lon = new double[capacity];
+        alt = new double[capacity];
+        climb = new double[capacity];
+        vN = new double[capacity];
+        vE = new double[capacity];
+    }
+
+    /**
+     * Convert a list of locations into columns
+     */
+    @NonNull
+    public static TrackColumns from(@NonNull List<MLocation> points) {
+        final TrackColumns columns = new TrackColumns(Math.max(points.size(), 1));
+        for (MLocation loc : points) {
+            columns.add(loc.millis, loc.latitude, loc.longitude, loc.altitude_gps, loc.climb, loc.vN, loc.vE);
+        }
+        return columns;
+    }
+
+    void add(long millis, double lat, double lon, double alt, double climb, double vN, double vE) {
+        if (size == this.millis.length) {
+            grow(size * 2);
+        }
+        this.millis[size] = millis;
+        this.lat[size] = lat;
+        this.lon[size] = lon;
+        this.alt[size] = alt;
+        this.climb[size] = climb;
+        this.vN[size] = vN;
+        this.vE[size] = vE;
+        size++;
+        // Invalidate derived columns
+        groundSpeed = null;
+        totalSpeed = null;
+        flightMode = null;
+    }
+
+    private void grow(int capacity) {
+        millis = Arrays.copyOf(millis, capacity);
+        lat = Arrays.copyOf(lat, capacity);
+        lon = Arrays.copyOf(lon, capacity);
+        alt = Arrays.copyOf(alt, capacity);
+        climb = Arrays.copyOf(climb, capacity);
+        vN = Arrays.copyOf(vN, capacity);
+        vE = Arrays.copyOf(vE, capacity);
+    }
+
+    /**
+     * Discard the first count points, keeping capacity
+     */
+    void dropFirst(int count) {
+        final int remaining = size - count;
+        System.arraycopy(millis, count, millis, 0, remaining);
+        System.arraycopy(lat, count, lat, 0, remaining);
+        System.arraycopy(lon, count, lon, 0, remaining);
+        System.arraycopy(alt, count, alt, 0, remaining);
+        System.arraycopy(climb, count, climb, 0, remaining);
+        System.arraycopy(vN, count, vN, 0, remaining);
+        System.arraycopy(vE, count, vE, 0, remaining);
+        size = remaining;
+        groundSpeed = null;
+        totalSpeed = null;
+        flightMode = null;
+    }
+
+    /**
+     * Release unused capacity once the track is fully loaded
+     */
+    void trimToSize() {
+        if (size < millis.length) {
+            grow(size);
+        }
+    }
+
+    /**
+     * Return a copy of the points in [start, end)
+     */
+    @NonNull
+    TrackColumns slice(int start, int end) {
+        final TrackColumns sliced = new TrackColumns(0);
+        sliced.size = end - start;
+        sliced.millis = Arrays.copyOfRange(millis, start, end);
+        sliced.lat = Arrays.copyOfRange(lat, start, end);
+        sliced.lon = Arrays.copyOfRange(lon, start, end);
+        sliced.alt = Arrays.copyOfRange(alt, start, end);
+        sliced.climb = Arrays.copyOfRange(climb, start, end);
+        sliced.vN = Arrays.copyOfRange(vN, start, end);
+        sliced.vE = Arrays.copyOfRange(vE, start, end);
+        return sliced;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long millis(int i) {
+        return millis[i];
+    }
+
+    public double lat(int i) {
+        return lat[i];
+    }
+
+    public double lon(int i) {
+        return lon[i];
+    }
+
+    public double alt(int i) {
+        return alt[i];
+    }
+
+    public double climb(int i) {
+        return climb[i];
+    }
+
+    public double vN(int i) {
+        return vN[i];
+    }
+
+    public double vE(int i) {
+        return vE[i];
+    }
+
+    public double groundSpeed(int i) {
+        double[] column = groundSpeed;
+        if (column == null) {
+            column = new double[size];
+            for (int j = 0; j < size; j++) {
+                column[j] = Math.sqrt(vN[j] * vN[j] + vE[j] * vE[j]);
+            }
+            groundSpeed = column;
+        }
+        return column[i];
+    }
+
+    /**
+     * Total speed, falling back to ground speed if climb is unknown, like MLocation.totalSpeed
+     */
+    public double totalSpeed(int i) {
+        double[] column = totalSpeed;
+        if (column == null) {
+            column = new double[size];
+            for (int j = 0; j < size; j++) {
+                final double c = Double.isNaN(climb[j]) ? 0 : climb[j];
+                column[j] = Math.sqrt(vN[j] * vN[j] + vE[j] * vE[j] + c * c);
+            }
+            totalSpeed = column;
+        }
+        return column[i];
+    }
+
+    public double glideRatio(int i) {
+        return -groundSpeed(i) / climb[i];
+    }
+
+    public int flightMode(int i) {
+        int[] column = flightMode;
+        if (column == null) {
+            column = new int[size];
+            for (int j = 0; j < size; j++) {
+                column[j] = FlightMode.getMode(groundSpeed(j), climb[j]);
+            }
+            flightMode = column;
+        }
+        return column[i];
+    }
+
+    /**
+     * Return the index of the first point at or after millis, clamped to the last point.
+     * Assumes points are sorted by time.
+     */
+    public int indexOf(long millis) {
+        return Math.min(lowerBound(millis), size - 1);
+    }
+
+    /**
+     * Return the index of the first point at or after millis, or size if there are none
+     */
+    int lowerBound(long millis) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (this.millis[mid] < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Materialize a single point as an MLocation
+     */
+    @NonNull
+    public MLocation get(int i) {
+        return new MLocation(millis[i], lat[i], lon[i], alt[i], climb[i], vN[i], vE[i], Float.NaN, Float.NaN, Float.NaN, Float.NaN, 0, 0);
+    }
+
+    /**
+     * Read-only list view that materializes MLocation objects on access.
+     * Prefer the column accessors when scanning the whole track.
+     */
+    @NonNull
+    public List<MLocation> asList() {
+        return new LocationList();
+    }
+
+    private class LocationList extends AbstractList<MLocation> implements RandomAccess {
+        @Override
+        public MLocation get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " size " + size);
+            }
+            return TrackColumns.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+}
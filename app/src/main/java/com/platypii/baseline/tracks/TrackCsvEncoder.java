@@ -0,0 +1,79 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MAccel;
+import com.platypii.baseline.measurements.MGravity;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.measurements.MRotation;
+
+import androidx.annotation.NonNull;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static com.platypii.baseline.tracks.TrackWriter.ACC;
+import static com.platypii.baseline.tracks.TrackWriter.ALT;
+import static com.platypii.baseline.tracks.TrackWriter.ALT_DISABLED;
+import static com.platypii.baseline.tracks.TrackWriter.GPS;
+import static com.platypii.baseline.tracks.TrackWriter.GRV;
+import static com.platypii.baseline.tracks.TrackWriter.ROT;
+
+/**
+ * Formats track records as CSV rows into one reused builder, with the row formatters of each measurement
+ */
+class TrackCsvEncoder implements TrackWriter.Encoder {
+
+    @NonNull
+    private final Writer out;
+
+    // Reused for every row
+    private final StringBuilder sb = new StringBuilder();
+    private char[] chars = new char[256];
+
+    /**
+     * @param header the header lines, written first
+     */
+    TrackCsvEncoder(@NonNull OutputStream os, @NonNull String header) throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(os), 0x10000);
+        out.write(header);
+    }
+
+    @Override
+    public void write(int kind, long millis, long nano, @NonNull double[] values, int i, int n) throws IOException {
+        sb.setLength(0);
+        switch (kind) {
+            case GPS:
+                MLocation.appendRow(sb, millis, values[i], values[i + 1], values[i + 2], values[i + 3], values[i + 4], n);
+                break;
+            case ALT:
+            case ALT_DISABLED:
+                MPressure.appendRow(sb, millis, nano, values[i], kind == ALT);
+                break;
+            case GRV:
+                MGravity.appendRow(sb, nano, values[i], values[i + 1], values[i + 2]);
+                break;
+            case ROT:
+                MRotation.appendRow(sb, nano, values[i], values[i + 1], values[i + 2]);
+                break;
+            case ACC:
+                MAccel.appendRow(sb, nano, values[i]);
+                break;
+            default:
+                return;
+        }
+        // Copy out of the builder, since Writer.append(CharSequence) makes a String
+        final int len = sb.length();
+        if (len >= chars.length) chars = new char[len * 2];
+        sb.getChars(0, len, chars, 0);
+        chars[len] = '\n';
+        out.write(chars, 0, len + 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
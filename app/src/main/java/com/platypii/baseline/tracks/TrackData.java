@@ -4,6 +4,7 @@ import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.util.Exceptions;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 
@@ -15,6 +16,15 @@ public class TrackData {
     @NonNull
     public final String id;
 
+    /**
+     * Location data in columnar form, prefer this for scanning the track
+     */
+    @NonNull
+    public final TrackColumns columns;
+
+    /**
+     * List view of the location data, materializes MLocation objects on access
+     */
     @NonNull
     public final List<MLocation> data;
 
@@ -23,16 +33,49 @@ public class TrackData {
 
     public TrackData(@NonNull String id, @NonNull File trackFile) {
         this.id = id;
-        final List<MLocation> all = new TrackFileReader(trackFile).read();
-        // Trim plane and ground
-        data = Trimmer.autoTrim(all);
-        // Compute stats
-        stats = new TrackStats(data);
+        TrackData loaded = TrackSidecar.read(id, trackFile);
+        if (loaded == null) {
+            loaded = parse(id, trackFile);
+            if (loaded != null) {
+                // Save for next time
+                TrackSidecar.write(trackFile, loaded);
+            } else {
+                // Never leave a sidecar for a track that can't be read
+                TrackSidecar.delete(trackFile);
+                final TrackColumns empty = new TrackColumns();
+                loaded = new TrackData(id, empty, new TrackStats(empty));
+            }
+        }
+        columns = loaded.columns;
+        data = columns.asList();
+        stats = loaded.stats;
     }
 
-    private TrackData(@NonNull String id, @NonNull List<MLocation> data, @NonNull TrackStats stats) {
+    /**
+     * Parse, trim, label, and compute stats in a single pass over the track file
+     *
+     * @return null if the track file could not be read
+     */
+    @Nullable
+    private static TrackData parse(@NonNull String id, @NonNull File trackFile) {
+        final TrackFileReader reader = new TrackFileReader(trackFile);
+        final TrackPipeline pipeline = new TrackPipeline();
+        if (!reader.read(pipeline)) {
+            return null;
+        } else if (pipeline.isTrimmed()) {
+            return pipeline.build(id);
+        } else {
+            // No jump found, and the pipeline never keeps the plane ride. Re-read the whole track,
+            // once per file, since the result is saved to the sidecar.
+            final TrackColumns columns = Trimmer.autoTrim(reader.read());
+            return new TrackData(id, columns, new TrackStats(columns));
+        }
+    }
+
+    TrackData(@NonNull String id, @NonNull TrackColumns columns, @NonNull TrackStats stats) {
         this.id = id;
-        this.data = data;
+        this.columns = columns;
+        this.data = columns.asList();
         this.stats = stats;
     }
 
@@ -41,14 +84,11 @@ public class TrackData {
      */
     public TrackData trim(long start, long end) {
         try {
-            int startIndex = 0;
-            int endIndex = 0;
-            for (int i = 0; i < data.size(); i++) {
-                final MLocation loc = data.get(i);
-                if (loc.millis < start) startIndex = i;
-                if (loc.millis <= end) endIndex = i;
-            }
-            final List<MLocation> trimmed = data.subList(startIndex, endIndex);
+            // Last point before start, and last point at or before end
+            final int startIndex = Math.max(columns.lowerBound(start) - 1, 0);
+            final int after = end == Long.MAX_VALUE ? columns.size() : columns.lowerBound(end + 1);
+            final int endIndex = Math.max(after - 1, 0);
+            final TrackColumns trimmed = columns.slice(startIndex, endIndex);
             return new TrackData(id, trimmed, stats);
         } catch (Exception e) {
             Exceptions.report(e);
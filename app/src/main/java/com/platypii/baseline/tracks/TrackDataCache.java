@@ -0,0 +1,221 @@
+package com.platypii.baseline.tracks;
+
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Process-wide LRU cache of loaded track data, shared across activities.
+ * Entries are keyed on file path, modified time and size, so changed files are reloaded.
+ * Memory is bounded by total point count, and concurrent loads of one track share a single parse.
+ */
+public class TrackDataCache {
+    private static final String TAG = "TrackDataCache";
+
+    // Rough heap size of one point: 7 columns plus derived speed and flight mode columns
+    private static final int BYTES_PER_POINT = 8 * 7 + 8 * 2 + 4;
+
+    private final long maxPoints;
+    private long points = 0;
+
+    // Access ordered, so iteration starts at the least recently used
+    private final LinkedHashMap<Key, TrackData> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, FutureTask<TrackData>> loading = new HashMap<>();
+
+    // Stats
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Default budget of one eighth of the heap
+     */
+    public TrackDataCache() {
+        this(Runtime.getRuntime().maxMemory() / 8 / BYTES_PER_POINT);
+    }
+
+    TrackDataCache(long maxPoints) {
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Return track data for a file, loading it if needed.
+     * Blocks while loading, so call from a background thread.
+     *
+     * @return null if the thread was interrupted while waiting for another thread to load the track
+     */
+    @Nullable
+    public TrackData get(@NonNull String id, @NonNull File trackFile) {
+        final Key key = new Key(trackFile);
+        final FutureTask<TrackData> task;
+        final boolean owner;
+        synchronized (this) {
+            final TrackData cached = cache.get(key);
+            if (cached != null) {
+                hits++;
+                return withId(cached, id);
+            }
+            misses++;
+            final FutureTask<TrackData> existing = loading.get(key);
+            if (existing != null) {
+                // Another thread is already loading this track
+                task = existing;
+                owner = false;
+            } else {
+                task = new FutureTask<>(() -> new TrackData(id, trackFile));
+                loading.put(key, task);
+                owner = true;
+            }
+        }
+        if (owner) {
+            task.run();
+        }
+        try {
+            final TrackData trackData = task.get();
+            if (owner) {
+                put(key, trackData);
+            }
+            return withId(trackData, id);
+        } catch (InterruptedException e) {
+            // Only waiters block in get, the owner already ran the task
+            Log.w(TAG, "Interrupted loading track " + trackFile);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (owner) {
+                synchronized (this) {
+                    loading.remove(key);
+                }
+            }
+            // Loading again would fail the same way
+            Log.e(TAG, "Failed to load track " + trackFile, e);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw new IllegalStateException("Failed to load track " + trackFile, e.getCause());
+            }
+        }
+    }
+
+    private synchronized void put(@NonNull Key key, @NonNull TrackData trackData) {
+        loading.remove(key);
+        // Drop older versions of this file
+        final Iterator<Key> it = cache.keySet().iterator();
+        while (it.hasNext()) {
+            final Key other = it.next();
+            if (other.path.equals(key.path)) {
+                points -= weight(cache.get(other));
+                it.remove();
+            }
+        }
+        final long weight = weight(trackData);
+        if (weight <= maxPoints) {
+            cache.put(key, trackData);
+            points += weight;
+            trimToSize(maxPoints);
+        }
+    }
+
+    /**
+     * Evict least recently used tracks until total points is at most max
+     */
+    private synchronized void trimToSize(long max) {
+        final Iterator<TrackData> it = cache.values().iterator();
+        while (points > max && it.hasNext()) {
+            points -= weight(it.next());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Release memory when the system asks, called from Application.onTrimMemory
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            Log.i(TAG, "Clearing track cache " + this);
+            trimToSize(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            Log.i(TAG, "Trimming track cache " + this);
+            trimToSize(maxPoints / 2);
+        }
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        points = 0;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Total points currently cached
+     */
+    public synchronized long size() {
+        return points;
+    }
+
+    private static long weight(@NonNull TrackData trackData) {
+        return Math.max(trackData.columns.size(), 1);
+    }
+
+    @NonNull
+    private static TrackData withId(@NonNull TrackData trackData, @NonNull String id) {
+        if (trackData.id.equals(id)) {
+            return trackData;
+        } else {
+            // Shares columns and stats
+            return new TrackData(id, trackData.columns, trackData.stats);
+        }
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "TrackDataCache(" + cache.size() + " tracks, " + points + "/" + maxPoints + " points, hits " + hits + ", misses " + misses + ", evictions " + evictions + ")";
+    }
+
+    private static class Key {
+        @NonNull
+        final String path;
+        final long modified;
+        final long length;
+
+        Key(@NonNull File file) {
+            path = file.getAbsolutePath();
+            modified = file.lastModified();
+            length = file.length();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) return false;
+            final Key other = (Key) obj;
+            return path.equals(other.path) && modified == other.modified && length == other.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Long.hashCode(modified) * 17 + Long.hashCode(length);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.util.MD5;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * MD5 of a track file, computed as the file is written, and saved next to it.
+ * Upload can then start without reading the whole file just to hash it.
+ * Records the size and modified time of the track file, and is ignored if stale.
+ */
+class TrackDigest {
+    private static final String TAG = "TrackDigest";
+
+    private static final int MAGIC = 0x424c4d44; // "BLMD"
+
+    /**
+     * Returns the digest file for a given track file
+     */
+    @NonNull
+    static File digestFile(@NonNull File trackFile) {
+        return new File(trackFile.getPath() + ".md5");
+    }
+
+    /**
+     * Save the digest of a finished track file. Call after the file is closed.
+     */
+    static void write(@NonNull File trackFile, @NonNull String md5) {
+        final File digestFile = digestFile(trackFile);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(digestFile))) {
+            out.writeInt(MAGIC);
+            out.writeLong(trackFile.length());
+            out.writeLong(trackFile.lastModified());
+            out.writeUTF(md5);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write digest " + digestFile, e);
+            delete(trackFile);
+        }
+    }
+
+    /**
+     * @return the saved digest, or null if missing or stale
+     */
+    @Nullable
+    static String read(@NonNull File trackFile) {
+        final File digestFile = digestFile(trackFile);
+        if (!digestFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(digestFile))) {
+            if (in.readInt() != MAGIC) {
+                Log.w(TAG, "Unknown digest format " + digestFile);
+                return null;
+            }
+            if (in.readLong() != trackFile.length() || in.readLong() != trackFile.lastModified()) {
+                Log.i(TAG, "Stale digest " + digestFile);
+                return null;
+            }
+            return in.readUTF();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read digest " + digestFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Return the saved digest if fresh, otherwise hash the file
+     */
+    @Nullable
+    static String md5(@NonNull File trackFile) {
+        final String md5 = read(trackFile);
+        if (md5 != null) {
+            return md5;
+        } else {
+            return MD5.md5(trackFile);
+        }
+    }
+
+    /**
+     * Move digest along with its track file.
+     * Renaming preserves size and modified time, so the digest stays fresh.
+     */
+    static void move(@NonNull File from, @NonNull File to) {
+        final File digestFile = digestFile(from);
+        if (digestFile.exists() && !digestFile.renameTo(digestFile(to))) {
+            Log.w(TAG, "Failed to move digest " + digestFile);
+            delete(from);
+        }
+    }
+
+    static void delete(@NonNull File trackFile) {
+        final File digestFile = digestFile(trackFile);
+        if (digestFile.exists() && !digestFile.delete()) {
+            Log.w(TAG, "Failed to delete digest " + digestFile);
+        }
+    }
+
+}
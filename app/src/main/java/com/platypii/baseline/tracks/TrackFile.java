@@ -1,8 +1,13 @@
 package com.platypii.baseline.tracks;
 
+import com.platypii.baseline.util.BlockGzipOutputStream;
+
 import android.util.Log;
 import androidx.annotation.NonNull;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Represents a track file on the local device (pre-upload)
@@ -21,6 +26,7 @@ public class TrackFile {
     public String getName() {
         return file.getName()
                 .replaceAll(".csv.gz", "")
+                .replaceAll(TrackBinary.EXTENSION, "")
                 .replaceAll("_", " ");
     }
 
@@ -35,6 +41,22 @@ public class TrackFile {
         return size + " kb";
     }
 
+    /**
+     * Gzipped CSV to share with other apps.
+     * Binary tracks are decoded into a CSV copy in the export directory, so don't call from the main thread.
+     */
+    @NonNull
+    public File exportFile(@NonNull File exportDir) throws IOException {
+        if (!TrackBinary.isBinary(file)) {
+            return file;
+        }
+        final File csvFile = new File(exportDir, file.getName().replace(TrackBinary.EXTENSION, ".csv.gz"));
+        try (OutputStream os = new BlockGzipOutputStream(new FileOutputStream(csvFile))) {
+            TrackBinary.exportCsv(file, os);
+        }
+        return csvFile;
+    }
+
     /**
      * Move the track file to track directory
      */
@@ -51,6 +73,9 @@ public class TrackFile {
         // Move track file to track directory
         if (!file.renameTo(destination)) {
             Log.e(TAG, "Failed to move track file " + file + " to " + destination);
+        } else {
+            TrackSidecar.move(file, destination);
+            TrackDigest.move(file, destination);
         }
     }
 
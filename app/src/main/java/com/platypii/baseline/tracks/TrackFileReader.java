@@ -1,8 +1,9 @@
 package com.platypii.baseline.tracks;
 
 import com.platypii.baseline.altimeter.BaroAltimeter;
-import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.BlockGzipInputStream;
 import com.platypii.baseline.util.CSVHeader;
+import com.platypii.baseline.util.CSVTokenizer;
 import com.platypii.baseline.util.filters.Filter;
 import com.platypii.baseline.util.filters.FilterKalman;
 
@@ -15,13 +16,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.zip.GZIPInputStream;
-
-import static com.platypii.baseline.util.CSVParse.getColumnDate;
-import static com.platypii.baseline.util.CSVParse.getColumnDouble;
-import static com.platypii.baseline.util.CSVParse.getColumnLong;
 
 /**
  * Parse location data from track file
@@ -32,20 +26,54 @@ class TrackFileReader {
     @NonNull
     private final File trackFile;
 
+    @NonNull
+    private final CSVTokenizer tokenizer = new CSVTokenizer();
+
     TrackFileReader(@NonNull File trackFile) {
         this.trackFile = trackFile;
     }
 
     /**
-     * Load track data from file into location data
+     * Receives each location as it is parsed
+     */
+    interface Sink {
+        void add(long millis, double lat, double lon, double alt, double climb, double vN, double vE);
+    }
+
+    /**
+     * Load track data from file into location columns
      */
     @NonNull
-    List<MLocation> read() {
+    TrackColumns read() {
+        final TrackColumns data = new TrackColumns();
+        if (read(data::add)) {
+            data.trimToSize();
+            return data;
+        } else {
+            return new TrackColumns();
+        }
+    }
+
+    /**
+     * Stream locations from file into a sink
+     *
+     * @return false if the file could not be read
+     */
+    boolean read(@NonNull Sink sink) {
         // Read file line by line
-        if (trackFile.getName().endsWith(".gz")) {
+        if (trackFile.getName().endsWith(TrackBinary.EXTENSION)) {
+            // Binary track file
+            try (TrackBinary.Decoder decoder = new TrackBinary.Decoder(new FileInputStream(trackFile))) {
+                parseBinary(decoder, sink);
+                return true;
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading binary track data from " + trackFile, e);
+            }
+        } else if (trackFile.getName().endsWith(".gz")) {
             // GZipped track file
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(trackFile)), StandardCharsets.UTF_8))) {
-                return parse(br);
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(BlockGzipInputStream.open(trackFile), StandardCharsets.UTF_8))) {
+                parse(br, sink);
+                return true;
             } catch (EOFException e) {
                 // Still error but less verbose
                 Log.e(TAG, "Premature end of gzip track file " + trackFile + "\n" + e);
@@ -55,27 +83,17 @@ class TrackFileReader {
         } else {
             // Uncompressed CSV file
             try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(trackFile), StandardCharsets.UTF_8))) {
-                return parse(br);
+                parse(br, sink);
+                return true;
             } catch (IOException e) {
                 Log.e(TAG, "Error reading track data from " + trackFile, e);
             }
         }
-        return new ArrayList<>();
+        return false;
     }
 
-    @NonNull
-    private List<MLocation> parse(@NonNull BufferedReader br) throws IOException {
-        // Reset initial state
-        // State used while scanning track file
-        final Filter baroAltitudeFilter = new FilterKalman();
-        final Filter gpsAltitudeFilter = new FilterKalman();
-        long baroLastNano = -1L;
-        long gpsLastMillis = -1L;
-        boolean initAltGps = false;
-        boolean initAltBaro = false;
-        double baroOffset = 0; // gps altitude - pressure altitude
-
-        final List<MLocation> data = new ArrayList<>();
+    private void parse(@NonNull BufferedReader br, @NonNull Sink data) throws IOException {
+        final Integrator integrator = new Integrator(data);
 
         // Parse header column
         final CSVHeader columns = new CSVHeader(br);
@@ -86,87 +104,134 @@ class TrackFileReader {
         columns.addMapping("longitude", "lon");
         columns.addMapping("altitude_gps", "hMSL");
 
+        // Resolve column indices once
+        final int colSensor = columns.index("sensor");
+        final int colTime = columns.index("time");
+        final int colMillis = columns.index("millis");
+        final int colNano = columns.index("nano");
+        final int colLat = columns.index("lat");
+        final int colLon = columns.index("lon");
+        final int colAlt = columns.index("hMSL");
+        final int colVelD = columns.index("velD");
+        final int colVelN = columns.index("velN");
+        final int colVelE = columns.index("velE");
+        final int colPressure = columns.index("pressure");
+
         // Parse data rows
-        String line;
-        while ((line = br.readLine()) != null) {
-            final String[] row = line.split(",");
-            final Integer sensorIndex = columns.get("sensor");
-            if (sensorIndex == null || sensorIndex >= row.length) {
+        tokenizer.reset(br);
+        while (tokenizer.next()) {
+            if (colSensor < 0 || colSensor >= tokenizer.size()) {
                 // FlySight
-                final long millis = getColumnDate(row, columns, "time");
+                final long millis = tokenizer.getDate(colTime);
                 if (millis > 0) {
-                    final double lat = getColumnDouble(row, columns, "lat");
-                    final double lon = getColumnDouble(row, columns, "lon");
-                    final double alt_gps = getColumnDouble(row, columns, "hMSL");
-                    final double climb = -getColumnDouble(row, columns, "velD");
-                    final double vN = getColumnDouble(row, columns, "velN");
-                    final double vE = getColumnDouble(row, columns, "velE");
+                    final double lat = tokenizer.getDouble(colLat);
+                    final double lon = tokenizer.getDouble(colLon);
+                    final double alt_gps = tokenizer.getDouble(colAlt);
+                    final double climb = -tokenizer.getDouble(colVelD);
+                    final double vN = tokenizer.getDouble(colVelN);
+                    final double vE = tokenizer.getDouble(colVelE);
                     if (!Double.isNaN(lat) && !Double.isNaN(lon)) {
-                        final MLocation loc = new MLocation(millis, lat, lon, alt_gps, climb, vN, vE, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 0, 0);
-                        data.add(loc);
+                        data.add(millis, lat, lon, alt_gps, climb, vN, vE);
                     }
                 }
-            } else if (row[sensorIndex].equals("gps")) {
+            } else if (tokenizer.equals(colSensor, "gps")) {
                 // BASEline GPS measurement
-                final long millis = getColumnLong(row, columns, "millis");
-                final double lat = getColumnDouble(row, columns, "lat");
-                final double lon = getColumnDouble(row, columns, "lon");
-                final double alt_gps = getColumnDouble(row, columns, "hMSL");
-                final double vN = getColumnDouble(row, columns, "velN");
-                final double vE = getColumnDouble(row, columns, "velE");
-                // Update gps altitude filter
-                if (gpsLastMillis < 0) {
-                    gpsAltitudeFilter.update(alt_gps, 0);
-                } else {
-                    final double dt = (millis - gpsLastMillis) * 0.001;
-                    gpsAltitudeFilter.update(alt_gps, dt);
-                }
-                // Integrate baro altitude
-                if (!Double.isNaN(alt_gps)) {
-                    if (initAltBaro && !initAltGps) {
-                        // Set the initial altitude offset
-                        baroOffset = alt_gps - baroAltitudeFilter.x();
-                    }
-                }
-                double integratedAlt;
-                if (initAltBaro && initAltGps) {
-                    integratedAlt = baroAltitudeFilter.x() + baroOffset;
-                } else {
-                    integratedAlt = alt_gps;
-                }
-                // Climb rate from baro or gps
-                double climb = baroAltitudeFilter.v();
-                if (baroLastNano < 0 || Double.isNaN(climb)) {
-                    climb = gpsAltitudeFilter.v();
-                }
-                if (!Double.isNaN(lat) && !Double.isNaN(lon)) {
-                    final MLocation loc = new MLocation(millis, lat, lon, integratedAlt, climb, vN, vE, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 0, 0);
-                    data.add(loc);
-                }
-                gpsLastMillis = millis;
-                initAltGps = true;
-            } else if (row[sensorIndex].equals("alt")) {
+                integrator.gps(
+                        tokenizer.getLong(colMillis),
+                        tokenizer.getDouble(colLat),
+                        tokenizer.getDouble(colLon),
+                        tokenizer.getDouble(colAlt),
+                        tokenizer.getDouble(colVelN),
+                        tokenizer.getDouble(colVelE)
+                );
+            } else if (tokenizer.equals(colSensor, "alt")) {
                 // BASEline alti measurement
-                final long nano = getColumnLong(row, columns, "nano");
-                final double pressure = getColumnDouble(row, columns, "pressure");
-                final double pressureAltitude = BaroAltimeter.pressureToAltitude(pressure);
-                if (baroLastNano < 0) {
-                    baroAltitudeFilter.update(pressureAltitude, 0);
-                } else {
-                    final double dt = (nano - baroLastNano) * 1E-9;
-                    baroAltitudeFilter.update(pressureAltitude, dt);
-                }
-                // Integrate GPS altitude
-                if (!initAltBaro && initAltGps) {
+                integrator.alt(tokenizer.getLong(colNano), tokenizer.getDouble(colPressure));
+            }
+        }
+    }
+
+    private void parseBinary(@NonNull TrackBinary.Decoder decoder, @NonNull Sink data) throws IOException {
+        final Integrator integrator = new Integrator(data);
+        final double[] values = decoder.values;
+        while (decoder.next()) {
+            if (decoder.kind == TrackWriter.GPS) {
+                integrator.gps(decoder.millis, values[0], values[1], values[2], values[3], values[4]);
+            } else if (decoder.kind == TrackWriter.ALT) {
+                integrator.alt(decoder.nano, values[0]);
+            }
+        }
+    }
+
+    /**
+     * Fuses BASEline gps and barometer measurements into locations
+     */
+    static class Integrator {
+        @NonNull
+        private final Sink data;
+
+        // State used while scanning track file
+        private final Filter baroAltitudeFilter = new FilterKalman();
+        private final Filter gpsAltitudeFilter = new FilterKalman();
+        private long baroLastNano = -1L;
+        private long gpsLastMillis = -1L;
+        private boolean initAltGps = false;
+        private boolean initAltBaro = false;
+        private double baroOffset = 0; // gps altitude - pressure altitude
+
+        Integrator(@NonNull Sink data) {
+            this.data = data;
+        }
+
+        void gps(long millis, double lat, double lon, double alt_gps, double vN, double vE) {
+            // Update gps altitude filter
+            if (gpsLastMillis < 0) {
+                gpsAltitudeFilter.update(alt_gps, 0);
+            } else {
+                final double dt = (millis - gpsLastMillis) * 0.001;
+                gpsAltitudeFilter.update(alt_gps, dt);
+            }
+            // Integrate baro altitude
+            if (!Double.isNaN(alt_gps)) {
+                if (initAltBaro && !initAltGps) {
                     // Set the initial altitude offset
-                    baroOffset = gpsAltitudeFilter.x() - baroAltitudeFilter.x();
+                    baroOffset = alt_gps - baroAltitudeFilter.x();
                 }
-                baroLastNano = nano;
-                initAltBaro = true;
             }
+            double integratedAlt;
+            if (initAltBaro && initAltGps) {
+                integratedAlt = baroAltitudeFilter.x() + baroOffset;
+            } else {
+                integratedAlt = alt_gps;
+            }
+            // Climb rate from baro or gps
+            double climb = baroAltitudeFilter.v();
+            if (baroLastNano < 0 || Double.isNaN(climb)) {
+                climb = gpsAltitudeFilter.v();
+            }
+            if (!Double.isNaN(lat) && !Double.isNaN(lon)) {
+                data.add(millis, lat, lon, integratedAlt, climb, vN, vE);
+            }
+            gpsLastMillis = millis;
+            initAltGps = true;
         }
 
-        return data;
+        void alt(long nano, double pressure) {
+            final double pressureAltitude = BaroAltimeter.pressureToAltitude(pressure);
+            if (baroLastNano < 0) {
+                baroAltitudeFilter.update(pressureAltitude, 0);
+            } else {
+                final double dt = (nano - baroLastNano) * 1E-9;
+                baroAltitudeFilter.update(pressureAltitude, dt);
+            }
+            // Integrate GPS altitude
+            if (!initAltBaro && initAltGps) {
+                // Set the initial altitude offset
+                baroOffset = gpsAltitudeFilter.x() - baroAltitudeFilter.x();
+            }
+            baroLastNano = nano;
+            initAltBaro = true;
+        }
     }
 
 }
@@ -31,8 +31,8 @@ class TrackFiles {
                 for (File file : files) {
                     final String filename = file.getName();
                     final TrackFile trackFile = new TrackFile(file);
-                    // Tracks look like track_yyyy-MM-dd_HH-mm-ss.csv.gz
-                    if (filename.endsWith(".csv.gz")) {
+                    // Tracks look like track_yyyy-MM-dd_HH-mm-ss.csv.gz, or .trk for binary tracks
+                    if (filename.endsWith(".csv.gz") || filename.endsWith(TrackBinary.EXTENSION)) {
                         tracks.add(trackFile);
                     }
                 }
@@ -61,12 +61,22 @@ class TrackFiles {
      */
     @NonNull
     static TrackFile newTrackFile(File logDir) {
+        return new TrackFile(makeUnique(logDir, "track_" + timestamp(), "csv.gz"));
+    }
+
+    /**
+     * Generate new binary track file based on current timestamp
+     */
+    @NonNull
+    static TrackFile newBinaryTrackFile(File logDir) {
+        return new TrackFile(makeUnique(logDir, "track_" + timestamp(), TrackBinary.EXTENSION.substring(1)));
+    }
+
+    @NonNull
+    private static String timestamp() {
         // Name file based on current timestamp
         final SimpleDateFormat dt = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.US);
-        final String timestamp = dt.format(new Date());
-
-        final File file = makeUnique(logDir, "track_" + timestamp, "csv.gz");
-        return new TrackFile(file);
+        return dt.format(new Date());
     }
 
     /**
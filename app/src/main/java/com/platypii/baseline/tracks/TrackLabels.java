@@ -1,12 +1,9 @@
 package com.platypii.baseline.tracks;
 
-import com.platypii.baseline.jarvis.FlightMode;
-import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.util.Exceptions;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import java.util.List;
 
 import static com.platypii.baseline.jarvis.FlightMode.MODE_CANOPY;
 import static com.platypii.baseline.jarvis.FlightMode.MODE_FREEFALL;
@@ -19,18 +16,36 @@ class TrackLabels {
     int deploy;
     int land;
 
-    private TrackLabels(int exit, int deploy, int land) {
+    TrackLabels(int exit, int deploy, int land) {
         this.exit = exit;
         this.deploy = deploy;
         this.land = land;
     }
 
     @Nullable
-    static TrackLabels from(@NonNull List<MLocation> points) {
+    static TrackLabels from(@NonNull TrackColumns points) {
+        final int n = points.size();
+        // Cumulative in-flight and in-freefall distributions
+        final int[] flightCum = new int[n + 1];
+        final int[] freefallCum = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            final int mode = points.flightMode(i);
+            flightCum[i + 1] = flightCum[i] + inFlight(mode);
+            freefallCum[i + 1] = freefallCum[i] + inFreefall(mode);
+        }
+        return from(flightCum, freefallCum);
+    }
+
+    /**
+     * Find labels from cumulative distributions of length n + 1,
+     * where cum[i] counts the in-flight (or in-freefall) points before index i.
+     */
+    @Nullable
+    static TrackLabels from(@NonNull int[] flightCum, @NonNull int[] freefallCum) {
         try {
-            final TrackLabels labels = findExitLand(points);
+            final TrackLabels labels = findExitLand(flightCum);
             if (labels != null) {
-                labels.deploy = findDeploy(points, labels.exit, labels.land);
+                labels.deploy = findDeploy(freefallCum, labels.exit, labels.land);
             }
             return labels;
         } catch (Exception e) {
@@ -44,13 +59,8 @@ class TrackLabels {
      * Return as a TrackLabels with deploy set to 0.
      */
     @Nullable
-    private static TrackLabels findExitLand(@NonNull List<MLocation> points) {
-        final int n = points.size();
-        // Cumulative in-flight distribution
-        final int[] cum = new int[n + 1];
-        for (int i = 0; i < n; i++) {
-            cum[i + 1] = cum[i] + inFlight(FlightMode.getMode(points.get(i)));
-        }
+    private static TrackLabels findExitLand(@NonNull int[] cum) {
+        final int n = cum.length - 1;
         // Find median index
         int median = -1;
         for (int i = 0; i < n; i++) {
@@ -82,13 +92,8 @@ class TrackLabels {
     /**
      * Find deploy index by minimizing classification error
      */
-    private static int findDeploy(@NonNull List<MLocation> points, int exit, int land) {
-        final int n = points.size();
-        // Cumulative in-freefall distribution
-        final int[] freefallCum = new int[n + 1];
-        for (int i = exit; i <= land; i++) {
-            freefallCum[i + 1] = freefallCum[i] + inFreefall(FlightMode.getMode(points.get(i)));
-        }
+    private static int findDeploy(@NonNull int[] freefallCum, int exit, int land) {
+        // Comparisons are relative, so counts before exit don't change the result
         int deploy = exit + 1;
         for (int i = exit + 1; i <= land; i++) {
             // #correct = c(i) + (land - i - total + c(i)) ~= 2 c(i) - i
@@ -99,11 +104,11 @@ class TrackLabels {
         return deploy - 1;
     }
 
-    private static int inFlight(int mode) {
+    static int inFlight(int mode) {
         return mode == MODE_FREEFALL || mode == MODE_WINGSUIT || mode == MODE_CANOPY ? 1 : 0;
     }
 
-    private static int inFreefall(int mode) {
+    static int inFreefall(int mode) {
         return mode == MODE_GROUND || mode == MODE_CANOPY ? 0 : 1;
     }
 
@@ -7,7 +7,9 @@ import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.measurements.MPressure;
 import com.platypii.baseline.measurements.Measurement;
 import com.platypii.baseline.sensors.MySensorListener;
+import com.platypii.baseline.util.BlockGzipOutputStream;
 import com.platypii.baseline.util.Exceptions;
+import com.platypii.baseline.util.MD5;
 import com.platypii.baseline.util.PubSub.Subscriber;
 import com.platypii.baseline.util.StringBuilderUtil;
 
@@ -15,12 +17,13 @@ import android.content.Context;
 import android.os.AsyncTask;
 import android.util.Log;
 import androidx.annotation.NonNull;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.util.zip.GZIPOutputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
 import org.greenrobot.eventbus.EventBus;
 
 /**
@@ -30,7 +33,7 @@ import org.greenrobot.eventbus.EventBus;
 public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
     private static final String TAG = "TrackLogger";
 
-    private boolean logging = false;
+    private volatile boolean logging = false;
 
     private long startTimeMillis = System.currentTimeMillis();
     private long startTimeNano = System.nanoTime();
@@ -39,10 +42,60 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
     // Log file
     private File logDir;
     private TrackFile trackFile;
-    private BufferedWriter log;
+    private volatile TrackWriter log;
+    private LiveTrackStats liveStats;
+    // Hash of the bytes written, so upload doesn't have to re-read the file
+    private MessageDigest digest;
 
-    public void start(@NonNull final Context context) {
+    // IMU decimation by flight mode
+    @NonNull
+    private volatile double[] imuRates = LoggingPolicy.DEFAULT_RATES;
+    private volatile LoggingPolicy policy;
+
+    // Write compact binary tracks instead of gzipped CSV
+    private volatile boolean binaryFormat = false;
+
+    // Always-on buffer of recent samples, written at the start of each track
+    private final PreRollBuffer preroll = new PreRollBuffer(PreRollBuffer.DEFAULT_CAPACITY, PreRollBuffer.DEFAULT_WINDOW_NANOS);
+    private boolean prerollEnabled = true;
+    private boolean started = false;
+    private final Subscriber<MLocation> prerollLocation = loc -> {
+        if (!Double.isNaN(loc.latitude) && !Double.isNaN(loc.longitude)) {
+            preroll.addLocation(loc);
+        }
+    };
+    private final Subscriber<MPressure> prerollPressure = alt -> {
+        if (!Double.isNaN(alt.pressure)) {
+            preroll.addPressure(alt, Services.alti.barometerEnabled);
+        }
+    };
+    private final MySensorListener prerollSensors = preroll::addSensor;
+    // Same instance for subscribe and unsubscribe
+    private final Subscriber<MLocation> locationListener = this::onLocationChanged;
+
+    public synchronized void start(@NonNull final Context context) {
         AsyncTask.execute(() -> logDir = TrackFiles.getTrackDirectory(context));
+        started = true;
+        if (prerollEnabled) {
+            startPreRoll();
+        }
+    }
+
+    /**
+     * Start buffering, so that a late start doesn't miss anything
+     */
+    private void startPreRoll() {
+        Services.location.locationUpdates.subscribe(prerollLocation);
+        Services.alti.baro.pressureEvents.subscribe(prerollPressure);
+        Services.sensors.addListener(prerollSensors);
+        Log.i(TAG, "Pre-roll buffer using " + preroll.memoryBytes() / 1024 + " KB");
+    }
+
+    private void stopPreRoll() {
+        Services.location.locationUpdates.unsubscribe(prerollLocation);
+        Services.alti.baro.pressureEvents.unsubscribe(prerollPressure);
+        Services.sensors.removeListener(prerollSensors);
+        preroll.clear();
     }
 
     public synchronized void startLogging() {
@@ -54,7 +107,7 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
             stopTimeNano = -1;
             try {
                 // Pick a log file
-                trackFile = TrackFiles.newTrackFile(logDir);
+                trackFile = binaryFormat ? TrackFiles.newBinaryTrackFile(logDir) : TrackFiles.newTrackFile(logDir);
 
                 // Update state before first byte is written
                 // Otherwise user can browse to it, and uploader might upload it
@@ -83,10 +136,22 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
             Log.i(TAG, "Stopping logging");
             final TrackFile trackFile = stopFileLogging();
             logging = false;
+            // Don't write the same samples into the next track
+            preroll.clear();
             if (trackFile != null) {
-                // Update state before notifying listeners (such as upload manager)
-                Services.tracks.local.setNotUploaded(trackFile);
-                EventBus.getDefault().post(new LoggingEvent.LoggingStop(trackFile));
+                // Track data was computed while recording, unless no jump was found
+                final TrackData trackData = liveStats.build(trackFile.file.getName());
+                if (trackData != null) {
+                    AsyncTask.execute(() -> {
+                        // Save track data next to the track so that opening the track is fast.
+                        // Before upload is queued, since upload may move the track.
+                        TrackSidecar.write(trackFile.file, trackData);
+                        loggingStopped(trackFile);
+                    });
+                } else {
+                    // Sidecar is built when the track is first opened
+                    loggingStopped(trackFile);
+                }
             } else {
                 Exceptions.report(new IllegalStateException("Result of stopFileLogging should not be null"));
             }
@@ -95,6 +160,12 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
         }
     }
 
+    private void loggingStopped(@NonNull TrackFile trackFile) {
+        // Update state before notifying listeners (such as upload manager)
+        Services.tracks.local.setNotUploaded(trackFile);
+        EventBus.getDefault().post(new LoggingEvent.LoggingStop(trackFile));
+    }
+
     public boolean isLogging() {
         return logging;
     }
@@ -131,17 +202,36 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
     }
 
     private void startFileLogging(@NonNull File logFile) throws IOException {
-        // Open track file for writing
-        log = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(logFile))));
+        policy = new LoggingPolicy(imuRates, Services.flightComputer.flightMode);
 
-        // Write header
-        log.write(Measurement.header + "\n");
-        log.write("# BASEline " + BuildConfig.VERSION_NAME + " " + Services.location.dataSource() + "\n");
+        // Open track file for writing
+        String header = Measurement.header + "\n"
+                + "# BASEline " + BuildConfig.VERSION_NAME + " " + Services.location.dataSource() + "\n"
+                + policy.header() + "\n";
+        if (prerollEnabled) {
+            header += "# preroll " + TimeUnit.NANOSECONDS.toSeconds(PreRollBuffer.DEFAULT_WINDOW_NANOS) + "s\n";
+        }
+        digest = MD5.digest();
+        final OutputStream os = new DigestOutputStream(new FileOutputStream(logFile), digest);
+        final TrackWriter.Encoder encoder;
+        if (binaryFormat) {
+            encoder = new TrackBinary.Encoder(os, header);
+        } else {
+            encoder = new TrackCsvEncoder(new BlockGzipOutputStream(os), header);
+        }
+        liveStats = new LiveTrackStats(encoder);
+        log = new TrackWriter(liveStats, TrackWriter.DEFAULT_CAPACITY, prerollEnabled);
 
         // Start sensor updates
         Services.alti.baro.pressureEvents.subscribe(this);
-        Services.location.locationUpdates.subscribe(this::onLocationChanged);
+        Services.location.locationUpdates.subscribe(locationListener);
         Services.sensors.addListener(this);
+        Services.flightComputer.flightModeUpdates.subscribe(policy);
+
+        if (prerollEnabled) {
+            // Snapshot after live samples start, so that nothing is missed in between
+            log.writePreRoll(preroll.snapshot());
+        }
 
         Log.i(TAG, "Logging to " + logFile);
     }
@@ -155,13 +245,21 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
 
         // Stop sensor updates
         Services.alti.baro.pressureEvents.unsubscribe(this);
-        Services.location.locationUpdates.unsubscribe(this::onLocationChanged);
+        Services.location.locationUpdates.unsubscribe(locationListener);
         Services.sensors.removeListener(this);
+        Services.flightComputer.flightModeUpdates.unsubscribe(policy);
 
         // Close file writer
         try {
             log.close();
-            Log.i(TAG, "Logging stopped for " + trackFile);
+            TrackDigest.write(trackFile.file, MD5.hex(digest));
+            Log.i(TAG, "Logging stopped for " + trackFile + ", wrote " + log.written() + " samples");
+            if (policy.skipped() > 0) {
+                Log.i(TAG, "Skipped " + policy.skipped() + " sensor samples by flight mode");
+            }
+            if (log.dropped() > 0) {
+                Log.w(TAG, "Dropped " + log.dropped() + " samples because the track writer fell behind");
+            }
             return trackFile;
         } catch (IOException e) {
             Log.e(TAG, "Failed to close log file " + trackFile, e);
@@ -175,13 +273,9 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
      */
     @Override
     public void apply(@NonNull MPressure alt) {
-        if (!Double.isNaN(alt.pressure)) {
-            if (Services.alti.barometerEnabled) {
-                logLine(alt.toRow());
-            } else {
-                // If barometric altimeter is disabled, log it as "alt--" sensor
-                logLine(alt.toRow().replace(",alt,", ",alt-,"));
-            }
+        if (!Double.isNaN(alt.pressure) && checkLogging(alt)) {
+            // If barometric altimeter is disabled, log it as "alt-" sensor
+            log.writePressure(alt, Services.alti.barometerEnabled);
         }
     }
 
@@ -189,8 +283,8 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
      * Listen for location updates
      */
     public void onLocationChanged(@NonNull MLocation measure) {
-        if (!Double.isNaN(measure.latitude) && !Double.isNaN(measure.longitude)) {
-            logLine(measure.toRow());
+        if (!Double.isNaN(measure.latitude) && !Double.isNaN(measure.longitude) && checkLogging(measure)) {
+            log.writeLocation(measure);
         }
     }
 
@@ -199,33 +293,70 @@ public class TrackLogger implements MySensorListener, Subscriber<MPressure> {
      */
     @Override
     public void onSensorChanged(@NonNull Measurement measure) {
-        logLine(measure.toRow());
+        if (checkLogging(measure) && policy.shouldLog(measure)) {
+            log.writeSensor(measure);
+        }
     }
 
     /**
-     * Write a measurement to the track file
-     *
-     * @param line the measurement to store
+     * Set max IMU logging rates in Hz, indexed by flight mode. Takes effect on the next track.
      */
-    private synchronized void logLine(@NonNull String line) {
-        if (logging) {
-            try {
-                log.write(line);
-                log.write('\n');
-            } catch (IOException e) {
-                Log.e(TAG, "Failed to write to track file " + trackFile, e);
-                Exceptions.report(e);
+    public void setImuRates(@NonNull double[] rates) {
+        imuRates = rates.clone();
+    }
+
+    /**
+     * Log to compact binary track files instead of gzipped CSV. Takes effect on the next track.
+     * Binary tracks are converted to CSV when uploaded or exported.
+     */
+    public void setBinaryFormat(boolean binaryFormat) {
+        this.binaryFormat = binaryFormat;
+    }
+
+    /**
+     * Write the last couple minutes before logging started at the top of each track. Takes effect on the next track.
+     * When disabled, recent samples are not kept at all.
+     */
+    public synchronized void setPreRollEnabled(boolean enabled) {
+        if (started && enabled != prerollEnabled) {
+            if (enabled) {
+                startPreRoll();
+            } else {
+                stopPreRoll();
             }
+        }
+        prerollEnabled = enabled;
+    }
+
+    /**
+     * Samples are queued to the track writer without locking, and never block the calling thread
+     */
+    private boolean checkLogging(@NonNull Measurement measure) {
+        if (logging) {
+            return true;
         } else {
             // TODO: Figure out why gps and sensors sometimes do this
-            Log.e(TAG, "Attempted to log after closing file: " + line);
+            Log.e(TAG, "Attempted to log after closing file: " + measure);
+            return false;
         }
     }
 
-    public void stop() {
+    /**
+     * Number of samples dropped from the current track because the writer fell behind
+     */
+    public long getDroppedSamples() {
+        final TrackWriter writer = log;
+        return writer != null ? writer.dropped() : 0;
+    }
+
+    public synchronized void stop() {
         if (logging) {
             Log.w(TAG, "TrackLogger.stop() called, but still logging");
         }
+        if (started && prerollEnabled) {
+            stopPreRoll();
+        }
+        started = false;
     }
 
 }
@@ -1,5 +1,6 @@
 package com.platypii.baseline.tracks;
 
+import com.platypii.baseline.Services;
 import com.platypii.baseline.places.Place;
 
 import android.content.Context;
@@ -63,7 +64,20 @@ public class TrackMetadata {
     public TrackData trackData(Context context) {
         final File trackFile = abbrvFile(context);
         if (trackFile.exists()) {
-            return new TrackData(track_id, trackFile);
+            return Services.tracks.dataCache.get(track_id, trackFile);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Open the local abbreviated track for random access by time
+     */
+    @Nullable
+    public TrackReader trackReader(@NonNull Context context) {
+        final File trackFile = abbrvFile(context);
+        if (trackFile.exists()) {
+            return TrackReader.open(track_id, trackFile);
         } else {
             return null;
         }
@@ -0,0 +1,160 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.jarvis.FlightMode;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.Range;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.Arrays;
+
+import static com.platypii.baseline.tracks.Trimmer.margin_size;
+
+/**
+ * Single pass track loader, fed one location at a time by TrackFileReader.
+ * Computes the trim window, flight modes, cumulative label counts, altitude range and bounds
+ * incrementally, so the track is only scanned once.
+ * Points before the jump are dropped as they fall out of the trim margin, so the plane
+ * ride is never retained.
+ *
+ * Produces the same result as Trimmer.autoTrim, TrackLabels, and TrackStats run in sequence.
+ * If no jump is found, autoTrim keeps the whole track, and the caller should fall back to that.
+ */
+class TrackPipeline implements TrackFileReader.Sink {
+
+    // Retained points, starting at absolute index offset
+    private final TrackColumns points = new TrackColumns();
+    private int offset = 0;
+    private int count = 0;
+
+    // Label stage: cumulative counts before each retained point
+    private int[] flightCum = new int[256];
+    private int[] freefallCum = new int[256];
+    private int flightTotal = 0;
+    private int freefallTotal = 0;
+
+    // Trim stage, absolute indices matching Trimmer.autoTrim
+    private int start = 0;
+    private int end = -1;
+
+    // Stats stage, accumulated over [start - margin, statsEnd)
+    private int statsEnd = -1;
+    private final Range altitude = new Range();
+    private final TrackStats.BoundsBuilder bounds = new TrackStats.BoundsBuilder();
+
+    @Override
+    public void add(long millis, double lat, double lon, double alt, double climb, double vN, double vE) {
+        final int i = count++;
+
+        // Trim stage
+        if (start == 0 && climb < -4) {
+            start = i;
+            if (start > 0) {
+                // Jump found, keep the margin before it and stop dropping points
+                final int windowStart = Math.max(start - margin_size, 0);
+                drop(windowStart - offset);
+                statsEnd = windowStart;
+            }
+        }
+        if (climb < -2.5 && start < i) {
+            end = i;
+        }
+
+        // Label stage
+        final int mode = FlightMode.getMode(Math.sqrt(vN * vN + vE * vE), climb);
+        final int k = points.size();
+        if (k == flightCum.length) {
+            flightCum = Arrays.copyOf(flightCum, k * 2);
+            freefallCum = Arrays.copyOf(freefallCum, k * 2);
+        }
+        flightCum[k] = flightTotal;
+        freefallCum[k] = freefallTotal;
+        flightTotal += TrackLabels.inFlight(mode);
+        freefallTotal += TrackLabels.inFreefall(mode);
+        points.add(millis, lat, lon, alt, climb, vN, vE);
+
+        if (start == 0) {
+            // No jump yet, only the last margin of points can end up in the window
+            if (points.size() >= 4 * margin_size) {
+                drop(points.size() - margin_size);
+            }
+        } else {
+            // Stats stage, for points that are now inside the trim window
+            final int windowEnd = windowEnd();
+            while (statsEnd < windowEnd) {
+                expand(statsEnd - offset);
+                statsEnd++;
+            }
+        }
+    }
+
+    private void drop(int n) {
+        if (n > 0) {
+            points.dropFirst(n);
+            final int remaining = points.size();
+            System.arraycopy(flightCum, n, flightCum, 0, remaining);
+            System.arraycopy(freefallCum, n, freefallCum, 0, remaining);
+            offset += n;
+        }
+    }
+
+    private void expand(int k) {
+        altitude.expand(points.alt(k));
+        bounds.include(points.lat(k), points.lon(k));
+    }
+
+    private int windowEnd() {
+        return end >= 0 ? Math.min(end + margin_size + 1, count) : count;
+    }
+
+    /**
+     * @return true if a jump was found and the pipeline result is valid
+     */
+    boolean isTrimmed() {
+        return start > 0;
+    }
+
+    /**
+     * Return the trimmed track data. Only valid if isTrimmed.
+     */
+    @NonNull
+    TrackData build(@NonNull String id) {
+        if (!isTrimmed()) {
+            // Points before the last margin were dropped, so autoTrim has to re-read the track
+            throw new IllegalStateException("No jump found, track must be re-read");
+        }
+        final int windowStart = Math.max(start - margin_size, 0);
+        // Window is empty if the last descent was before the jump
+        final int windowEnd = Math.max(windowEnd(), windowStart);
+        final TrackColumns columns = points.slice(windowStart - offset, windowEnd - offset);
+
+        final int n = columns.size();
+        MLocation exit = null;
+        MLocation deploy = null;
+        MLocation land = null;
+        TrackLabels labels = null;
+        if (n > 0) {
+            // Cumulative counts relative to window start
+            final int[] flight = new int[n + 1];
+            final int[] freefall = new int[n + 1];
+            final int base = windowStart - offset;
+            for (int i = 0; i <= n; i++) {
+                flight[i] = cumAt(flightCum, flightTotal, base + i) - flightCum[base];
+                freefall[i] = cumAt(freefallCum, freefallTotal, base + i) - freefallCum[base];
+            }
+            labels = TrackLabels.from(flight, freefall);
+            if (labels != null) {
+                exit = columns.get(labels.exit);
+                deploy = columns.get(labels.deploy);
+                land = columns.get(labels.land);
+            }
+        }
+        final TrackStats stats = new TrackStats(labels, exit, deploy, land, altitude.min, altitude.max, n > 0 ? bounds.build() : null);
+        return new TrackData(id, columns, stats);
+    }
+
+    private int cumAt(@NonNull int[] cum, int total, int k) {
+        return k < points.size() ? cum[k] : total;
+    }
+
+}
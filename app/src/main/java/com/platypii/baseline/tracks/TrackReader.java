@@ -0,0 +1,165 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static com.platypii.baseline.tracks.TrackSidecar.HEADER_SIZE;
+import static com.platypii.baseline.tracks.TrackSidecar.INDEX_STRIDE;
+
+/**
+ * Random access to a track through its memory-mapped sidecar.
+ * Stats come from the header, and range() uses the sparse time index to read only
+ * the points in the requested window.
+ */
+public class TrackReader {
+
+    @NonNull
+    private final String id;
+    @NonNull
+    private final ByteBuffer buf;
+    private final int n;
+    private final int indexBase;
+    private final int columnBase;
+
+    @NonNull
+    public final TrackStats stats;
+
+    TrackReader(@NonNull String id, @NonNull ByteBuffer buf, int n) {
+        this.id = id;
+        this.buf = buf;
+        this.n = n;
+        indexBase = HEADER_SIZE;
+        columnBase = indexBase + 8 * TrackSidecar.indexSize(n);
+        stats = readStats();
+    }
+
+    /**
+     * Open a track for random access, building its sidecar first if needed
+     *
+     * @return null if the track could not be loaded
+     */
+    @Nullable
+    public static TrackReader open(@NonNull String id, @NonNull File trackFile) {
+        TrackReader reader = TrackSidecar.open(id, trackFile);
+        if (reader == null) {
+            TrackSidecar.build(trackFile);
+            reader = TrackSidecar.open(id, trackFile);
+        }
+        return reader;
+    }
+
+    @NonNull
+    private TrackStats readStats() {
+        // Header fields after magic, version, source length, source modified, n
+        int pos = 4 + 4 + 8 + 8 + 4;
+        final int exit = buf.getInt(pos);
+        final int deploy = buf.getInt(pos + 4);
+        final int land = buf.getInt(pos + 8);
+        pos += 12;
+        final double altMin = buf.getDouble(pos);
+        final double altMax = buf.getDouble(pos + 8);
+        pos += 16;
+        final boolean hasBounds = buf.get(pos) != 0;
+        pos += 1;
+        LatLngBounds bounds = null;
+        if (hasBounds) {
+            final LatLng sw = new LatLng(buf.getDouble(pos), buf.getDouble(pos + 8));
+            final LatLng ne = new LatLng(buf.getDouble(pos + 16), buf.getDouble(pos + 24));
+            bounds = new LatLngBounds(sw, ne);
+        }
+        final boolean hasLabels = 0 <= exit && exit < n && 0 <= deploy && deploy < n && 0 <= land && land < n;
+        if (hasLabels) {
+            return new TrackStats(new TrackLabels(exit, deploy, land), get(exit), get(deploy), get(land), altMin, altMax, bounds);
+        } else {
+            return new TrackStats(null, null, null, null, altMin, altMax, bounds);
+        }
+    }
+
+    /**
+     * Number of points in the (trimmed) track
+     */
+    public int size() {
+        return n;
+    }
+
+    @NonNull
+    TrackData readAll() {
+        return new TrackData(id, columns(0, n), stats);
+    }
+
+    /**
+     * Read the points between startMillis and endMillis, using the same window as TrackData.trim.
+     * Only the points in the window are read from storage.
+     */
+    @NonNull
+    public TrackData range(long startMillis, long endMillis) {
+        final int startIndex = Math.max(lowerBound(startMillis) - 1, 0);
+        final int after = endMillis == Long.MAX_VALUE ? n : lowerBound(endMillis + 1);
+        final int endIndex = Math.max(after - 1, 0);
+        return new TrackData(id, columns(startIndex, Math.max(startIndex, endIndex)), stats);
+    }
+
+    /**
+     * Return the index of the first point at or after millis, or n if there are none
+     */
+    int lowerBound(long millis) {
+        // Find the index block using the sparse index
+        int lo = 0;
+        int hi = TrackSidecar.indexSize(n);
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (buf.getLong(indexBase + 8 * mid) < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        // Search within the block before the first index entry at or after millis
+        int first = Math.max(lo - 1, 0) * INDEX_STRIDE;
+        final int last = Math.min(lo * INDEX_STRIDE, n);
+        while (first < last && millis(first) < millis) {
+            first++;
+        }
+        return first;
+    }
+
+    private long millis(int i) {
+        return buf.getLong(columnBase + 8 * i);
+    }
+
+    private double column(int column, int i) {
+        // Column 0 is millis, then doubles
+        return buf.getDouble(columnBase + 8 * (column * n + i));
+    }
+
+    @NonNull
+    private MLocation get(int i) {
+        return new MLocation(millis(i), column(1, i), column(2, i), column(3, i), column(4, i), column(5, i), column(6, i),
+                Float.NaN, Float.NaN, Float.NaN, Float.NaN, 0, 0);
+    }
+
+    /**
+     * Bulk copy points in [start, end) out of the mapped columns
+     */
+    @NonNull
+    private TrackColumns columns(int start, int end) {
+        final int count = end - start;
+        final long[] millis = new long[count];
+        final double[][] doubles = new double[6][count];
+        final ByteBuffer view = buf.duplicate();
+        view.position(columnBase + 8 * start);
+        view.asLongBuffer().get(millis);
+        for (int c = 0; c < 6; c++) {
+            view.position(columnBase + 8 * ((c + 1) * n + start));
+            view.asDoubleBuffer().get(doubles[c]);
+        }
+        return new TrackColumns(millis, doubles[0], doubles[1], doubles[2], doubles[3], doubles[4], doubles[5]);
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.platypii.baseline.tracks;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.gms.maps.model.LatLngBounds;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binary sidecar file holding the trimmed track columns and precomputed stats.
+ * Re-opening a track with a fresh sidecar skips gunzip, CSV parsing, and the kalman filters.
+ * The sidecar records the size and modified time of its source file, and is ignored if stale.
+ *
+ * Layout: header, sparse time index, then each column stored contiguously
+ * (millis, lat, lon, alt, climb, vN, vE). TrackReader uses the index to read a time range
+ * without touching the rest of the track.
+ */
+class TrackSidecar {
+    private static final String TAG = "TrackSidecar";
+
+    private static final int MAGIC = 0x424c5443; // "BLTC"
+    private static final int VERSION = 2;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 * 3 + 8 * 2 + 1 + 8 * 4;
+
+    // Sparse time index has the millis of every INDEX_STRIDE-th point
+    static final int INDEX_STRIDE = 256;
+
+    /**
+     * Returns the sidecar file for a given track file
+     */
+    @NonNull
+    static File sidecarFile(@NonNull File trackFile) {
+        return new File(trackFile.getPath() + ".bin");
+    }
+
+    /**
+     * Load track data from the sidecar, if it exists and is up to date
+     *
+     * @return null if the sidecar is missing, stale, or corrupt
+     */
+    @Nullable
+    static TrackData read(@NonNull String id, @NonNull File trackFile) {
+        final TrackReader reader = open(id, trackFile);
+        if (reader != null) {
+            return reader.readAll();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Map the sidecar for random access, if it exists and is up to date
+     *
+     * @return null if the sidecar is missing, stale, or corrupt
+     */
+    @Nullable
+    static TrackReader open(@NonNull String id, @NonNull File trackFile) {
+        final File sidecar = sidecarFile(trackFile);
+        if (!sidecar.exists()) {
+            return null;
+        }
+        try (FileInputStream fis = new FileInputStream(sidecar);
+             FileChannel channel = fis.getChannel()) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE) {
+                Log.w(TAG, "Truncated sidecar " + sidecar);
+                return null;
+            }
+            final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                Log.w(TAG, "Unknown sidecar format " + sidecar);
+                return null;
+            }
+            if (buf.getLong() != trackFile.length() || buf.getLong() != trackFile.lastModified()) {
+                Log.i(TAG, "Stale sidecar " + sidecar);
+                return null;
+            }
+            final int n = buf.getInt();
+            if (n < 0 || size != HEADER_SIZE + 8L * indexSize(n) + 56L * n) {
+                Log.w(TAG, "Corrupt sidecar " + sidecar);
+                return null;
+            }
+            return new TrackReader(id, buf, n);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to read sidecar " + sidecar, e);
+            return null;
+        }
+    }
+
+    /**
+     * Number of entries in the sparse time index
+     */
+    static int indexSize(int n) {
+        return (n + INDEX_STRIDE - 1) / INDEX_STRIDE;
+    }
+
+    /**
+     * Write track data to the sidecar for a track file
+     */
+    static void write(@NonNull File trackFile, @NonNull TrackData trackData) {
+        final File sidecar = sidecarFile(trackFile);
+        final File tmp = new File(sidecar.getPath() + ".tmp");
+        final long sourceLength = trackFile.length();
+        final long sourceModified = trackFile.lastModified();
+        final TrackColumns columns = trackData.columns;
+        final TrackStats stats = trackData.stats;
+        final int n = columns.size();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceLength);
+            out.writeLong(sourceModified);
+            out.writeInt(n);
+            // Labels as point indices
+            final TrackLabels labels = stats.labels;
+            out.writeInt(labels != null ? labels.exit : -1);
+            out.writeInt(labels != null ? labels.deploy : -1);
+            out.writeInt(labels != null ? labels.land : -1);
+            out.writeDouble(stats.altitude.min);
+            out.writeDouble(stats.altitude.max);
+            final LatLngBounds bounds = stats.bounds;
+            out.writeBoolean(bounds != null);
+            out.writeDouble(bounds != null ? bounds.southwest.latitude : Double.NaN);
+            out.writeDouble(bounds != null ? bounds.southwest.longitude : Double.NaN);
+            out.writeDouble(bounds != null ? bounds.northeast.latitude : Double.NaN);
+            out.writeDouble(bounds != null ? bounds.northeast.longitude : Double.NaN);
+            for (int i = 0; i < n; i += INDEX_STRIDE) out.writeLong(columns.millis(i));
+            for (int i = 0; i < n; i++) out.writeLong(columns.millis(i));
+            for (int i = 0; i < n; i++) out.writeDouble(columns.lat(i));
+            for (int i = 0; i < n; i++) out.writeDouble(columns.lon(i));
+            for (int i = 0; i < n; i++) out.writeDouble(columns.alt(i));
+            for (int i = 0; i < n; i++) out.writeDouble(columns.climb(i));
+            for (int i = 0; i < n; i++) out.writeDouble(columns.vN(i));
+            for (int i = 0; i < n; i++) out.writeDouble(columns.vE(i));
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write sidecar " + sidecar, e);
+            if (!tmp.delete()) {
+                Log.w(TAG, "Failed to delete partial sidecar " + tmp);
+            }
+            return;
+        }
+        if (!tmp.renameTo(sidecar)) {
+            Log.e(TAG, "Failed to move sidecar " + tmp + " to " + sidecar);
+        }
+    }
+
+    /**
+     * Make sure the sidecar for a track file is up to date.
+     * Call from a background thread after a track file is finished.
+     */
+    static void build(@NonNull File trackFile) {
+        if (trackFile.exists()) {
+            // Loading track data writes the sidecar if missing or stale
+            new TrackData(trackFile.getName(), trackFile);
+        }
+    }
+
+    /**
+     * Move sidecar along with its track file.
+     * Renaming preserves size and modified time, so the sidecar stays fresh.
+     */
+    static void move(@NonNull File from, @NonNull File to) {
+        final File sidecar = sidecarFile(from);
+        if (sidecar.exists() && !sidecar.renameTo(sidecarFile(to))) {
+            Log.w(TAG, "Failed to move sidecar " + sidecar);
+            delete(from);
+        }
+    }
+
+    static void delete(@NonNull File trackFile) {
+        final File sidecar = sidecarFile(trackFile);
+        if (sidecar.exists() && !sidecar.delete()) {
+            Log.w(TAG, "Failed to delete sidecar " + sidecar);
+        }
+    }
+
+}
@@ -5,8 +5,8 @@ import com.platypii.baseline.util.Range;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
-import java.util.List;
 
 /**
  * Compute track stats
@@ -24,26 +24,87 @@ public class TrackStats {
     @Nullable
     public final LatLngBounds bounds;
 
-    TrackStats(@NonNull List<MLocation> trackData) {
-        if (!trackData.isEmpty()) {
+    // Indices of exit, deploy, and land in the points these stats were computed from
+    @Nullable
+    final TrackLabels labels;
+
+    /**
+     * Restore precomputed stats, such as from a TrackSidecar
+     */
+    TrackStats(@Nullable TrackLabels labels, @Nullable MLocation exit, @Nullable MLocation deploy, @Nullable MLocation land, double altMin, double altMax, @Nullable LatLngBounds bounds) {
+        this.labels = labels;
+        this.exit = exit;
+        this.deploy = deploy;
+        this.land = land;
+        altitude.min = altMin;
+        altitude.max = altMax;
+        this.bounds = bounds;
+    }
+
+    TrackStats(@NonNull TrackColumns trackData) {
+        final int n = trackData.size();
+        if (n > 0) {
             // Detect exit, deploy, land
-            final TrackLabels labels = TrackLabels.from(trackData);
+            labels = TrackLabels.from(trackData);
             if (labels != null) {
                 exit = trackData.get(labels.exit);
                 deploy = trackData.get(labels.deploy);
                 land = trackData.get(labels.land);
             }
-            final LatLngBounds.Builder boundsBuilder = LatLngBounds.builder();
-            for (MLocation loc : trackData) {
-                altitude.expand(loc.altitude_gps);
-                boundsBuilder.include(loc.latLng());
+            final BoundsBuilder builder = new BoundsBuilder();
+            for (int i = 0; i < n; i++) {
+                altitude.expand(trackData.alt(i));
+                builder.include(trackData.lat(i), trackData.lon(i));
             }
-            bounds = boundsBuilder.build();
+            bounds = builder.build();
         } else {
+            labels = null;
             bounds = null;
         }
     }
 
+    /**
+     * Accumulates bounds without a LatLng per point.
+     * Longitude extremes are kept both in -180..180 and in 0..360, and the narrower span wins,
+     * like LatLngBounds.Builder, so that a track crossing the antimeridian doesn't span the globe.
+     */
+    static class BoundsBuilder {
+        private double latMin = Double.POSITIVE_INFINITY;
+        private double latMax = Double.NEGATIVE_INFINITY;
+        private double lonMin = Double.POSITIVE_INFINITY;
+        private double lonMax = Double.NEGATIVE_INFINITY;
+        // Longitude shifted into 0..360
+        private double eastMin = Double.POSITIVE_INFINITY;
+        private double eastMax = Double.NEGATIVE_INFINITY;
+
+        void include(double lat, double lon) {
+            if (lat < latMin) latMin = lat;
+            if (lat > latMax) latMax = lat;
+            if (lon < lonMin) lonMin = lon;
+            if (lon > lonMax) lonMax = lon;
+            final double east = lon < 0 ? lon + 360 : lon;
+            if (east < eastMin) eastMin = east;
+            if (east > eastMax) eastMax = east;
+        }
+
+        /**
+         * Call after at least one point is included
+         */
+        @NonNull
+        LatLngBounds build() {
+            if (eastMax - eastMin < lonMax - lonMin) {
+                // Crosses the antimeridian, so southwest longitude is greater than northeast
+                return new LatLngBounds(new LatLng(latMin, wrap(eastMin)), new LatLng(latMax, wrap(eastMax)));
+            } else {
+                return new LatLngBounds(new LatLng(latMin, lonMin), new LatLng(latMax, lonMax));
+            }
+        }
+
+        private static double wrap(double lon) {
+            return lon > 180 ? lon - 360 : lon;
+        }
+    }
+
     public boolean isDefined() {
         return exit != null && deploy != null && land != null;
     }
@@ -0,0 +1,341 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MAccel;
+import com.platypii.baseline.measurements.MGravity;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.measurements.MRotation;
+import com.platypii.baseline.measurements.MSensor;
+import com.platypii.baseline.measurements.Measurement;
+import com.platypii.baseline.util.Exceptions;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes track rows from a dedicated thread, so that sensor callbacks never wait on deflate.
+ * Producers copy samples into a lock-free ring buffer of primitive records.
+ * The writer thread drains the ring in batches, and encodes rows as CSV or binary.
+ * If the writer falls behind and the ring is full, samples are dropped and counted.
+ * Closing waits for producers that are already copying a sample, so accepted samples are never lost.
+ */
+class TrackWriter {
+    private static final String TAG = "TrackWriter";
+
+    static final int DEFAULT_CAPACITY = 4096;
+
+    // How long the writer sleeps when the ring is empty
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    // Record kinds
+    static final int GPS = 0;
+    static final int ALT = 1;
+    static final int ALT_DISABLED = 2;
+    static final int GRV = 3;
+    static final int ROT = 4;
+    static final int ACC = 5;
+    static final int KINDS = 6;
+
+    // Doubles per record
+    static final int WIDTH = 5;
+
+    // Ring buffer, one sequence number per slot (bounded multi-producer queue)
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequence;
+    private final AtomicLong tail = new AtomicLong();
+    private long head = 0; // writer thread only
+    private final int[] kinds;
+    private final long[] millis;
+    private final long[] nanos;
+    private final int[] ints;
+    private final double[] values;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Producers between the closed check and publishing their slot
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Timestamp of the first live record of each kind, to drop pre-roll records that were also logged live
+    private final AtomicLongArray firstLive = new AtomicLongArray(KINDS);
+    // Timestamp of the last pre-roll record written of each kind (writer thread only)
+    private final long[] lastPreroll = new long[KINDS];
+
+    @NonNull
+    private final Encoder encoder;
+    private final boolean awaitPreroll;
+    @Nullable
+    private volatile PreRollBuffer.Snapshot preroll;
+    @NonNull
+    private final Thread thread;
+    private volatile boolean closed = false;
+    private IOException error;
+
+    /**
+     * Writes records to the track file, called only from the writer thread
+     */
+    interface Encoder {
+        /**
+         * @param kind record kind
+         * @param values record doubles, starting at offset
+         * @param n integer field, satellites used for gps
+         */
+        void write(int kind, long millis, long nano, @NonNull double[] values, int offset, int n) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    /**
+     * Write CSV rows, starting with the header lines
+     */
+    TrackWriter(@NonNull OutputStream os, @NonNull String header, int capacity) throws IOException {
+        this(new TrackCsvEncoder(os, header), capacity);
+    }
+
+    /**
+     * Start the writer thread
+     *
+     * @param capacity ring size, rounded up to a power of two
+     */
+    TrackWriter(@NonNull Encoder encoder, int capacity) {
+        this(encoder, capacity, false);
+    }
+
+    /**
+     * Start the writer thread
+     *
+     * @param capacity ring size, rounded up to a power of two
+     * @param awaitPreroll hold live samples until writePreRoll is called, so the pre-roll comes first
+     */
+    TrackWriter(@NonNull Encoder encoder, int capacity, boolean awaitPreroll) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = this.capacity - 1;
+        sequence = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequence.set(i, i);
+        }
+        kinds = new int[this.capacity];
+        millis = new long[this.capacity];
+        nanos = new long[this.capacity];
+        ints = new int[this.capacity];
+        values = new double[this.capacity * WIDTH];
+        for (int kind = 0; kind < KINDS; kind++) {
+            firstLive.set(kind, Long.MAX_VALUE);
+            lastPreroll[kind] = Long.MIN_VALUE;
+        }
+
+        this.encoder = encoder;
+        this.awaitPreroll = awaitPreroll;
+        thread = new Thread(this::run, TAG);
+        thread.start();
+    }
+
+    /**
+     * Write buffered records from before logging started, ahead of any live samples.
+     * Take the snapshot after live samples start arriving, so that nothing falls in between.
+     * Pre-roll records not older than the first live record of the same kind are dropped.
+     */
+    void writePreRoll(@NonNull PreRollBuffer.Snapshot snapshot) {
+        preroll = snapshot;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Records are ordered by gps time for locations, and sensor time for everything else
+     */
+    static long timestamp(int kind, long millis, long nano) {
+        return kind == GPS ? millis : nano;
+    }
+
+    /**
+     * @return false if the sample was dropped
+     */
+    boolean writeLocation(@NonNull MLocation loc) {
+        return offer(GPS, loc.millis, 0, loc.latitude, loc.longitude, loc.altitude_gps, loc.vN, loc.vE, loc.satellitesUsed);
+    }
+
+    /**
+     * @param enabled false to log as "alt-" sensor, when barometric altimeter is disabled
+     * @return false if the sample was dropped
+     */
+    boolean writePressure(@NonNull MPressure alt, boolean enabled) {
+        return offer(enabled ? ALT : ALT_DISABLED, alt.millis, alt.nano, alt.pressure, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * @return false if the sample was dropped
+     */
+    boolean writeSensor(@NonNull Measurement measure) {
+        if (measure instanceof MGravity) {
+            final MSensor sensor = (MSensor) measure;
+            return offer(GRV, 0, measure.nano, sensor.x(), sensor.y(), sensor.z(), 0, 0, 0);
+        } else if (measure instanceof MRotation) {
+            final MSensor sensor = (MSensor) measure;
+            return offer(ROT, 0, measure.nano, sensor.x(), sensor.y(), sensor.z(), 0, 0, 0);
+        } else if (measure instanceof MAccel) {
+            return offer(ACC, 0, measure.nano, ((MAccel) measure).x(), 0, 0, 0, 0, 0);
+        } else {
+            Log.w(TAG, "Unknown sensor measurement " + measure);
+            return false;
+        }
+    }
+
+    /**
+     * Claim a slot and copy a record into it, without locking
+     *
+     * @return false if the ring is full or closed, and the sample was dropped
+     */
+    private boolean offer(int kind, long ms, long nano, double a, double b, double c, double d, double e, int n) {
+        // Announce before checking closed, so close() either turns us away or waits for us
+        inFlight.incrementAndGet();
+        try {
+            if (closed) return false;
+            long pos = tail.get();
+            int slot;
+            while (true) {
+                slot = (int) pos & mask;
+                final long diff = sequence.get(slot) - pos;
+                if (diff == 0) {
+                    if (tail.compareAndSet(pos, pos + 1)) break;
+                    pos = tail.get();
+                } else if (diff < 0) {
+                    // Slot still holds an unwritten record from one lap ago
+                    dropped.incrementAndGet();
+                    return false;
+                } else {
+                    // Another producer claimed this slot
+                    pos = tail.get();
+                }
+            }
+            if (firstLive.get(kind) == Long.MAX_VALUE) {
+                firstLive.compareAndSet(kind, Long.MAX_VALUE, timestamp(kind, ms, nano));
+            }
+            kinds[slot] = kind;
+            millis[slot] = ms;
+            nanos[slot] = nano;
+            ints[slot] = n;
+            final int i = slot * WIDTH;
+            values[i] = a;
+            values[i + 1] = b;
+            values[i + 2] = c;
+            values[i + 3] = d;
+            values[i + 4] = e;
+            // Publish to the writer
+            sequence.lazySet(slot, pos + 1);
+            return true;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void run() {
+        if (awaitPreroll) {
+            while (preroll == null && !closed) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+        }
+        final PreRollBuffer.Snapshot snapshot = preroll;
+        if (snapshot != null) {
+            try {
+                final long[] before = new long[KINDS];
+                for (int kind = 0; kind < KINDS; kind++) {
+                    before[kind] = firstLive.get(kind);
+                }
+                final int count = snapshot.writeTo(encoder, before, lastPreroll);
+                written.addAndGet(count);
+                Log.i(TAG, "Wrote " + count + " pre-roll samples");
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write pre-roll to track file", e);
+                Exceptions.report(e);
+                error = e;
+            }
+            // Release the snapshot memory
+            preroll = null;
+        }
+        while (!closed) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+        }
+        // Wait for producers that got past the closed check, then write whatever is left
+        while (inFlight.get() > 0) {
+            Thread.yield();
+        }
+        drain();
+    }
+
+    /**
+     * Encode and write every published record
+     *
+     * @return number of records written
+     */
+    private int drain() {
+        int count = 0;
+        int skipped = 0;
+        while (true) {
+            final int slot = (int) head & mask;
+            if (sequence.get(slot) != head + 1) break;
+            final int kind = kinds[slot];
+            if (timestamp(kind, millis[slot], nanos[slot]) <= lastPreroll[kind]) {
+                // Also in the pre-roll, because it was queued after the pre-roll was written
+                skipped++;
+            } else if (error == null) {
+                try {
+                    encoder.write(kind, millis[slot], nanos[slot], values, slot * WIDTH, ints[slot]);
+                } catch (IOException e) {
+                    Log.e(TAG, "Failed to write to track file", e);
+                    Exceptions.report(e);
+                    error = e;
+                }
+            }
+            // Release the slot for the next lap
+            sequence.lazySet(slot, head + capacity);
+            head++;
+            count++;
+        }
+        written.addAndGet(count - skipped);
+        return count;
+    }
+
+    /**
+     * Number of samples written to the track file so far
+     */
+    long written() {
+        return written.get();
+    }
+
+    /**
+     * Number of samples dropped because the writer fell behind
+     */
+    long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stop accepting samples, write everything already queued, and close the file
+     */
+    void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Interrupted waiting for track writer", e);
+            Thread.currentThread().interrupt();
+        }
+        encoder.close();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import com.platypii.baseline.events.SyncEvent;
 import com.platypii.baseline.tracks.cloud.DeleteTask;
 import com.platypii.baseline.tracks.cloud.TrackApi;
 import com.platypii.baseline.util.Exceptions;
+import com.platypii.baseline.util.PubSub.Subscriber;
 
 import android.content.Context;
 import android.util.Log;
@@ -14,6 +15,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
 import retrofit2.Call;
@@ -27,11 +30,11 @@ public class Tracks {
     public final LocalTracks local = new LocalTracks();
     public final CloudTracks cloud = new CloudTracks();
     public final TrackCache cache = new TrackCache();
+    public final TrackDataCache dataCache = new TrackDataCache();
     final SyncManager sync = new SyncManager();
 
-    // Starred track cache
-    @Nullable
-    private List<TrackData> starred;
+    // Starred track cache, exit to deploy only
+    private final Map<String, TrackData> starred = new ConcurrentHashMap<>();
 
     @Nullable
     private Context context;
@@ -88,25 +91,59 @@ public class Tracks {
         }
     }
 
-    public List<TrackData> getStarredTracks(Context context) {
-        // Check cache
-        if (starred != null) {
-            return starred;
-        }
-        starred = new ArrayList<>();
-        final List<TrackMetadata> tracks = Services.tracks.cache.list();
+    /**
+     * Load starred tracks in the background, delivering each one on the main thread as it loads
+     *
+     * @return loader which should be cancelled when the results are no longer needed
+     */
+    @NonNull
+    public StarredTracksLoader loadStarredTracks(@NonNull Context context, @NonNull Subscriber<TrackData> listener) {
+        final StarredTracksLoader loader = new StarredTracksLoader(this, context, listener);
+        loader.start();
+        return loader;
+    }
+
+    @NonNull
+    List<TrackMetadata> listStarred() {
+        final List<TrackMetadata> starredTracks = new ArrayList<>();
+        final List<TrackMetadata> tracks = cache.list();
         if (tracks != null) {
             for (TrackMetadata track : tracks) {
                 if (track.starred) {
-                    final TrackData trackData = track.trackData(context);
-                    if (trackData != null && trackData.stats.exit != null && trackData.stats.deploy != null) {
-                        final TrackData trimmed = trackData.trim(trackData.stats.exit.millis, trackData.stats.deploy.millis);
-                        starred.add(trimmed);
-                    }
+                    starredTracks.add(track);
                 }
             }
         }
-        return starred;
+        return starredTracks;
+    }
+
+    /**
+     * Load exit to deploy of a starred track. Blocks, so call from a background thread.
+     */
+    @Nullable
+    TrackData getStarredTrack(@NonNull Context context, @NonNull TrackMetadata track) {
+        final TrackData cached = starred.get(track.track_id);
+        if (cached != null) {
+            return cached;
+        }
+        // Only read exit to deploy, using the time index
+        final TrackReader reader = track.trackReader(context);
+        if (reader != null) {
+            if (reader.stats.exit != null && reader.stats.deploy != null) {
+                final TrackData trimmed = reader.range(reader.stats.exit.millis, reader.stats.deploy.millis);
+                starred.put(track.track_id, trimmed);
+                return trimmed;
+            }
+            return null;
+        }
+        // No sidecar, for example if it couldn't be written. Load the whole track instead.
+        final TrackData trackData = track.trackData(context);
+        if (trackData != null && trackData.stats.exit != null && trackData.stats.deploy != null) {
+            final TrackData trimmed = trackData.trim(trackData.stats.exit.millis, trackData.stats.deploy.millis);
+            starred.put(track.track_id, trimmed);
+            return trimmed;
+        }
+        return null;
     }
 
     public void deleteTrack(@NonNull Context context, @NonNull TrackMetadata track) {
@@ -127,7 +164,8 @@ public class Tracks {
     @Subscribe
     public void onSignOut(@NonNull AuthState.SignedOut event) {
         cache.clear();
-        starred = null;
+        dataCache.clear();
+        starred.clear();
     }
 
     public void stop() {
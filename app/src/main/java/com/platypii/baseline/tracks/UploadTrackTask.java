@@ -8,8 +8,10 @@ import com.platypii.baseline.cloud.BaselineCloud;
 import com.platypii.baseline.cloud.tasks.Task;
 import com.platypii.baseline.cloud.tasks.TaskType;
 import com.platypii.baseline.events.SyncEvent;
+import com.platypii.baseline.util.BlockGzipOutputStream;
 import com.platypii.baseline.util.IOUtil;
 import com.platypii.baseline.util.MD5;
+import com.platypii.baseline.util.ProgressReporter;
 
 import android.content.Context;
 import android.util.Log;
@@ -18,12 +20,16 @@ import androidx.annotation.Nullable;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import org.greenrobot.eventbus.EventBus;
 
 public class UploadTrackTask extends Task {
@@ -59,18 +65,31 @@ public class UploadTrackTask extends Task {
         }
         Log.i(TAG, "Uploading track " + trackFile);
         Services.tracks.local.setUploading(trackFile);
+        TrackFile uploadFile = trackFile;
         try {
+            // Server only accepts CSV, so convert binary tracks first
+            if (TrackBinary.isBinary(trackFile.file)) {
+                uploadFile = exportCsv(trackFile);
+            }
             // Get auth token
             final String authToken = AuthState.getToken();
             if (authToken == null) {
                 throw new AuthException("Failed to get auth token");
             }
             // Make HTTP request
-            final TrackMetadata track = postTrack(trackFile, authToken);
+            final TrackMetadata track = postTrack(trackFile, uploadFile, authToken);
             // Remove from track store
             Services.tracks.local.setUploadSuccess(trackFile, track);
             // Move track to synced directory
-            trackFile.archive(track.localFile(context));
+            uploadFile.archive(track.localFile(context));
+            if (uploadFile != trackFile) {
+                // Synced copy is the CSV, binary original is no longer needed
+                TrackSidecar.delete(trackFile.file);
+                TrackDigest.delete(trackFile.file);
+                if (!trackFile.file.delete()) {
+                    Log.e(TAG, "Failed to delete binary track " + trackFile);
+                }
+            }
             // Add to cloud cache
             Services.tracks.cache.add(track);
             // Update track listing
@@ -78,6 +97,12 @@ public class UploadTrackTask extends Task {
             Log.i(TAG, "Upload successful, track " + track.track_id);
             EventBus.getDefault().post(new SyncEvent.UploadSuccess(trackFile, track));
         } catch (Throwable e) {
+            if (uploadFile != trackFile) {
+                TrackDigest.delete(uploadFile.file);
+                if (!uploadFile.file.delete()) {
+                    Log.w(TAG, "Failed to delete exported track " + uploadFile);
+                }
+            }
             // Update track store
             Services.tracks.local.setNotUploaded(trackFile);
             // Notify listeners
@@ -87,13 +112,31 @@ public class UploadTrackTask extends Task {
         }
     }
 
+    /**
+     * Export a binary track to a temporary gzipped CSV next to it, named so that it is not listed as a track
+     */
+    @NonNull
+    private static TrackFile exportCsv(@NonNull TrackFile trackFile) throws IOException {
+        final File csvFile = new File(trackFile.file.getPath() + ".csv.gz.tmp");
+        final MessageDigest digest = MD5.digest();
+        try (OutputStream os = new BlockGzipOutputStream(new DigestOutputStream(new FileOutputStream(csvFile), digest))) {
+            TrackBinary.exportCsv(trackFile.file, os);
+        }
+        TrackDigest.write(csvFile, MD5.hex(digest));
+        return new TrackFile(csvFile);
+    }
+
     /**
      * HTTP post track to baseline, parse response as TrackMetadata
+     *
+     * @param trackFile the local track, for progress updates
+     * @param uploadFile the gzipped CSV to upload
      */
     @NonNull
-    private static TrackMetadata postTrack(@NonNull TrackFile trackFile, @NonNull String auth) throws AuthException, IOException, JsonSyntaxException {
-        final long contentLength = trackFile.file.length();
-        final String md5 = MD5.md5(trackFile.file);
+    private static TrackMetadata postTrack(@NonNull TrackFile trackFile, @NonNull TrackFile uploadFile, @NonNull String auth) throws AuthException, IOException, JsonSyntaxException {
+        final long contentLength = uploadFile.file.length();
+        // Usually computed while the file was written
+        final String md5 = TrackDigest.md5(uploadFile.file);
         final URL url = new URL(postUrl);
         final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
         conn.setRequestProperty("Content-Type", "application/gzip");
@@ -110,7 +153,7 @@ public class UploadTrackTask extends Task {
                 conn.setFixedLengthStreamingMode((int) contentLength);
             }
             final OutputStream os = new BufferedOutputStream(conn.getOutputStream());
-            copy(trackFile, os);
+            copy(trackFile, uploadFile, os);
             os.close();
             // Read response
             final int status = conn.getResponseCode();
@@ -135,21 +178,23 @@ public class UploadTrackTask extends Task {
     /**
      * Copy bytes from track file to output stream, and update upload progress
      */
-    private static void copy(@NonNull TrackFile trackFile, @NonNull OutputStream output) throws IOException {
-        final InputStream is = new FileInputStream(trackFile.file);
-        final byte[] buffer = new byte[1024];
+    private static void copy(@NonNull TrackFile trackFile, @NonNull TrackFile uploadFile, @NonNull OutputStream output) throws IOException {
+        final InputStream is = new FileInputStream(uploadFile.file);
+        // Update progress state a few times per second, not once per buffer
+        final ProgressReporter progress = new ProgressReporter(uploadFile.file.length(), (bytes, total, bytesPerSecond) -> {
+            Services.tracks.local.setUploadProgress(trackFile, (int) bytes);
+            EventBus.getDefault().post(new SyncEvent.UploadProgress(trackFile, (int) bytes, bytesPerSecond));
+        });
+        final byte[] buffer = new byte[IOUtil.BUFFER_SIZE];
         int bytesRead;
-        int bytesCopied = 0;
         while ((bytesRead = is.read(buffer)) != -1) {
             output.write(buffer, 0, bytesRead);
-            bytesCopied += bytesRead;
-
-            // Update upload progress state
-            Services.tracks.local.setUploadProgress(trackFile, bytesCopied);
-            EventBus.getDefault().post(new SyncEvent.UploadProgress(trackFile, bytesCopied));
+            progress.add(bytesRead);
         }
+        progress.finish();
         is.close();
         output.flush();
+        Log.i(TAG, "Uploaded " + progress.bytes() + " bytes at " + (int) (progress.bytesPerSecond() / 1024) + " KiB/s");
     }
 
     @NonNull
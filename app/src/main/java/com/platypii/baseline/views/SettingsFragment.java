@@ -5,6 +5,7 @@ import com.platypii.baseline.R;
 import com.platypii.baseline.Services;
 import com.platypii.baseline.cloud.AuthState;
 import com.platypii.baseline.jarvis.AutoStop;
+import com.platypii.baseline.tracks.LoggingPolicy;
 import com.platypii.baseline.util.Analytics;
 import com.platypii.baseline.util.Convert;
 import com.platypii.baseline.views.bluetooth.BluetoothActivity;
@@ -44,6 +45,9 @@ public class SettingsFragment extends PreferenceFragment implements Preference.O
 
         barometerPreference = (SwitchPreference) findPreference("barometer_enabled");
         barometerPreference.setOnPreferenceChangeListener(this);
+        findPreference("preroll_enabled").setOnPreferenceChangeListener(this);
+        findPreference("binary_tracks_enabled").setOnPreferenceChangeListener(this);
+        findPreference("imu_decimation_enabled").setOnPreferenceChangeListener(this);
 
         findPreference("audible_settings").setOnPreferenceClickListener(this);
         bluetoothPreference = findPreference("bluetooth_settings");
@@ -76,6 +80,18 @@ public class SettingsFragment extends PreferenceFragment implements Preference.O
                 Log.i(TAG, "Setting auto-stop mode: " + value);
                 AutoStop.preferenceEnabled = (Boolean) value;
                 break;
+            case "preroll_enabled":
+                Log.i(TAG, "Setting pre-roll enabled: " + value);
+                Services.tracks.logger.setPreRollEnabled((Boolean) value);
+                break;
+            case "binary_tracks_enabled":
+                Log.i(TAG, "Setting binary tracks: " + value);
+                Services.tracks.logger.setBinaryFormat((Boolean) value);
+                break;
+            case "imu_decimation_enabled":
+                Log.i(TAG, "Setting imu decimation: " + value);
+                Services.tracks.logger.setImuRates((Boolean) value ? LoggingPolicy.DEFAULT_RATES : LoggingPolicy.FULL_RATES);
+                break;
         }
         updateViews();
         return true;
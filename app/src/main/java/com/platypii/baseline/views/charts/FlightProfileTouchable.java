@@ -4,7 +4,9 @@ import com.platypii.baseline.Services;
 import com.platypii.baseline.events.ChartFocusEvent;
 import com.platypii.baseline.lasers.LaserMeasurement;
 import com.platypii.baseline.lasers.LaserProfile;
-import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.location.Geo;
+import com.platypii.baseline.tracks.StarredTracksLoader;
+import com.platypii.baseline.tracks.TrackColumns;
 import com.platypii.baseline.tracks.TrackData;
 import com.platypii.baseline.util.Bounds;
 import com.platypii.baseline.views.charts.layers.ChartLayer;
@@ -17,6 +19,7 @@ import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import org.greenrobot.eventbus.EventBus;
@@ -28,13 +31,38 @@ public class FlightProfileTouchable extends FlightProfile {
     final List<TrackData> tracks = new ArrayList<>();
     final List<LaserProfile> lasers = new ArrayList<>();
 
+    @Nullable
+    private StarredTracksLoader starredLoader;
+    // Layers added for starred tracks, removed on detach so that re-attaching doesn't duplicate them
+    private final List<ChartLayer> starredLayers = new ArrayList<>();
+
     public FlightProfileTouchable(Context context, AttributeSet attrs) {
         super(context, attrs);
+    }
 
-        // Add starred tracks
-        for (TrackData track : Services.tracks.getStarredTracks(context)) {
-            addLayer(new TrackProfileLayer(track.id, track.id, track, Colors.starredTracks));
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // Add starred tracks as they load
+        starredLoader = Services.tracks.loadStarredTracks(getContext(), track -> {
+            final ChartLayer layer = new TrackProfileLayer(track.id, track.id, track, Colors.starredTracks);
+            starredLayers.add(layer);
+            addLayer(layer);
+            invalidate();
+        });
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (starredLoader != null) {
+            starredLoader.cancel();
+            starredLoader = null;
         }
+        for (ChartLayer layer : starredLayers) {
+            removeLayer(layer);
+        }
+        starredLayers.clear();
     }
 
     private final ScaleGestureDetector scaler = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
@@ -100,20 +128,29 @@ public class FlightProfileTouchable extends FlightProfile {
     private ChartFocusEvent findClosest(double x, double y) {
         ChartFocusEvent closest = new ChartFocusEvent.Unfocused();
         double closestDistance = Double.POSITIVE_INFINITY;
+        TrackData closestTrack = null;
+        int closestIndex = -1;
         for (TrackData trackData : tracks) {
-            if (!trackData.data.isEmpty()) {
-                final MLocation start = trackData.data.get(0);
-                for (MLocation loc : trackData.data) {
-                    final double dx = start.distanceTo(loc) - x;
-                    final double dy = loc.altitude_gps - start.altitude_gps - y;
+            final TrackColumns columns = trackData.columns;
+            if (!columns.isEmpty()) {
+                final double startLat = columns.lat(0);
+                final double startLon = columns.lon(0);
+                final double startAlt = columns.alt(0);
+                for (int i = 0; i < columns.size(); i++) {
+                    final double dx = Geo.distance(startLat, startLon, columns.lat(i), columns.lon(i)) - x;
+                    final double dy = columns.alt(i) - startAlt - y;
                     final double distance = dx * dx + dy * dy; // distance squared
                     if (distance < closestDistance) {
-                        closest = new ChartFocusEvent.TrackFocused(loc, trackData.data);
+                        closestTrack = trackData;
+                        closestIndex = i;
                         closestDistance = distance;
                     }
                 }
             }
         }
+        if (closestTrack != null) {
+            closest = new ChartFocusEvent.TrackFocused(closestTrack.columns.get(closestIndex), closestTrack.data);
+        }
         for (LaserProfile laser : lasers) {
             for (LaserMeasurement point : laser.points) {
                 final double dx = point.x - x;
@@ -1,7 +1,7 @@
 package com.platypii.baseline.views.charts;
 
 import com.platypii.baseline.events.ChartFocusEvent;
-import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.tracks.TrackColumns;
 
 import android.content.Context;
 import android.util.AttributeSet;
@@ -41,16 +41,21 @@ public class SpeedChartTouchable extends SpeedChart {
     private ChartFocusEvent findClosest(double x, double y) {
         ChartFocusEvent closest = new ChartFocusEvent.Unfocused();
         double closestDistance = Double.POSITIVE_INFINITY;
-        if (trackData != null && !trackData.data.isEmpty()) {
-            for (MLocation loc : trackData.data) {
-                final double dx = loc.groundSpeed() - x;
-                final double dy = -loc.climb + y;
+        if (trackData != null && !trackData.columns.isEmpty()) {
+            final TrackColumns columns = trackData.columns;
+            int closestIndex = -1;
+            for (int i = 0; i < columns.size(); i++) {
+                final double dx = columns.groundSpeed(i) - x;
+                final double dy = -columns.climb(i) + y;
                 final double distance = dx * dx + dy * dy; // distance squared
                 if (distance < closestDistance) {
-                    closest = new ChartFocusEvent.TrackFocused(loc, trackData.data);
+                    closestIndex = i;
                     closestDistance = distance;
                 }
             }
+            if (closestIndex >= 0) {
+                closest = new ChartFocusEvent.TrackFocused(columns.get(closestIndex), trackData.data);
+            }
         }
         return closest;
     }
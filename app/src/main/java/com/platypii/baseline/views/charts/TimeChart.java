@@ -1,6 +1,7 @@
 package com.platypii.baseline.views.charts;
 
 import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.tracks.TrackColumns;
 import com.platypii.baseline.tracks.TrackData;
 import com.platypii.baseline.util.Bounds;
 import com.platypii.baseline.util.DataSeries;
@@ -49,10 +50,12 @@ public class TimeChart extends PlotView {
         altitudeSeries.reset();
         speedSeries.reset();
         glideSeries.reset();
-        for (MLocation loc : trackData.data) {
-            altitudeSeries.addPoint(loc.millis, loc.altitude_gps);
-            speedSeries.addPoint(loc.millis, loc.totalSpeed());
-            glideSeries.addPoint(loc.millis, glide(loc));
+        final TrackColumns columns = trackData.columns;
+        for (int i = 0; i < columns.size(); i++) {
+            final long millis = columns.millis(i);
+            altitudeSeries.addPoint(millis, columns.alt(i));
+            speedSeries.addPoint(millis, columns.totalSpeed(i));
+            glideSeries.addPoint(millis, glide(columns, i));
         }
 
         addLayer(new FlightModeLayer(trackData));
@@ -61,9 +64,10 @@ public class TimeChart extends PlotView {
     /**
      * Only use "good" glide numbers
      */
-    private double glide(@NonNull MLocation point) {
-        final double glide = point.glideRatio();
-        if (point.groundSpeed() > 3.5 && point.climb < 0.5 && point.climb != 0.0 && 0 <= glide && glide <= 4) {
+    private double glide(@NonNull TrackColumns columns, int i) {
+        final double glide = columns.glideRatio(i);
+        final double climb = columns.climb(i);
+        if (columns.groundSpeed(i) > 3.5 && climb < 0.5 && climb != 0.0 && 0 <= glide && glide <= 4) {
             return glide;
         } else {
             return Double.NaN;
@@ -78,7 +82,7 @@ public class TimeChart extends PlotView {
     @Override
     public void drawData(@NonNull Plot plot) {
         if (trackData != null) {
-            if (trackData.data.isEmpty()) {
+            if (trackData.columns.isEmpty()) {
                 plot.text.setTextAlign(Paint.Align.CENTER);
                 //noinspection IntegerDivisionInFloatingPointContext
                 plot.canvas.drawText("no track data", plot.width / 2, plot.height / 2, plot.text);
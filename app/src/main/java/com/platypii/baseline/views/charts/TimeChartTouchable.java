@@ -1,14 +1,12 @@
 package com.platypii.baseline.views.charts;
 
 import com.platypii.baseline.events.ChartFocusEvent;
-import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.util.Bounds;
 
 import android.content.Context;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import androidx.annotation.NonNull;
-import java.util.Collections;
 import org.greenrobot.eventbus.EventBus;
 
 /**
@@ -65,20 +63,14 @@ public class TimeChartTouchable extends TimeChart {
     }
 
 
-    // Avoid creating new object just to binary search
-    private final MLocation touchLocation = new MLocation();
-
     /**
      * Performs a binary search for the nearest data point
      */
     @NonNull
     private ChartFocusEvent findClosest(long millis) {
-        if (trackData != null && !trackData.data.isEmpty()) {
-            touchLocation.millis = millis;
-            int closest_index = Collections.binarySearch(trackData.data, touchLocation);
-            if (closest_index < 0) closest_index = -closest_index - 1;
-            if (closest_index == trackData.data.size()) closest_index--;
-            return new ChartFocusEvent.TrackFocused(trackData.data.get(closest_index), trackData.data);
+        if (trackData != null && !trackData.columns.isEmpty()) {
+            final int closest_index = trackData.columns.indexOf(millis);
+            return new ChartFocusEvent.TrackFocused(trackData.columns.get(closest_index), trackData.data);
         } else {
             return new ChartFocusEvent.Unfocused();
         }
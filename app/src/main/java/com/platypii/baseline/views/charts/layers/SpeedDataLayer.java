@@ -1,6 +1,6 @@
 package com.platypii.baseline.views.charts.layers;
 
-import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.tracks.TrackColumns;
 import com.platypii.baseline.tracks.TrackData;
 import com.platypii.baseline.util.DataSeries;
 import com.platypii.baseline.views.charts.Plot;
@@ -18,18 +18,22 @@ public class SpeedDataLayer extends ChartLayer {
 
     public SpeedDataLayer(@NonNull TrackData trackData) {
         // Load track data into time series
-        for (MLocation loc : trackData.data) {
-            if (loc.millis <= trackData.stats.exit.millis) {
-                plane.addPoint(loc.groundSpeed(), loc.climb);
+        final TrackColumns columns = trackData.columns;
+        for (int i = 0; i < columns.size(); i++) {
+            final long millis = columns.millis(i);
+            final double groundSpeed = columns.groundSpeed(i);
+            final double climb = columns.climb(i);
+            if (millis <= trackData.stats.exit.millis) {
+                plane.addPoint(groundSpeed, climb);
             }
-            if (trackData.stats.exit.millis <= loc.millis && loc.millis <= trackData.stats.deploy.millis) {
-                flight.addPoint(loc.groundSpeed(), loc.climb);
+            if (trackData.stats.exit.millis <= millis && millis <= trackData.stats.deploy.millis) {
+                flight.addPoint(groundSpeed, climb);
             }
-            if (trackData.stats.deploy.millis <= loc.millis && loc.millis <= trackData.stats.land.millis) {
-                canopy.addPoint(loc.groundSpeed(), loc.climb);
+            if (trackData.stats.deploy.millis <= millis && millis <= trackData.stats.land.millis) {
+                canopy.addPoint(groundSpeed, climb);
             }
-            if (trackData.stats.land.millis <= loc.millis) {
-                ground.addPoint(loc.groundSpeed(), loc.climb);
+            if (trackData.stats.land.millis <= millis) {
+                ground.addPoint(groundSpeed, climb);
             }
         }
     }
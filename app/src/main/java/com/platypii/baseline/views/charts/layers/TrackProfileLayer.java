@@ -1,6 +1,7 @@
 package com.platypii.baseline.views.charts.layers;
 
-import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.location.Geo;
+import com.platypii.baseline.tracks.TrackColumns;
 import com.platypii.baseline.tracks.TrackData;
 
 import androidx.annotation.ColorInt;
@@ -21,11 +22,14 @@ public class TrackProfileLayer extends ProfileLayer {
         this.trackData = trackData;
 
         // Load track data into time series
-        if (!trackData.data.isEmpty()) {
-            final MLocation start = trackData.data.get(0);
-            for (MLocation loc : trackData.data) {
-                final double x = start.distanceTo(loc);
-                final double y = loc.altitude_gps - start.altitude_gps;
+        final TrackColumns columns = trackData.columns;
+        if (!columns.isEmpty()) {
+            final double startLat = columns.lat(0);
+            final double startLon = columns.lon(0);
+            final double startAlt = columns.alt(0);
+            for (int i = 0; i < columns.size(); i++) {
+                final double x = Geo.distance(startLat, startLon, columns.lat(i), columns.lon(i));
+                final double y = columns.alt(i) - startAlt;
                 dataSeries.addPoint(x, y);
             }
         }
@@ -12,8 +12,8 @@ public class TrackProfileLayerLocal extends TrackProfileLayer {
     @NonNull
     public final TrackFile track;
 
-    public TrackProfileLayerLocal(@NonNull TrackFile track) {
-        super(track.getName(), track.getName(), new TrackData(track.getName(), track.file), Colors.nextColor());
+    public TrackProfileLayerLocal(@NonNull TrackFile track, @NonNull TrackData trackData) {
+        super(track.getName(), track.getName(), trackData, Colors.nextColor());
         this.track = track;
     }
 
@@ -32,17 +32,22 @@ public class TrackPickerFragment extends TrackListFragment {
         switch (item.getType()) {
             case TYPE_TRACK_LOCAL:
                 final TrackFile trackFile = ((ListTrackFile) item).track;
-                final TrackProfileLayer trackLayer = new TrackProfileLayerLocal(trackFile);
-                addLayer(trackLayer);
+                final TrackData localData = Services.tracks.dataCache.get(trackFile.getName(), trackFile.file);
+                if (localData != null) {
+                    final TrackProfileLayer trackLayer = new TrackProfileLayerLocal(trackFile, localData);
+                    addLayer(trackLayer);
+                }
                 break;
             case TYPE_TRACK_REMOTE:
                 final TrackMetadata track = ((ListTrackData) item).track;
                 // Check if track is already downloaded
                 final File abbrv = track.abbrvFile(getContext());
                 if (abbrv.exists()) {
-                    final TrackData trackData = new TrackData(track.track_id, abbrv);
-                    final TrackProfileLayerRemote cloudLayer = new TrackProfileLayerRemote(track, trackData);
-                    addLayer(cloudLayer);
+                    final TrackData trackData = Services.tracks.dataCache.get(track.track_id, abbrv);
+                    if (trackData != null) {
+                        final TrackProfileLayerRemote cloudLayer = new TrackProfileLayerRemote(track, trackData);
+                        addLayer(cloudLayer);
+                    }
                 } else {
                     // Download track file
                     downloadTrack(track);
@@ -61,8 +66,11 @@ public class TrackPickerFragment extends TrackListFragment {
                 .commit();
         downloadFrag.trackFile.thenAccept(trackFile -> {
             // Track download success, add to chart
-            final ProfileLayer layer = new TrackProfileLayerRemote(track, new TrackData(track.track_id, trackFile));
-            addLayer(layer);
+            final TrackData trackData = Services.tracks.dataCache.get(track.track_id, trackFile);
+            if (trackData != null) {
+                final ProfileLayer layer = new TrackProfileLayerRemote(track, trackData);
+                addLayer(layer);
+            }
             // Pop twice to go back to laser panel
             getParentFragmentManager().popBackStack();
         });
@@ -19,6 +19,8 @@ import androidx.fragment.app.Fragment;
 public class FlightStatsFragment extends Fragment implements Subscriber<MAltitude> {
 
     private FlightStatsBinding binding;
+    // Same instance for subscribe and unsubscribe
+    private final Subscriber<MLocation> locationListener = this::onLocationChanged;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -61,7 +63,7 @@ public class FlightStatsFragment extends Fragment implements Subscriber<MAltitud
     public void onResume() {
         super.onResume();
         // Start sensor updates
-        Services.location.locationUpdates.subscribeMain(this::onLocationChanged);
+        Services.location.locationUpdates.subscribeMain(locationListener);
         Services.alti.altitudeEvents.subscribeMain(this);
         update();
     }
@@ -70,7 +72,7 @@ public class FlightStatsFragment extends Fragment implements Subscriber<MAltitud
     public void onPause() {
         super.onPause();
         // Stop sensor updates
-        Services.location.locationUpdates.unsubscribeMain(this::onLocationChanged);
+        Services.location.locationUpdates.unsubscribeMain(locationListener);
         Services.alti.altitudeEvents.unsubscribeMain(this);
     }
 
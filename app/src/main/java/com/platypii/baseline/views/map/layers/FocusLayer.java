@@ -4,6 +4,7 @@ import com.platypii.baseline.R;
 import com.platypii.baseline.events.ChartFocusEvent;
 import com.platypii.baseline.location.Geo;
 import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.tracks.TrackColumns;
 import com.platypii.baseline.tracks.TrackData;
 
 import android.util.Log;
@@ -63,15 +64,20 @@ public class FocusLayer extends MapLayer {
     @NonNull
     private ChartFocusEvent findClosest(@Nullable LatLng focus) {
         ChartFocusEvent closest = new ChartFocusEvent.Unfocused();
-        if (focus != null && !trackData.data.isEmpty()) {
+        if (focus != null && !trackData.columns.isEmpty()) {
+            final TrackColumns columns = trackData.columns;
             double closestDistance = Double.POSITIVE_INFINITY;
-            for (MLocation loc : trackData.data) {
-                final double distance = Geo.fastDistance(loc.latitude, loc.longitude, focus.latitude, focus.longitude);
+            int closestIndex = -1;
+            for (int i = 0; i < columns.size(); i++) {
+                final double distance = Geo.fastDistance(columns.lat(i), columns.lon(i), focus.latitude, focus.longitude);
                 if (distance < closestDistance) {
-                    closest = new ChartFocusEvent.TrackFocused(loc, trackData.data);
+                    closestIndex = i;
                     closestDistance = distance;
                 }
             }
+            if (closestIndex >= 0) {
+                closest = new ChartFocusEvent.TrackFocused(columns.get(closestIndex), trackData.data);
+            }
         }
         return closest;
     }
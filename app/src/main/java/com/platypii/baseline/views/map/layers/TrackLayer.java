@@ -1,13 +1,13 @@
 package com.platypii.baseline.views.map.layers;
 
-import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.tracks.TrackColumns;
 import com.platypii.baseline.tracks.TrackData;
-import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.views.charts.layers.Colors;
 
 import androidx.annotation.NonNull;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.JointType;
+import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.PolylineOptions;
 import com.google.android.gms.maps.model.RoundCap;
 
@@ -47,27 +47,25 @@ public class TrackLayer extends MapLayer {
                 .endCap(rc)
                 .jointType(JointType.ROUND)
                 .color(Colors.modeGround);
-        for (MLocation loc : trackData.data) {
-            if (loc == null) {
-                Exceptions.report(new NullPointerException("Unexpected null location for track " + trackData));
-                continue;
-            }
-
+        final TrackColumns columns = trackData.columns;
+        for (int i = 0; i < columns.size(); i++) {
+            final long millis = columns.millis(i);
+            final LatLng latLng = new LatLng(columns.lat(i), columns.lon(i));
             if (trackData.stats.exit != null && trackData.stats.deploy != null && trackData.stats.land != null) {
-                if (loc.millis <= trackData.stats.exit.millis) {
-                    plane.add(loc.latLng());
+                if (millis <= trackData.stats.exit.millis) {
+                    plane.add(latLng);
                 }
-                if (trackData.stats.exit.millis <= loc.millis && loc.millis <= trackData.stats.deploy.millis) {
-                    flight.add(loc.latLng());
+                if (trackData.stats.exit.millis <= millis && millis <= trackData.stats.deploy.millis) {
+                    flight.add(latLng);
                 }
-                if (trackData.stats.deploy.millis <= loc.millis && loc.millis <= trackData.stats.land.millis) {
-                    canopy.add(loc.latLng());
+                if (trackData.stats.deploy.millis <= millis && millis <= trackData.stats.land.millis) {
+                    canopy.add(latLng);
                 }
-                if (trackData.stats.land.millis <= loc.millis) {
-                    ground.add(loc.latLng());
+                if (trackData.stats.land.millis <= millis) {
+                    ground.add(latLng);
                 }
             } else {
-                flight.add(loc.latLng());
+                flight.add(latLng);
             }
         }
         map.addPolyline(ground);
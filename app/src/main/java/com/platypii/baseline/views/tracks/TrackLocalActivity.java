@@ -67,7 +67,12 @@ public class TrackLocalActivity extends TrackDataActivity implements DialogInter
      */
     private void loadCharts() {
         // Load track data async
-        new Thread(() -> trackData.complete(new TrackData(trackFile.getName(), trackFile.file))).start();
+        new Thread(() -> {
+            final TrackData data = Services.tracks.dataCache.get(trackFile.getName(), trackFile.file);
+            if (data != null) {
+                trackData.complete(data);
+            }
+        }).start();
         // Load fragments
         final FragmentManager fm = getSupportFragmentManager();
         final Fragment charts = new ChartsFragment();
@@ -88,7 +88,12 @@ public class TrackRemoteActivity extends TrackDataActivity implements DialogInte
      */
     private void loadCharts(@NonNull File trackFile) {
         // Load track data async
-        new Thread(() -> trackData.complete(new TrackData(track.track_id, trackFile))).start();
+        new Thread(() -> {
+            final TrackData data = Services.tracks.dataCache.get(track.track_id, trackFile);
+            if (data != null) {
+                trackData.complete(data);
+            }
+        }).start();
         // Load fragments
         final FragmentManager fm = getSupportFragmentManager();
         final Fragment charts = new ChartsFragment();
@@ -0,0 +1,87 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.Measurement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check that stats computed while recording match loading the finished file
+ */
+public class LiveTrackStatsTest {
+
+    @Test
+    public void matchesFile() throws IOException {
+        final File trackFile = File.createTempFile("track", ".csv");
+        final LiveTrackStats live = new LiveTrackStats(new TrackCsvEncoder(new FileOutputStream(trackFile), Measurement.header + "\n"));
+        final Random random = new Random(2016);
+        final double[] values = new double[TrackWriter.WIDTH];
+        long millis = 1500000000000L;
+        double alt = 100;
+        // Ground, plane ride, freefall, canopy, ground
+        final double[][] phases = {{300, 0, 0}, {1200, 5, 40}, {600, -50, 20}, {900, -5, 10}, {300, 0, 0}};
+        for (double[] phase : phases) {
+            for (int i = 0; i < phase[0]; i++) {
+                alt += phase[1] * 0.2;
+                // Baro at 10 Hz
+                for (int j = 0; j < 2; j++) {
+                    values[0] = 1013.25 * Math.pow(1 - (alt + random.nextGaussian()) / 44330, 5.255);
+                    live.write(TrackWriter.ALT, millis + j * 100, (millis + j * 100) * 1000000L, values, 0, 0);
+                }
+                // Gps at 5 Hz
+                values[0] = 47 + alt * 1e-5 + random.nextGaussian() * 1e-6;
+                values[1] = -123 + millis * 1e-10;
+                values[2] = alt + random.nextGaussian() * 5;
+                values[3] = phase[2] + random.nextGaussian();
+                values[4] = random.nextGaussian();
+                live.write(TrackWriter.GPS, millis, 0, values, 0, 10);
+                millis += 200;
+            }
+        }
+        live.close();
+
+        final TrackData expected = new TrackData("id", trackFile);
+        final TrackData actual = live.build("id");
+        assertNotNull(actual);
+        assertTrue(expected.stats.isDefined());
+        assertEquals(expected.columns.size(), actual.columns.size());
+        for (int i = 0; i < expected.columns.size(); i++) {
+            assertEquals(expected.columns.millis(i), actual.columns.millis(i));
+            assertEquals(expected.columns.lat(i), actual.columns.lat(i), 0);
+            assertEquals(expected.columns.lon(i), actual.columns.lon(i), 0);
+            assertEquals(expected.columns.alt(i), actual.columns.alt(i), 0);
+            assertEquals(expected.columns.climb(i), actual.columns.climb(i), 0);
+        }
+        assertEquals(expected.stats.exit.millis, actual.stats.exit.millis);
+        assertEquals(expected.stats.deploy.millis, actual.stats.deploy.millis);
+        assertEquals(expected.stats.land.millis, actual.stats.land.millis);
+        assertEquals(expected.stats.altitude.min, actual.stats.altitude.min, 0);
+        assertEquals(expected.stats.altitude.max, actual.stats.altitude.max, 0);
+        TrackSidecar.delete(trackFile);
+        trackFile.delete();
+    }
+
+    @Test
+    public void noJump() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final LiveTrackStats live = new LiveTrackStats(new TrackCsvEncoder(os, ""));
+        final double[] values = {47, -123, 100, 0, 0};
+        for (int i = 0; i < 500; i++) {
+            live.write(TrackWriter.GPS, 1000L + i * 200, 0, values, 0, 10);
+        }
+        live.close();
+        assertNull(live.build("id"));
+        // Rows still pass through to the file
+        assertEquals(500, os.toString().split("\n").length);
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.jarvis.FlightMode;
+import com.platypii.baseline.measurements.MAccel;
+import com.platypii.baseline.measurements.MGravity;
+import com.platypii.baseline.measurements.MPressure;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoggingPolicyTest {
+
+    private static final long MS = 1000000L;
+
+    /**
+     * Count logged events at 10 Hz over a number of seconds
+     */
+    private int logged(LoggingPolicy policy, long startMillis, int seconds) {
+        int count = 0;
+        for (int i = 0; i < seconds * 10; i++) {
+            // Add some jitter
+            final long nano = (startMillis + i * 100 + (i % 3) * 7) * MS;
+            if (policy.shouldLog(new MAccel(nano, 9.8f))) count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void decimateOnGround() {
+        final LoggingPolicy policy = new LoggingPolicy(LoggingPolicy.DEFAULT_RATES, FlightMode.MODE_GROUND);
+        assertEquals(60, logged(policy, 1000, 60));
+        assertEquals(540, policy.skipped());
+    }
+
+    @Test
+    public void fullRateInFlight() {
+        final LoggingPolicy policy = new LoggingPolicy(LoggingPolicy.DEFAULT_RATES, FlightMode.MODE_PLANE);
+        assertEquals(20, logged(policy, 1000, 20));
+        policy.apply(FlightMode.MODE_FREEFALL);
+        assertEquals(600, logged(policy, 21000, 60));
+        policy.apply(FlightMode.MODE_CANOPY);
+        assertEquals(100, logged(policy, 81000, 10));
+        assertEquals(180, policy.skipped());
+    }
+
+    @Test
+    public void holdAfterFlight() {
+        final LoggingPolicy policy = new LoggingPolicy(LoggingPolicy.DEFAULT_RATES, FlightMode.MODE_CANOPY);
+        assertEquals(100, logged(policy, 1000, 10));
+        // Landed, but stay at full rate for a while
+        policy.apply(FlightMode.MODE_GROUND);
+        assertEquals(200, logged(policy, 11000, 20));
+        // Hold ends 30 seconds after the last canopy sample, then 1 Hz
+        assertEquals(100 + 50, logged(policy, 31000, 60), 1);
+    }
+
+    @Test
+    public void sensorsIndependent() {
+        final LoggingPolicy policy = new LoggingPolicy(LoggingPolicy.DEFAULT_RATES, FlightMode.MODE_GROUND);
+        assertTrue(policy.shouldLog(new MAccel(1000 * MS, 9.8f)));
+        assertTrue(policy.shouldLog(new MGravity(1001 * MS, 0, 0, 9.8f)));
+        // Pressure is never decimated
+        assertTrue(policy.shouldLog(new MPressure(1L, 1002 * MS, 100, 0, 1000f)));
+        assertTrue(policy.shouldLog(new MPressure(1L, 1003 * MS, 100, 0, 1000f)));
+    }
+
+    @Test
+    public void header() {
+        final LoggingPolicy policy = new LoggingPolicy(LoggingPolicy.DEFAULT_RATES, FlightMode.MODE_GROUND);
+        assertEquals("# imu_hz unknown=full ground=1.0 plane=1.0 wingsuit=full freefall=full canopy=full", policy.header());
+    }
+
+}
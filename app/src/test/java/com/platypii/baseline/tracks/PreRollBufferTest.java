@@ -0,0 +1,129 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MAccel;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PreRollBufferTest {
+
+    @Test
+    public void overwritesOldest() throws IOException {
+        final PreRollBuffer buffer = new PreRollBuffer(4, Long.MAX_VALUE);
+        for (int i = 1; i <= 10; i++) {
+            buffer.addSensor(new MAccel(i, i));
+        }
+        assertEquals(4, buffer.size());
+        assertEquals(",7,acc,,,,,,,,,,,,,,7\n,8,acc,,,,,,,,,,,,,,8\n,9,acc,,,,,,,,,,,,,,9\n,10,acc,,,,,,,,,,,,,,10\n", toCsv(buffer.snapshot()));
+    }
+
+    @Test
+    public void window() throws IOException {
+        final PreRollBuffer buffer = new PreRollBuffer(16, 1000000000L);
+        buffer.addSensor(new MAccel(1L, 1f));
+        buffer.addSensor(new MAccel(2L, 2f));
+        // Both arrived just now
+        assertEquals(2, buffer.snapshot().size);
+        // Too old an hour from now
+        assertEquals(0, buffer.snapshot(System.nanoTime() + 3600000000000L).size);
+    }
+
+    @Test
+    public void clear() {
+        final PreRollBuffer buffer = new PreRollBuffer(16, Long.MAX_VALUE);
+        buffer.addSensor(new MAccel(1L, 1f));
+        buffer.clear();
+        assertEquals(0, buffer.snapshot().size);
+        buffer.addSensor(new MAccel(2L, 2f));
+        assertEquals(1, buffer.snapshot().size);
+        assertEquals(16 * 72, buffer.memoryBytes());
+    }
+
+    /**
+     * Pre-roll comes first in the track, then live samples
+     */
+    @Test
+    public void writerPrepends() throws IOException {
+        final PreRollBuffer buffer = new PreRollBuffer(16, Long.MAX_VALUE);
+        final MLocation loc = new MLocation(1000L, 47.1, -123.9, 1000, 0, 1, 2, 5f, 1f, 1f, 1f, 9, 12);
+        final MPressure alt = new MPressure(2000L, 3000L, 100, 0, 1013.25f);
+        final MAccel acc = new MAccel(4000L, 9.8f);
+        buffer.addLocation(loc);
+        buffer.addPressure(alt, false);
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final TrackWriter writer = new TrackWriter(new TrackCsvEncoder(os, "header\n"), 16, true);
+        writer.writeSensor(acc);
+        writer.writePreRoll(buffer.snapshot());
+        writer.close();
+
+        final String expected = "header\n"
+                + loc.toRow() + "\n"
+                + alt.toRow().replace(",alt,", ",alt-,") + "\n"
+                + acc.toRow() + "\n";
+        assertEquals(expected, os.toString());
+        assertEquals(3, writer.written());
+    }
+
+    /**
+     * Samples after live logging started are written once, not once from the pre-roll and again live
+     */
+    @Test
+    public void writerDropsOverlap() throws IOException {
+        final PreRollBuffer buffer = new PreRollBuffer(16, Long.MAX_VALUE);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final TrackWriter writer = new TrackWriter(new TrackCsvEncoder(os, ""), 16, true);
+        for (int i = 1; i <= 3; i++) {
+            buffer.addSensor(new MAccel(i, i));
+        }
+        // Live logging starts
+        for (int i = 4; i <= 5; i++) {
+            buffer.addSensor(new MAccel(i, i));
+            writer.writeSensor(new MAccel(i, i));
+        }
+        writer.writePreRoll(buffer.snapshot());
+        for (int i = 6; i <= 7; i++) {
+            writer.writeSensor(new MAccel(i, i));
+        }
+        writer.close();
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 1; i <= 7; i++) {
+            expected.append(new MAccel(i, i).toRow()).append('\n');
+        }
+        assertEquals(expected.toString(), os.toString());
+        assertEquals(7, writer.written());
+    }
+
+    /**
+     * Snapshot taken while a sample is between the pre-roll and live listeners
+     */
+    @Test
+    public void writerDropsLateLiveCopy() throws IOException {
+        final PreRollBuffer buffer = new PreRollBuffer(16, Long.MAX_VALUE);
+        final MLocation loc = new MLocation(1000L, 47.1, -123.9, 1000, 0, 1, 2, 5f, 1f, 1f, 1f, 9, 12);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final TrackWriter writer = new TrackWriter(new TrackCsvEncoder(os, ""), 16, true);
+        buffer.addLocation(loc);
+        writer.writePreRoll(buffer.snapshot());
+        writer.writeLocation(loc);
+        writer.close();
+
+        assertEquals(loc.toRow() + "\n", os.toString());
+        assertEquals(1, writer.written());
+    }
+
+    private static String toCsv(PreRollBuffer.Snapshot snapshot) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final TrackCsvEncoder csv = new TrackCsvEncoder(os, "");
+        snapshot.writeTo(csv);
+        csv.close();
+        return os.toString();
+    }
+
+}
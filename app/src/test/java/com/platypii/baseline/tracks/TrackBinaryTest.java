@@ -0,0 +1,189 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.Measurement;
+import com.platypii.baseline.util.IOUtil;
+
+import androidx.annotation.NonNull;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrackBinaryTest {
+
+    private static final String header = Measurement.header + "\n# BASEline test\n";
+
+    @Test
+    public void quantize() {
+        assertEquals(47123457, TrackBinary.quantize(47.1234567, 6));
+        assertEquals(-12, TrackBinary.quantize(-0.125, 2));
+        assertEquals(14, TrackBinary.quantize(0.135, 2));
+        assertEquals(Double.NaN, TrackBinary.dequantize(TrackBinary.quantize(Double.NaN, 3), 3), 0);
+        // Negative zero survives, since DecimalFormat prints it as -0
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(TrackBinary.dequantize(TrackBinary.quantize(-0.001, 2), 2)));
+        assertEquals(47.123457, TrackBinary.dequantize(47123457, 6), 0);
+    }
+
+    /**
+     * Binary export must match the CSV logger byte for byte
+     */
+    @Test
+    public void exportMatchesCsv() throws IOException {
+        final Random random = new Random(2014);
+        final ByteArrayOutputStream csvBytes = new ByteArrayOutputStream();
+        final TrackCsvEncoder csv = new TrackCsvEncoder(csvBytes, header);
+        final File binaryFile = File.createTempFile("track", TrackBinary.EXTENSION);
+        final TrackBinary.Encoder binary = new TrackBinary.Encoder(new FileOutputStream(binaryFile), header);
+        writeRandom(random, 20000, csv, binary);
+        csv.close();
+        binary.close();
+
+        assertTrue(TrackBinary.isBinary(binaryFile));
+        final ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        TrackBinary.exportCsv(binaryFile, exported);
+        assertEquals(csvBytes.toString(), exported.toString());
+        // Should be much smaller than uncompressed CSV
+        assertTrue(binaryFile.length() * 3 < csvBytes.size());
+        binaryFile.delete();
+    }
+
+    /**
+     * Reading a binary track gives the same locations as reading its CSV
+     */
+    @Test
+    public void readerMatchesCsv() throws IOException {
+        final Random random = new Random(2015);
+        final File csvFile = File.createTempFile("track", ".csv");
+        final TrackCsvEncoder csv = new TrackCsvEncoder(new FileOutputStream(csvFile), header);
+        final File binaryFile = File.createTempFile("track", TrackBinary.EXTENSION);
+        final TrackBinary.Encoder binary = new TrackBinary.Encoder(new FileOutputStream(binaryFile), header);
+        writeRandom(random, 5000, csv, binary);
+        csv.close();
+        binary.close();
+
+        final TrackColumns fromCsv = new TrackFileReader(csvFile).read();
+        final TrackColumns fromBinary = new TrackFileReader(binaryFile).read();
+        assertTrue(fromCsv.size() > 100);
+        assertEquals(fromCsv.size(), fromBinary.size());
+        for (int i = 0; i < fromCsv.size(); i++) {
+            assertEquals(fromCsv.millis(i), fromBinary.millis(i));
+            assertEquals(fromCsv.lat(i), fromBinary.lat(i), 0);
+            assertEquals(fromCsv.lon(i), fromBinary.lon(i), 0);
+            assertEquals(fromCsv.alt(i), fromBinary.alt(i), 0);
+            assertEquals(fromCsv.climb(i), fromBinary.climb(i), 0);
+            assertEquals(fromCsv.vN(i), fromBinary.vN(i), 0);
+            assertEquals(fromCsv.vE(i), fromBinary.vE(i), 0);
+        }
+        csvFile.delete();
+        binaryFile.delete();
+    }
+
+    /**
+     * Binary tracks are shared as gzipped CSV, CSV tracks are shared as is
+     */
+    @Test
+    public void exportFile() throws IOException {
+        final Random random = new Random(2016);
+        final ByteArrayOutputStream csvBytes = new ByteArrayOutputStream();
+        final TrackCsvEncoder csv = new TrackCsvEncoder(csvBytes, header);
+        final File binaryFile = File.createTempFile("track", TrackBinary.EXTENSION);
+        final TrackBinary.Encoder binary = new TrackBinary.Encoder(new FileOutputStream(binaryFile), header);
+        writeRandom(random, 100, csv, binary);
+        csv.close();
+        binary.close();
+
+        final File exportDir = binaryFile.getParentFile();
+        final File exported = new TrackFile(binaryFile).exportFile(exportDir);
+        assertTrue(exported.getName().endsWith(".csv.gz"));
+        final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (InputStream is = new GZIPInputStream(new FileInputStream(exported))) {
+            IOUtil.copy(is, decoded);
+        }
+        assertEquals(csvBytes.toString(), decoded.toString());
+
+        // Gzipped CSV is already exportable
+        assertEquals(exported, new TrackFile(exported).exportFile(exportDir));
+        exported.delete();
+        binaryFile.delete();
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        final File binaryFile = File.createTempFile("track", TrackBinary.EXTENSION);
+        final TrackBinary.Encoder binary = new TrackBinary.Encoder(new FileOutputStream(binaryFile), header);
+        final double[] values = {47.1, -123.1, 1000, 1, 2};
+        binary.write(TrackWriter.GPS, 1000, 0, values, 0, 9);
+        binary.write(TrackWriter.GPS, 2000, 0, values, 0, 9);
+        binary.close();
+        // Chop off the last byte, as if logging was killed
+        try (RandomAccessFile raf = new RandomAccessFile(binaryFile, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        final TrackColumns data = new TrackFileReader(binaryFile).read();
+        assertEquals(1, data.size());
+        assertEquals(1000, data.millis(0));
+        binaryFile.delete();
+    }
+
+    @Test
+    public void notBinary() throws IOException {
+        final File csvFile = File.createTempFile("track", ".csv");
+        assertFalse(TrackBinary.isBinary(csvFile));
+        csvFile.delete();
+    }
+
+    /**
+     * Write the same simulated session to both encoders: 1 Hz gps, 10 Hz imu, 5 Hz baro
+     */
+    private static void writeRandom(@NonNull Random random, int steps, @NonNull TrackWriter.Encoder... encoders) throws IOException {
+        final double[] values = new double[TrackWriter.WIDTH];
+        double lat = 47.2;
+        double lon = -123.1;
+        double alt = 1000;
+        double pressure = 900;
+        long nano = 123456789000L;
+        for (int step = 0; step < steps; step++) {
+            nano += 100000000L + random.nextInt(2000000) - 1000000;
+            final long millis = 1500000000000L + nano / 1000000;
+            final int kind;
+            int n = 0;
+            if (step % 10 == 0) {
+                kind = TrackWriter.GPS;
+                lat += random.nextGaussian() * 1e-4;
+                lon += random.nextGaussian() * 1e-4;
+                alt += random.nextGaussian() * 10;
+                values[0] = lat;
+                values[1] = lon;
+                values[2] = alt;
+                values[3] = random.nextInt(10) == 0 ? Double.NaN : random.nextGaussian() * 20;
+                values[4] = random.nextGaussian() * 20;
+                n = random.nextInt(20) - 1;
+            } else if (step % 2 == 0) {
+                kind = step % 20 == 2 ? TrackWriter.ALT_DISABLED : TrackWriter.ALT;
+                pressure += random.nextGaussian() * 0.1;
+                values[0] = (float) pressure;
+            } else {
+                kind = new int[]{TrackWriter.GRV, TrackWriter.ROT, TrackWriter.ACC}[random.nextInt(3)];
+                values[0] = (float) (random.nextGaussian() * 10);
+                values[1] = (float) (random.nextGaussian() * 10);
+                values[2] = (float) (random.nextGaussian() * 10);
+                if (random.nextInt(1000) == 0) values[1] = -0.0000001f;
+            }
+            for (TrackWriter.Encoder encoder : encoders) {
+                encoder.write(kind, millis, nano, values, 0, n);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.jarvis.FlightMode;
+import com.platypii.baseline.measurements.MLocation;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrackColumnsTest {
+
+    private final List<MLocation> points = Arrays.asList(
+            new MLocation(1000, 47, -123, 100, 0, 0, 0, 0, 0, 0, 0, 11, 11),
+            new MLocation(2000, 47.1, -123.1, 1000, -20, 30, 40, 0, 0, 0, 0, 11, 11),
+            new MLocation(3000, 47.2, -123.2, 500, Double.NaN, 3, 4, 0, 0, 0, 0, 11, 11)
+    );
+
+    @Test
+    public void columns() {
+        final TrackColumns columns = TrackColumns.from(points);
+        assertEquals(3, columns.size());
+        for (int i = 0; i < points.size(); i++) {
+            final MLocation loc = points.get(i);
+            assertEquals(loc.millis, columns.millis(i));
+            assertEquals(loc.latitude, columns.lat(i), 0);
+            assertEquals(loc.longitude, columns.lon(i), 0);
+            assertEquals(loc.altitude_gps, columns.alt(i), 0);
+            assertEquals(loc.climb, columns.climb(i), 0);
+            assertEquals(loc.groundSpeed(), columns.groundSpeed(i), 0);
+            assertEquals(loc.totalSpeed(), columns.totalSpeed(i), 0);
+            assertEquals(FlightMode.getMode(loc), columns.flightMode(i));
+            assertTrue(loc.equals(columns.get(i)));
+        }
+    }
+
+    @Test
+    public void derivedColumnsUpdate() {
+        final TrackColumns columns = new TrackColumns();
+        columns.add(1000, 47, -123, 100, 0, 3, 4);
+        assertEquals(5, columns.groundSpeed(0), 0);
+        columns.add(2000, 47, -123, 100, 0, 6, 8);
+        assertEquals(10, columns.groundSpeed(1), 0);
+    }
+
+    @Test
+    public void indexOf() {
+        final TrackColumns columns = TrackColumns.from(points);
+        assertEquals(0, columns.indexOf(0));
+        assertEquals(0, columns.indexOf(1000));
+        assertEquals(1, columns.indexOf(1500));
+        assertEquals(1, columns.indexOf(2000));
+        assertEquals(2, columns.indexOf(9000));
+    }
+
+    @Test
+    public void slice() {
+        final TrackColumns sliced = TrackColumns.from(points).slice(1, 3);
+        assertEquals(2, sliced.size());
+        assertEquals(2000, sliced.millis(0));
+        assertEquals(3000, sliced.asList().get(1).millis);
+    }
+
+}
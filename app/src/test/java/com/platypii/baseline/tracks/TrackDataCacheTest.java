@@ -0,0 +1,102 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.FileUtil;
+
+import android.content.ComponentCallbacks2;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TrackDataCacheTest {
+
+    private static final String track = "millis,sensor,lat,lon,hMSL\n" +
+            "1000,gps,47.1,-123.1,1000\n" +
+            "2000,gps,47.2,-123.2,990\n" +
+            "3000,gps,47.3,-123.3,980\n";
+
+    @Test
+    public void hitAndMiss() throws IOException {
+        final TrackDataCache cache = new TrackDataCache(1000);
+        final File file = FileUtil.makeFile(track);
+        final TrackData first = cache.get("id", file);
+        final TrackData second = cache.get("id", file);
+        assertSame(first, second);
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(3, cache.size());
+
+        // Same data under another id
+        final TrackData renamed = cache.get("other", file);
+        assertEquals("other", renamed.id);
+        assertSame(first.columns, renamed.columns);
+        TrackSidecar.delete(file);
+    }
+
+    @Test
+    public void modifiedFile() throws IOException {
+        final TrackDataCache cache = new TrackDataCache(1000);
+        final File file = FileUtil.makeFile(track);
+        final TrackData first = cache.get("id", file);
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("4000,gps,47.4,-123.4,970\n");
+        }
+        final TrackData second = cache.get("id", file);
+        assertNotSame(first, second);
+        assertEquals(4, second.columns.size());
+        // Old version was replaced, not evicted
+        assertEquals(4, cache.size());
+        assertEquals(0, cache.evictions());
+        TrackSidecar.delete(file);
+    }
+
+    @Test
+    public void eviction() throws IOException {
+        final TrackDataCache cache = new TrackDataCache(7);
+        final File a = FileUtil.makeFile(track);
+        final File b = FileUtil.makeFile(track);
+        final File c = FileUtil.makeFile(track);
+        cache.get("a", a);
+        cache.get("b", b);
+        cache.get("a", a);
+        // Evicts b, the least recently used
+        cache.get("c", c);
+        assertEquals(1, cache.evictions());
+        assertEquals(6, cache.size());
+        cache.get("a", a);
+        assertEquals(2, cache.hits());
+        cache.get("b", b);
+        assertEquals(4, cache.misses());
+
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(0, cache.size());
+        for (File file : new File[]{a, b, c}) TrackSidecar.delete(file);
+    }
+
+    @Test
+    public void singleFlight() throws Exception {
+        final TrackDataCache cache = new TrackDataCache(1000);
+        final File file = FileUtil.makeFile(track);
+        final List<Thread> threads = new ArrayList<>();
+        final TrackData[] results = new TrackData[8];
+        for (int i = 0; i < results.length; i++) {
+            final int j = i;
+            threads.add(new Thread(() -> results[j] = cache.get("id", file)));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        for (TrackData result : results) {
+            assertSame(results[0].columns, result.columns);
+        }
+        assertEquals(8, cache.hits() + cache.misses());
+        assertEquals(3, cache.size());
+        TrackSidecar.delete(file);
+    }
+
+}
@@ -17,7 +17,7 @@ public class TrackDataTrimmerTest {
         addPoints(untrimmed, 0, 100);
         addPoints(untrimmed, -20, 100);
         addPoints(untrimmed, 0, 100);
-        List<MLocation> trimmed = Trimmer.autoTrim(untrimmed);
+        TrackColumns trimmed = Trimmer.autoTrim(TrackColumns.from(untrimmed));
         assertEquals(200, trimmed.size());
     }
 
@@ -0,0 +1,58 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.util.MD5;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TrackDigestTest {
+
+    @Test
+    public void readWrite() throws IOException {
+        final File trackFile = File.createTempFile("track", ".csv.gz");
+        writeBytes(trackFile, 100);
+        assertNull(TrackDigest.read(trackFile));
+        // Falls back to hashing the file
+        assertEquals(MD5.md5(trackFile), TrackDigest.md5(trackFile));
+
+        TrackDigest.write(trackFile, "0123456789abcdef0123456789abcdef");
+        assertEquals("0123456789abcdef0123456789abcdef", TrackDigest.read(trackFile));
+        assertEquals("0123456789abcdef0123456789abcdef", TrackDigest.md5(trackFile));
+
+        // Changing the track file makes the digest stale
+        writeBytes(trackFile, 101);
+        assertNull(TrackDigest.read(trackFile));
+
+        TrackDigest.delete(trackFile);
+        assertFalse(TrackDigest.digestFile(trackFile).exists());
+        assertTrue(trackFile.delete());
+    }
+
+    @Test
+    public void move() throws IOException {
+        final File from = File.createTempFile("track", ".csv.gz");
+        final File to = new File(from.getPath() + ".moved");
+        writeBytes(from, 10);
+        TrackDigest.write(from, "0123456789abcdef0123456789abcdef");
+        assertTrue(from.renameTo(to));
+        TrackDigest.move(from, to);
+        assertFalse(TrackDigest.digestFile(from).exists());
+        assertEquals("0123456789abcdef0123456789abcdef", TrackDigest.read(to));
+        TrackDigest.delete(to);
+        assertTrue(to.delete());
+    }
+
+    private static void writeBytes(File file, int n) throws IOException {
+        try (FileOutputStream os = new FileOutputStream(file)) {
+            os.write(new byte[n]);
+        }
+    }
+
+}
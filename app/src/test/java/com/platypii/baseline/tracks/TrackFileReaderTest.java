@@ -1,11 +1,9 @@
 package com.platypii.baseline.tracks;
 
 import com.platypii.baseline.FileUtil;
-import com.platypii.baseline.measurements.MLocation;
 
 import androidx.annotation.NonNull;
 import java.io.IOException;
-import java.util.List;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -45,7 +43,7 @@ public class TrackFileReaderTest {
      * Write string to temp file, and parse with TrackFileReader
      */
     @NonNull
-    private List<MLocation> parse(String content) throws IOException {
+    private TrackColumns parse(String content) throws IOException {
         return new TrackFileReader(FileUtil.makeFile(content)).read();
     }
 
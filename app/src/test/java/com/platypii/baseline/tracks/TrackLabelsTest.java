@@ -19,14 +19,14 @@ public class TrackLabelsTest {
     @Test
     public void empty() {
         final List<MLocation> points = new ArrayList<>();
-        final TrackLabels labels = TrackLabels.from(points);
+        final TrackLabels labels = TrackLabels.from(TrackColumns.from(points));
         assertNull(labels);
     }
 
     @Test
     public void singleton() {
         final List<MLocation> points = Collections.singletonList(point(0, FlightMode.MODE_WINGSUIT));
-        final TrackLabels labels = TrackLabels.from(points);
+        final TrackLabels labels = TrackLabels.from(TrackColumns.from(points));
         assertNull(labels);
     }
 
@@ -42,7 +42,7 @@ public class TrackLabelsTest {
                 point(6000, FlightMode.MODE_CANOPY),
                 point(7000, FlightMode.MODE_GROUND)
         );
-        final TrackLabels labels = TrackLabels.from(points);
+        final TrackLabels labels = TrackLabels.from(TrackColumns.from(points));
         assertNotNull(labels);
         assertEquals(2, labels.exit);
         assertEquals(4, labels.deploy);
@@ -56,7 +56,7 @@ public class TrackLabelsTest {
                 point(8000, FlightMode.MODE_CANOPY),
                 point(9000, FlightMode.MODE_CANOPY)
         );
-        final TrackLabels labels = TrackLabels.from(points);
+        final TrackLabels labels = TrackLabels.from(TrackColumns.from(points));
         assertNotNull(labels);
         assertEquals(0, labels.exit);
         assertEquals(0, labels.deploy);
@@ -0,0 +1,120 @@
+package com.platypii.baseline.tracks;
+
+import androidx.annotation.NonNull;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check that the single pass pipeline matches autoTrim, labels, and stats run separately
+ */
+public class TrackPipelineTest {
+
+    @Test
+    public void jump() {
+        final TrackColumns all = new TrackColumns();
+        final TrackPipeline pipeline = new TrackPipeline();
+        long millis = 1000;
+        double alt = 0;
+        // Ground, plane ride, freefall, canopy, ground
+        final double[][] phases = {{300, 0, 0}, {1200, 5, 40}, {600, -50, 20}, {900, -5, 10}, {300, 0, 0}};
+        for (double[] phase : phases) {
+            for (int i = 0; i < phase[0]; i++) {
+                alt += phase[1] * 0.2;
+                add(all, pipeline, millis, alt, phase[1], phase[2]);
+                millis += 200;
+            }
+        }
+        assertTrue(pipeline.isTrimmed());
+        final TrackData trackData = pipeline.build("id");
+        assertEquals(Trimmer.autoTrim(all).size(), trackData.columns.size());
+        assertTrue(trackData.columns.size() < all.size());
+        assertTrue(trackData.stats.isDefined());
+        assertMatches(all, trackData);
+    }
+
+    @Test
+    public void noJump() {
+        final TrackColumns all = new TrackColumns();
+        final TrackPipeline pipeline = new TrackPipeline();
+        for (int i = 0; i < 500; i++) {
+            add(all, pipeline, i * 200, 100, 1, 10);
+        }
+        assertFalse(pipeline.isTrimmed());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void noJumpBuild() {
+        final TrackPipeline pipeline = new TrackPipeline();
+        for (int i = 0; i < 500; i++) {
+            pipeline.add(i * 200, 47, -123, 100, 1, 10, 0);
+        }
+        pipeline.build("id");
+    }
+
+    @Test
+    public void empty() {
+        assertFalse(new TrackPipeline().isTrimmed());
+    }
+
+    @Test
+    public void random() {
+        final Random random = new Random(2020);
+        for (int trial = 0; trial < 200; trial++) {
+            final TrackColumns all = new TrackColumns();
+            final TrackPipeline pipeline = new TrackPipeline();
+            final int n = random.nextInt(1000);
+            double alt = 1000;
+            for (int i = 0; i < n; i++) {
+                final double climb = random.nextInt(20) == 0 ? -60 * random.nextDouble() : 10 * random.nextGaussian();
+                alt += climb;
+                add(all, pipeline, i * 200, alt, climb, 50 * random.nextDouble());
+            }
+            if (pipeline.isTrimmed()) {
+                assertMatches(all, pipeline.build("id"));
+            }
+        }
+    }
+
+    private void add(@NonNull TrackColumns all, @NonNull TrackPipeline pipeline, long millis, double alt, double climb, double speed) {
+        final double lat = 47 + alt * 1e-5;
+        final double lon = -123 + millis * 1e-7;
+        all.add(millis, lat, lon, alt, climb, speed, 0);
+        pipeline.add(millis, lat, lon, alt, climb, speed, 0);
+    }
+
+    private void assertMatches(@NonNull TrackColumns all, @NonNull TrackData actual) {
+        final TrackColumns expected = Trimmer.autoTrim(all);
+        final TrackStats stats = new TrackStats(expected);
+        assertEquals(expected.size(), actual.columns.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.millis(i), actual.columns.millis(i));
+            assertEquals(expected.alt(i), actual.columns.alt(i), 0);
+        }
+        assertEquals(stats.altitude.min, actual.stats.altitude.min, 0);
+        assertEquals(stats.altitude.max, actual.stats.altitude.max, 0);
+        if (stats.bounds == null) {
+            assertNull(actual.stats.bounds);
+        } else {
+            assertNotNull(actual.stats.bounds);
+            assertEquals(stats.bounds.southwest.latitude, actual.stats.bounds.southwest.latitude, 0);
+            assertEquals(stats.bounds.northeast.longitude, actual.stats.bounds.northeast.longitude, 0);
+        }
+        assertEquals(stats.isDefined(), actual.stats.isDefined());
+        if (stats.isDefined()) {
+            assertEquals(stats.exit.millis, actual.stats.exit.millis);
+            assertEquals(stats.deploy.millis, actual.stats.deploy.millis);
+            assertEquals(stats.land.millis, actual.stats.land.millis);
+            assertNotNull(actual.stats.labels);
+            assertEquals(stats.labels.exit, actual.stats.labels.exit);
+            assertEquals(stats.labels.deploy, actual.stats.labels.deploy);
+            assertEquals(stats.labels.land, actual.stats.labels.land);
+        }
+    }
+
+}
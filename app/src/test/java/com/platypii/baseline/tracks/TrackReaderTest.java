@@ -0,0 +1,63 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class TrackReaderTest {
+
+    @Test
+    public void range() throws IOException {
+        final StringBuilder sb = new StringBuilder("millis,sensor,lat,lon,hMSL,velN,velE,velD\n");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(1000 + i * 200).append(",gps,47,-123,").append(1000 + i).append(",1,2,0\n");
+        }
+        final File file = FileUtil.makeFile(sb.toString());
+        final TrackData trackData = new TrackData("id", file);
+        assertEquals(1000, trackData.columns.size());
+
+        final TrackReader reader = TrackReader.open("id", file);
+        assertNotNull(reader);
+        assertEquals(1000, reader.size());
+        final long[][] windows = {
+                {0, 0}, {0, 1000000}, {1000, 1200}, {1100, 1300}, {50000, 120000},
+                {52200, 52200}, {1000 + 256 * 200, 1000 + 512 * 200}, {200000, 300000}, {0, Long.MAX_VALUE}
+        };
+        for (long[] window : windows) {
+            final TrackData expected = trackData.trim(window[0], window[1]);
+            final TrackData actual = reader.range(window[0], window[1]);
+            assertEquals(expected.columns.size(), actual.columns.size());
+            for (int i = 0; i < expected.columns.size(); i++) {
+                assertEquals(expected.columns.millis(i), actual.columns.millis(i));
+                assertEquals(expected.columns.alt(i), actual.columns.alt(i), 0);
+                assertEquals(expected.columns.vE(i), actual.columns.vE(i), 0);
+            }
+        }
+        TrackSidecar.delete(file);
+    }
+
+    @Test
+    public void lowerBound() throws IOException {
+        final StringBuilder sb = new StringBuilder("millis,sensor,lat,lon,hMSL\n");
+        for (int i = 0; i < 600; i++) {
+            sb.append(i * 10).append(",gps,47,-123,1000\n");
+        }
+        final File file = FileUtil.makeFile(sb.toString());
+        final TrackReader reader = TrackReader.open("id", file);
+        assertNotNull(reader);
+        assertEquals(0, reader.lowerBound(-5));
+        assertEquals(0, reader.lowerBound(0));
+        assertEquals(1, reader.lowerBound(5));
+        assertEquals(256, reader.lowerBound(2560));
+        assertEquals(257, reader.lowerBound(2561));
+        assertEquals(599, reader.lowerBound(5990));
+        assertEquals(600, reader.lowerBound(6000));
+        TrackSidecar.delete(file);
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.FileUtil;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TrackSidecarTest {
+
+    private static final String track = "millis,sensor,lat,lon,hMSL,velN,velE,velD\n" +
+            "1000,gps,47.1,-123.1,1000,1,2,-3\n" +
+            "2000,gps,47.2,-123.2,990,4,5,6\n" +
+            "3000,gps,47.3,-123.3,980,7,8,9\n";
+
+    @Test
+    public void roundTrip() throws IOException {
+        final File file = FileUtil.makeFile(track);
+        final File sidecar = TrackSidecar.sidecarFile(file);
+        assertFalse(sidecar.exists());
+
+        // First load parses csv and writes sidecar
+        final TrackData parsed = new TrackData("id", file);
+        assertTrue(sidecar.exists());
+
+        final TrackData cached = TrackSidecar.read("id", file);
+        assertNotNull(cached);
+        assertEquals(parsed.columns.size(), cached.columns.size());
+        for (int i = 0; i < parsed.columns.size(); i++) {
+            assertEquals(parsed.columns.millis(i), cached.columns.millis(i));
+            assertEquals(parsed.columns.lat(i), cached.columns.lat(i), 0);
+            assertEquals(parsed.columns.lon(i), cached.columns.lon(i), 0);
+            assertEquals(parsed.columns.alt(i), cached.columns.alt(i), 0);
+            assertEquals(parsed.columns.climb(i), cached.columns.climb(i), 0);
+            assertEquals(parsed.columns.vN(i), cached.columns.vN(i), 0);
+            assertEquals(parsed.columns.vE(i), cached.columns.vE(i), 0);
+        }
+        assertEquals(parsed.stats.altitude.min, cached.stats.altitude.min, 0);
+        assertEquals(parsed.stats.altitude.max, cached.stats.altitude.max, 0);
+        assertEquals(parsed.stats.isDefined(), cached.stats.isDefined());
+
+        TrackSidecar.delete(file);
+        assertFalse(sidecar.exists());
+    }
+
+    /**
+     * Labels are stored as the indices computed by the pipeline
+     */
+    @Test
+    public void labels() throws IOException {
+        final TrackPipeline pipeline = new TrackPipeline();
+        long millis = 1000;
+        double alt = 0;
+        // Ground, plane ride, freefall, canopy, ground
+        final double[][] phases = {{300, 0, 0}, {1200, 5, 40}, {600, -50, 20}, {900, -5, 10}, {300, 0, 0}};
+        for (double[] phase : phases) {
+            for (int i = 0; i < phase[0]; i++) {
+                alt += phase[1] * 0.2;
+                pipeline.add(millis, 47, -123, alt, phase[1], phase[2], 0);
+                millis += 200;
+            }
+        }
+        final TrackData trackData = pipeline.build("id");
+        assertNotNull(trackData.stats.labels);
+
+        final File file = FileUtil.makeFile(track);
+        TrackSidecar.write(file, trackData);
+        final TrackData cached = TrackSidecar.read("id", file);
+        assertNotNull(cached);
+        assertNotNull(cached.stats.labels);
+        assertEquals(trackData.stats.labels.exit, cached.stats.labels.exit);
+        assertEquals(trackData.stats.labels.deploy, cached.stats.labels.deploy);
+        assertEquals(trackData.stats.labels.land, cached.stats.labels.land);
+        assertEquals(trackData.stats.exit.millis, cached.stats.exit.millis);
+        assertEquals(trackData.stats.deploy.millis, cached.stats.deploy.millis);
+        assertEquals(trackData.stats.land.millis, cached.stats.land.millis);
+        TrackSidecar.delete(file);
+    }
+
+    @Test
+    public void stale() throws IOException {
+        final File file = FileUtil.makeFile(track);
+        new TrackData("id", file);
+        assertNotNull(TrackSidecar.read("id", file));
+
+        // Modify the source track
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("4000,gps,47.4,-123.4,970,1,1,1\n");
+        }
+        assertNull(TrackSidecar.read("id", file));
+        TrackSidecar.delete(file);
+    }
+
+    @Test
+    public void corrupt() throws IOException {
+        final File file = FileUtil.makeFile(track);
+        try (FileWriter writer = new FileWriter(TrackSidecar.sidecarFile(file))) {
+            writer.write("NOPE");
+        }
+        assertNull(TrackSidecar.read("id", file));
+        // Falls back to csv
+        assertEquals(3, new TrackData("id", file).columns.size());
+        TrackSidecar.delete(file);
+    }
+
+    @Test
+    public void unreadable() throws IOException {
+        final File file = File.createTempFile("track", ".csv.gz");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("not gzip");
+        }
+        // Stale sidecar from an earlier version of the file
+        try (FileWriter writer = new FileWriter(TrackSidecar.sidecarFile(file))) {
+            writer.write("NOPE");
+        }
+        assertEquals(0, new TrackData("id", file).columns.size());
+        assertFalse(TrackSidecar.sidecarFile(file).exists());
+        assertTrue(file.delete());
+    }
+
+}
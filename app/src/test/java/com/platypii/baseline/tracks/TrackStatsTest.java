@@ -4,6 +4,7 @@ import com.platypii.baseline.jarvis.FlightMode;
 import com.platypii.baseline.measurements.MLocation;
 
 import androidx.annotation.NonNull;
+import com.google.android.gms.maps.model.LatLngBounds;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.Test;
@@ -23,7 +24,7 @@ public class TrackStatsTest {
         points.add(point(5000, FlightMode.MODE_CANOPY));
         points.add(point(6000, FlightMode.MODE_CANOPY));
         points.add(point(7000, FlightMode.MODE_GROUND));
-        final TrackStats stats = new TrackStats(points);
+        final TrackStats stats = new TrackStats(TrackColumns.from(points));
         assertEquals(2000, stats.exit.millis);
         assertEquals(4000, stats.deploy.millis);
         assertEquals(6000, stats.land.millis);
@@ -31,6 +32,31 @@ public class TrackStatsTest {
         assertEquals(1000, stats.altitude.max, 0.01);
     }
 
+    @Test
+    public void bounds() {
+        final TrackStats.BoundsBuilder builder = new TrackStats.BoundsBuilder();
+        builder.include(47, -123);
+        builder.include(48, -122);
+        final LatLngBounds bounds = builder.build();
+        assertEquals(47, bounds.southwest.latitude, 0);
+        assertEquals(-123, bounds.southwest.longitude, 0);
+        assertEquals(48, bounds.northeast.latitude, 0);
+        assertEquals(-122, bounds.northeast.longitude, 0);
+    }
+
+    @Test
+    public void boundsAntimeridian() {
+        final TrackStats.BoundsBuilder builder = new TrackStats.BoundsBuilder();
+        builder.include(-17, 179.5);
+        builder.include(-16, -179.5);
+        builder.include(-16.5, 179.9);
+        final LatLngBounds bounds = builder.build();
+        assertEquals(-17, bounds.southwest.latitude, 0);
+        assertEquals(179.5, bounds.southwest.longitude, 0);
+        assertEquals(-16, bounds.northeast.latitude, 0);
+        assertEquals(-179.5, bounds.northeast.longitude, 1e-9);
+    }
+
     @NonNull
     private MLocation point(long millis, int flightMode) {
         switch (flightMode) {
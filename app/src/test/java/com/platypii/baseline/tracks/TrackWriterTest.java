@@ -0,0 +1,124 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MAccel;
+import com.platypii.baseline.measurements.MGravity;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.measurements.MRotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrackWriterTest {
+
+    @Test
+    public void matchesToRow() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final TrackWriter writer = new TrackWriter(os, "header\n", 16);
+        final MLocation loc = new MLocation(1000L, 47.123456789, -123.987654321, 1234.5678, -2.5, 10.123, Double.NaN, 5f, 1f, 1f, 1f, 9, 12);
+        final MLocation noSats = new MLocation(2000L, 47.1, -123.9, 1000, 0, 1, 2, 5f, 1f, 1f, 1f, -1, 0);
+        final MPressure alt = new MPressure(3000L, 4000L, 100, 0, 1013.25f);
+        final MGravity grv = new MGravity(5000L, 0.1f, -9.81f, 0.000001f);
+        final MRotation rot = new MRotation(6000L, 1.5f, -2.25f, 3f);
+        final MAccel acc = new MAccel(7000L, 9.80665f);
+        writer.writeLocation(loc);
+        writer.writeLocation(noSats);
+        writer.writePressure(alt, true);
+        writer.writePressure(alt, false);
+        writer.writeSensor(grv);
+        writer.writeSensor(rot);
+        writer.writeSensor(acc);
+        writer.close();
+
+        final String expected = "header\n"
+                + loc.toRow() + "\n"
+                + noSats.toRow() + "\n"
+                + alt.toRow() + "\n"
+                + alt.toRow().replace(",alt,", ",alt-,") + "\n"
+                + grv.toRow() + "\n"
+                + rot.toRow() + "\n"
+                + acc.toRow() + "\n";
+        assertEquals(expected, os.toString());
+        assertEquals(7, writer.written());
+        assertEquals(0, writer.dropped());
+    }
+
+    @Test
+    public void multipleProducers() throws Exception {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final TrackWriter writer = new TrackWriter(os, "", 64);
+        final int producers = 4;
+        final int samples = 20000;
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final long offset = p * samples;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < samples; i++) {
+                    writer.writeSensor(new MAccel(offset + i, 1f));
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        writer.close();
+
+        // Every sample is either written exactly once, or counted as dropped
+        final String[] lines = os.toString().split("\n");
+        final Set<String> unique = new HashSet<>();
+        for (String line : lines) {
+            assertTrue(line, line.endsWith(",acc,,,,,,,,,,,,,,1"));
+            unique.add(line);
+        }
+        assertEquals(lines.length, unique.size());
+        assertEquals(lines.length, writer.written());
+        assertEquals(producers * samples, writer.written() + writer.dropped());
+    }
+
+    @Test
+    public void concurrentClose() throws Exception {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final TrackWriter writer = new TrackWriter(os, "", 64);
+        final AtomicLong accepted = new AtomicLong();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    if (writer.writeSensor(new MAccel(i, 1f))) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        // Close while producers are still offering
+        Thread.sleep(5);
+        writer.close();
+        for (Thread thread : threads) thread.join();
+
+        // Every accepted sample made it to the file
+        final String out = os.toString();
+        final int lines = out.isEmpty() ? 0 : out.split("\n").length;
+        assertEquals(accepted.get(), writer.written());
+        assertEquals(lines, writer.written());
+    }
+
+    @Test
+    public void closedDrops() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final TrackWriter writer = new TrackWriter(os, "", 16);
+        writer.close();
+        writer.writeSensor(new MAccel(1L, 1f));
+        assertEquals(0, writer.written());
+        assertEquals("", os.toString());
+    }
+
+}
@@ -84,37 +84,52 @@ public class BaroAltimeter implements SensorEventListener {
 
         // Sanity checks
         // assert event.sensor.getType() == Sensor.TYPE_PRESSURE;
-        if (event.values.length == 0 || Double.isNaN(event.values[0]) || event.values[0] == 0) {
+        if (event.values.length == 0) {
             Log.e(TAG, "Invalid update: " + Arrays.toString(event.values));
             return;
         }
-        if (event.timestamp == lastFixNano) {
+
+        // Convert system time to GPS time
+        updatePressure(TimeOffset.phoneToGpsTime(millis), event.timestamp, event.values[0]);
+    }
+
+    /**
+     * Process a pressure reading from the sensor, or from a replay
+     *
+     * @param lastFixMillis gps time of the reading, in milliseconds
+     * @param timestamp sensor time of the reading, in nanoseconds
+     * @param pressure pressure in hPa
+     */
+    public void updatePressure(long lastFixMillis, long timestamp, float pressure) {
+        if (Double.isNaN(pressure) || pressure == 0) {
+            Log.e(TAG, "Invalid update: " + pressure);
+            return;
+        }
+        if (timestamp == lastFixNano) {
             Log.e(TAG, "Double update: " + lastFixNano);
             return;
         }
-        if (event.timestamp < lastFixNano) {
-            Log.e(TAG, "Negative time update: " + lastFixNano + " - " + event.timestamp + " = ");
+        if (timestamp < lastFixNano) {
+            Log.e(TAG, "Negative time update: " + lastFixNano + " - " + timestamp + " = ");
             // Update lastFixNano and return
             // If we didn't update lastfix, altimeter would halt on one rogue future timestamp
-            lastFixNano = event.timestamp;
+            lastFixNano = timestamp;
             return;
         }
 
-        // Convert system time to GPS time
-        final long lastFixMillis = TimeOffset.phoneToGpsTime(millis);
         // Compute time since last sample in nanoseconds
-        final long deltaTime = (lastFixNano == 0) ? 0 : (event.timestamp - lastFixNano);
+        final long deltaTime = (lastFixNano == 0) ? 0 : (timestamp - lastFixNano);
 
         if (lastFixNano > 0 && deltaTime <= 0) {
-            Log.e(TAG, "Non-monotonic time delta: " + event.timestamp + " - " + lastFixNano + " = " + deltaTime + " ns");
+            Log.e(TAG, "Non-monotonic time delta: " + timestamp + " - " + lastFixNano + " = " + deltaTime + " ns");
         }
 
         // Convert pressure to altitude
-        pressure = event.values[0];
+        this.pressure = pressure;
         pressure_altitude_raw = pressureToAltitude(pressure);
 
         // Barometer refresh rate
-        refreshRate.addSample(event.timestamp / 1000000L);
+        refreshRate.addSample(timestamp / 1000000L);
 
         // Apply kalman filter to pressure altitude, to produce smooth barometric pressure altitude.
         if (lastFixNano <= 0) {
@@ -135,7 +150,7 @@ public class BaroAltimeter implements SensorEventListener {
         model_error.addSample(pressure_altitude_filtered - pressure_altitude_raw);
 
         // Update last fix
-        lastFixNano = event.timestamp;
+        lastFixNano = timestamp;
 
         // Publish official altitude measurement
         final MPressure myPressure = new MPressure(lastFixMillis, lastFixNano, pressure_altitude_filtered, climb, pressure);
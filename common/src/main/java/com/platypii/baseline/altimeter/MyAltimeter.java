@@ -31,6 +31,8 @@ public class MyAltimeter implements Subscriber<MPressure> {
     @NonNull
     private final LocationProvider location;
     private boolean started = false;
+    // Same instance for subscribe and unsubscribe
+    private final Subscriber<MLocation> gpsListener = this::updateGPS;
 
     // Barometric altimeter
     @NonNull
@@ -84,7 +86,7 @@ public class MyAltimeter implements Subscriber<MPressure> {
                 groundLevel.start(prefs);
 
                 // Start GPS updates
-                location.locationUpdates.subscribe(this::updateGPS);
+                location.locationUpdates.subscribe(gpsListener);
             } else {
                 Log.e(TAG, "MyAltimeter already started");
             }
@@ -187,7 +189,7 @@ public class MyAltimeter implements Subscriber<MPressure> {
     public void stop() {
         baro.pressureEvents.unsubscribe(this);
         baro.stop();
-        location.locationUpdates.unsubscribe(this::updateGPS);
+        location.locationUpdates.unsubscribe(gpsListener);
         if (started) {
             started = false;
         } else {
@@ -1,7 +1,7 @@
 package com.platypii.baseline.bluetooth;
 
 import com.platypii.baseline.events.BluetoothEvent;
-import com.platypii.baseline.location.NMEA;
+import com.platypii.baseline.location.NMEAFramer;
 
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
@@ -9,11 +9,8 @@ import android.bluetooth.BluetoothSocket;
 import android.os.ParcelUuid;
 import android.util.Log;
 import androidx.annotation.NonNull;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 import org.greenrobot.eventbus.EventBus;
 
@@ -135,20 +132,21 @@ class BluetoothRunnable implements Stoppable {
      * Pipe bluetooth socket into nmea listeners
      */
     private void processSentences() {
+        final NMEAFramer framer = new NMEAFramer();
         try {
             final InputStream is = bluetoothSocket.getInputStream();
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-            String line;
-            while (bluetoothState == BT_CONNECTED && (line = reader.readLine()) != null) {
-                // Update listeners
-                service.nmeaUpdates.post(new NMEA(System.currentTimeMillis(), line));
+            while (bluetoothState == BT_CONNECTED && framer.read(is) >= 0) {
+                // Update listeners with every sentence from this read
+                if (framer.batch.size() > 0 || framer.batch.ubxSize() > 0) {
+                    service.nmeaUpdates.post(framer.batch);
+                }
             }
         } catch (IOException e) {
             if (bluetoothState == BT_CONNECTED) {
                 Log.e(TAG, "Error reading from bluetooth socket", e);
             }
         } finally {
-            Log.d(TAG, "Bluetooth thread shutting down");
+            Log.d(TAG, "Bluetooth thread shutting down " + framer);
         }
     }
 
@@ -1,7 +1,7 @@
 package com.platypii.baseline.bluetooth;
 
 import com.platypii.baseline.common.R;
-import com.platypii.baseline.location.NMEA;
+import com.platypii.baseline.location.NMEABatch;
 import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.util.PubSub;
 
@@ -33,7 +33,9 @@ import static com.platypii.baseline.bluetooth.BluetoothState.BT_STOPPING;
 public class BluetoothService {
     private static final String TAG = "Bluetooth";
 
-    public final PubSub<NMEA> nmeaUpdates = new PubSub<>();
+    // NMEA sentences and UBX frames read from the receiver.
+    // Batches are reused, so they are posted synchronously from the bluetooth thread
+    public final PubSub<NMEABatch> nmeaUpdates = new PubSub<>();
 
     // Android shared preferences for bluetooth
     public final BluetoothPreferences preferences = new BluetoothPreferences();
@@ -1,6 +1,7 @@
 package com.platypii.baseline.location;
 
 import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.EventQueue;
 import com.platypii.baseline.util.Numbers;
 import com.platypii.baseline.util.PubSub;
 import com.platypii.baseline.util.RefreshRateEstimator;
@@ -20,7 +21,11 @@ public abstract class LocationProvider {
     public MLocation lastLoc; // last location received
     private MLocation prevLoc; // 2nd to last
 
-    public final PubSub<MLocation> locationUpdates = new PubSub<>();
+    // Ordered delivery, dropping the oldest fixes if a subscriber stalls for several seconds
+    public final PubSub<MLocation> locationUpdates = new PubSub<>("LocationUpdates", 100, EventQueue.Backpressure.DROP_OLDEST);
+
+    // Deliver on the calling thread instead, so slow subscribers hold up a replay rather than drop its fixes
+    volatile boolean synchronous = false;
 
     /**
      * Give a useful name to the inherited provider
@@ -90,7 +95,11 @@ public abstract class LocationProvider {
         refreshRate.addSample(lastLoc.millis);
 
         // Notify listeners (async so the service never blocks!)
-        locationUpdates.postAsync(lastLoc);
+        if (synchronous) {
+            locationUpdates.post(lastLoc);
+        } else {
+            locationUpdates.postAsync(lastLoc);
+        }
     }
 
     /**
@@ -166,5 +175,7 @@ public abstract class LocationProvider {
         if (!locationUpdates.isEmpty()) {
             Log.w(providerName(), "Stopping location service, but listeners are still listening");
         }
+        // Release the delivery thread
+        locationUpdates.close();
     }
 }
@@ -3,7 +3,7 @@ package com.platypii.baseline.location;
 import com.platypii.baseline.Permissions;
 import com.platypii.baseline.altimeter.MyAltimeter;
 import com.platypii.baseline.bluetooth.BluetoothService;
-import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.measurements.MLocation;
 
 import android.content.Context;
 import android.util.Log;
@@ -12,9 +12,18 @@ import androidx.annotation.NonNull;
 class LocationProviderBluetooth extends LocationProviderNMEA {
     protected final String TAG = "ProviderBluetooth";
 
+    private static final int GP = ('G' << 8) | 'P';
+
+    // Fall back to NMEA fixes if NAV-PVT stops for this long, in milliseconds
+    private static final long UBX_TIMEOUT = 3000;
+
     @NonNull
     private final BluetoothService bluetooth;
 
+    // Protocol detected on this stream, binary NAV-PVT fixes take priority over NMEA
+    private boolean ubx = false;
+    private long lastUbx; // batch timestamp of the last NAV-PVT
+
     @NonNull
     @Override
     protected String providerName() {
@@ -32,20 +41,56 @@ class LocationProviderBluetooth extends LocationProviderNMEA {
         this.bluetooth = bluetooth;
     }
 
+    /**
+     * Decode UBX navigation frames, then NMEA sentences
+     */
+    @Override
+    public void apply(@NonNull NMEABatch batch) {
+        for (int i = 0; i < batch.ubxSize(); i++) {
+            final int start = batch.ubxStart(i);
+            final int end = batch.ubxEnd(i);
+            if (UBX.isNavPvt(batch.buf, start, end)) {
+                if (!ubx) {
+                    Log.i(TAG, "Receiver sends UBX NAV-PVT, ignoring NMEA fixes");
+                    ubx = true;
+                }
+                lastUbx = batch.timestamp;
+                final MLocation loc = UBX.parseNavPvt(batch.buf, start, end);
+                if (loc != null) {
+                    updateLocation(loc);
+                }
+            }
+        }
+        if (ubx && batch.timestamp - lastUbx > UBX_TIMEOUT) {
+            // Receiver was reconfigured or swapped, use its NMEA fixes again
+            Log.i(TAG, "No UBX NAV-PVT for " + (batch.timestamp - lastUbx) + " ms, using NMEA fixes");
+            ubx = false;
+        }
+        super.apply(batch);
+    }
+
+    /**
+     * NMEA fixes, unless the receiver also sends UBX
+     */
+    @Override
+    void updateLocation(@NonNull NMEAEpochAssembler.Epoch epoch) {
+        if (!ubx) {
+            super.updateLocation(epoch);
+        }
+    }
+
     /**
      * Listen for GPPWR command
      */
     @Override
-    public void apply(@NonNull NMEA nmea) {
-        // Parse PWR command
-        if (nmea.sentence.startsWith("$GPPWR")) {
-            final String[] split = NMEA.splitNmea(nmea.sentence);
-            bluetooth.powerLevel = NMEA.parsePowerLevel(split);
-            bluetooth.charging = Numbers.parseInt(split[5], 0) == 1;
-        } else if (nmea.sentence.startsWith("$")) {
-            super.apply(nmea);
+    boolean parseUnchecked() {
+        // Dual doesn't checksum power sentences
+        if (parser.talker() == GP && parser.command() == NMEAParser.PWR) {
+            bluetooth.powerLevel = parser.parsePowerLevel();
+            bluetooth.charging = parser.parseInt(5, 0) == 1;
+            return true;
         } else {
-            Log.w(TAG, "Unexpected bluetooth message: " + nmea);
+            return false;
         }
     }
 
@@ -61,6 +106,7 @@ class LocationProviderBluetooth extends LocationProviderNMEA {
             Log.w(TAG, "Bluetooth permissions required");
         }
         // Start NMEA updates
+        ubx = false;
         bluetooth.nmeaUpdates.subscribe(this);
     }
 
@@ -0,0 +1,237 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.BlockGzipInputStream;
+import com.platypii.baseline.util.CSVHeader;
+import com.platypii.baseline.util.CSVTokenizer;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Replays a recorded track file or raw NMEA log as a location provider.
+ * Track files also replay their pressure events into the barometric altimeter, so the phone
+ * barometer should not be running at the same time.
+ * Events are paced by their recorded time, divided by the replay speed.
+ * Fixes are delivered on the replay thread, so every fix reaches every subscriber.
+ *
+ * Use start() to replay in the background like a live gps, or replay() to run headless on the
+ * calling thread, and measure the pipeline with stats.
+ */
+public class LocationProviderReplay extends LocationProviderNMEA {
+    private static final String TAG = "ProviderReplay";
+
+    // Replay as fast as the pipeline can take it
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    @NonNull
+    private final File file;
+    private final double speed;
+
+    @NonNull
+    public final ReplayStats stats = new ReplayStats();
+
+    @Nullable
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // Recorded time and wall time of the first event
+    private long startMillis = -1;
+    private long startNano;
+    // Wall time spent waiting for recorded time, excluded from epoch timeouts
+    private long pausedNanos;
+
+    @NonNull
+    @Override
+    protected String providerName() {
+        return TAG;
+    }
+
+    @NonNull
+    @Override
+    protected String dataSource() {
+        return "Replay " + file.getName();
+    }
+
+    /**
+     * @param file track csv, or NMEA log, optionally gzipped
+     * @param speed multiple of recorded time, or MAX_SPEED
+     */
+    public LocationProviderReplay(@NonNull MyAltimeter alti, @NonNull File file, double speed) {
+        super(alti);
+        if (!(speed > 0)) throw new IllegalArgumentException("Invalid replay speed " + speed);
+        this.file = file;
+        this.speed = speed;
+        synchronous = true;
+    }
+
+    @Override
+    public void start(@NonNull Context context) {
+        if (thread != null) {
+            Log.e(TAG, "Replay already started");
+            return;
+        }
+        running = true;
+        thread = new Thread(this::replay, "Replay");
+        thread.start();
+    }
+
+    /**
+     * Replay the whole file on the calling thread.
+     * Returns when the file is done, or the replay is stopped.
+     */
+    public void replay() {
+        running = true;
+        startMillis = -1;
+        pausedNanos = 0;
+        stats.start();
+        final String name = file.getName();
+        try (InputStream in = name.endsWith(".gz") ? BlockGzipInputStream.open(file) : new FileInputStream(file)) {
+            if (name.contains(".csv")) {
+                replayTrack(in);
+            } else {
+                replayNMEA(in);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error replaying " + file, e);
+        }
+        stats.finish();
+        Log.i(TAG, stats.toString());
+    }
+
+    private void replayNMEA(@NonNull InputStream in) throws IOException {
+        final NMEAFramer framer = new NMEAFramer();
+        while (running && framer.read(in) >= 0) {
+            apply(framer.batch);
+        }
+        flushEpochs();
+        Log.i(TAG, framer.toString());
+    }
+
+    /**
+     * A batch holds many epochs of a log, and the replay waits between them.
+     * Stamp each sentence when it is applied, on a clock that stops while waiting,
+     * so that waiting for recorded time never times out the open epoch.
+     */
+    @Override
+    long receivedAt(@NonNull NMEABatch batch) {
+        return System.currentTimeMillis() - pausedNanos / 1000000L;
+    }
+
+    private void replayTrack(@NonNull InputStream in) throws IOException {
+        final BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        // Parse header column
+        final CSVHeader columns = new CSVHeader(br);
+        columns.addMapping("timeMillis", "millis");
+        columns.addMapping("latitude", "lat");
+        columns.addMapping("longitude", "lon");
+        columns.addMapping("altitude_gps", "hMSL");
+        final int colSensor = columns.index("sensor");
+        final int colTime = columns.index("time");
+        final int colMillis = columns.index("millis");
+        final int colNano = columns.index("nano");
+        final int colLat = columns.index("lat");
+        final int colLon = columns.index("lon");
+        final int colAlt = columns.index("hMSL");
+        final int colVelD = columns.index("velD");
+        final int colVelN = columns.index("velN");
+        final int colVelE = columns.index("velE");
+        final int colNumSV = columns.index("numSV");
+        final int colPressure = columns.index("pressure");
+
+        // Parse data rows
+        final CSVTokenizer tokenizer = new CSVTokenizer();
+        tokenizer.reset(br);
+        while (running && tokenizer.next()) {
+            if (colSensor < 0 || colSensor >= tokenizer.size()) {
+                // FlySight, with native vertical speed
+                final long millis = tokenizer.getDate(colTime);
+                if (millis > 0) {
+                    location(millis, tokenizer, colLat, colLon, colAlt, -tokenizer.getDouble(colVelD), colVelN, colVelE, colNumSV);
+                }
+            } else if (tokenizer.equals(colSensor, "gps")) {
+                // BASEline gps measurement, climb comes from the altimeter like a live NMEA fix
+                location(tokenizer.getLong(colMillis), tokenizer, colLat, colLon, colAlt, alti.climb, colVelN, colVelE, colNumSV);
+            } else if (tokenizer.equals(colSensor, "alt")) {
+                // BASEline alti measurement
+                pressure(tokenizer.getLong(colMillis), tokenizer.getLong(colNano), (float) tokenizer.getDouble(colPressure));
+            }
+        }
+    }
+
+    private void location(long millis, @NonNull CSVTokenizer tokenizer, int colLat, int colLon, int colAlt, double climb, int colVelN, int colVelE, int colNumSV) {
+        final double lat = tokenizer.getDouble(colLat);
+        final double lon = tokenizer.getDouble(colLon);
+        if (!Double.isNaN(lat) && !Double.isNaN(lon)) {
+            updateLocation(new MLocation(
+                    millis, lat, lon, tokenizer.getDouble(colAlt), climb, tokenizer.getDouble(colVelN), tokenizer.getDouble(colVelE),
+                    Float.NaN, Float.NaN, Float.NaN, Float.NaN, (int) tokenizer.getLong(colNumSV), -1
+            ));
+        }
+    }
+
+    private void pressure(long millis, long nano, float pressure) {
+        if (pace(millis)) {
+            final long start = System.nanoTime();
+            alti.baro.updatePressure(millis, nano, pressure);
+            stats.pressure(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Fixes from both track files and NMEA epochs are paced and stamped here
+     */
+    @Override
+    void updateLocation(@NonNull MLocation loc) {
+        if (pace(loc.millis)) {
+            stats.emitted(loc.millis);
+            super.updateLocation(loc);
+        }
+    }
+
+    /**
+     * Wait until the wall time of a recorded event
+     *
+     * @return false if the replay was stopped
+     */
+    private boolean pace(long millis) {
+        if (startMillis < 0) {
+            startMillis = millis;
+            startNano = System.nanoTime();
+        } else if (speed != MAX_SPEED) {
+            final long wait = startNano + (long) ((millis - startMillis) * 1e6 / speed) - System.nanoTime();
+            if (wait > 0) {
+                final long sleepStart = System.nanoTime();
+                try {
+                    Thread.sleep(wait / 1000000L, (int) (wait % 1000000L));
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+                pausedNanos += System.nanoTime() - sleepStart;
+            }
+        }
+        return running;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        super.stop();
+    }
+
+}
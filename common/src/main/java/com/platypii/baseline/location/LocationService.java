@@ -9,9 +9,10 @@ import android.content.Context;
 import android.os.Build;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
- * Meta location provider that uses bluetooth or android location source
+ * Meta location provider that uses bluetooth or android location source, or a replay
  */
 public class LocationService extends LocationProvider implements Subscriber<MLocation> {
     private static final String TAG = "LocationService";
@@ -20,6 +21,7 @@ public class LocationService extends LocationProvider implements Subscriber<MLoc
     private static final int LOCATION_NONE = 0;
     private static final int LOCATION_ANDROID = 1;
     private static final int LOCATION_BLUETOOTH = 2;
+    private static final int LOCATION_REPLAY = 3;
     private int locationMode = LOCATION_NONE;
 
     @NonNull
@@ -32,6 +34,8 @@ public class LocationService extends LocationProvider implements Subscriber<MLoc
     private final LocationProviderAndroid locationProviderAndroid;
     @NonNull
     private final LocationProviderBluetooth locationProviderBluetooth;
+    @Nullable
+    private LocationProviderReplay locationProviderReplay;
 
     public LocationService(@NonNull BluetoothService bluetooth) {
         this.bluetooth = bluetooth;
@@ -40,6 +44,14 @@ public class LocationService extends LocationProvider implements Subscriber<MLoc
     }
 
 
+    /**
+     * Replay a recorded track instead of live gps, from the next start.
+     * Set to null to go back to live gps.
+     */
+    public void setReplay(@Nullable LocationProviderReplay replay) {
+        locationProviderReplay = replay;
+    }
+
     @Override
     public void apply(MLocation loc) {
         // Re-post location update
@@ -60,6 +72,8 @@ public class LocationService extends LocationProvider implements Subscriber<MLoc
             return Build.MANUFACTURER + " " + Build.MODEL;
         } else if (locationMode == LOCATION_BLUETOOTH) {
             return locationProviderBluetooth.dataSource();
+        } else if (locationMode == LOCATION_REPLAY && locationProviderReplay != null) {
+            return locationProviderReplay.dataSource();
         } else {
             return "None";
         }
@@ -70,22 +84,31 @@ public class LocationService extends LocationProvider implements Subscriber<MLoc
         if (locationMode != LOCATION_NONE) {
             Log.e(TAG, "Location service already started");
         }
-        if (bluetooth.preferences.preferenceEnabled) {
+        if (locationProviderReplay != null) {
+            // Subscribe before starting, since replay posts its first fix right away.
+            // Each fix is re-posted on the replay thread.
+            locationMode = LOCATION_REPLAY;
+            synchronous = true;
+            locationProviderReplay.locationUpdates.subscribe(this);
+            locationProviderReplay.start(context);
+        } else if (bluetooth.preferences.preferenceEnabled) {
             // Start bluetooth location service
             locationMode = LOCATION_BLUETOOTH;
-            locationProviderBluetooth.start(context);
             locationProviderBluetooth.locationUpdates.subscribe(this);
+            locationProviderBluetooth.start(context);
         } else {
             // Start android location service
             locationMode = LOCATION_ANDROID;
-            locationProviderAndroid.start(context);
             locationProviderAndroid.locationUpdates.subscribe(this);
+            locationProviderAndroid.start(context);
         }
     }
 
     @Override
     public long lastFixDuration() {
-        if (bluetooth.preferences.preferenceEnabled) {
+        if (locationMode == LOCATION_REPLAY && locationProviderReplay != null) {
+            return locationProviderReplay.lastFixDuration();
+        } else if (bluetooth.preferences.preferenceEnabled) {
             return locationProviderBluetooth.lastFixDuration();
         } else {
             return locationProviderAndroid.lastFixDuration();
@@ -93,7 +116,9 @@ public class LocationService extends LocationProvider implements Subscriber<MLoc
     }
 
     public float refreshRate() {
-        if (bluetooth.preferences.preferenceEnabled) {
+        if (locationMode == LOCATION_REPLAY && locationProviderReplay != null) {
+            return locationProviderReplay.refreshRate.refreshRate;
+        } else if (bluetooth.preferences.preferenceEnabled) {
             return locationProviderBluetooth.refreshRate.refreshRate;
         } else {
             return locationProviderAndroid.refreshRate.refreshRate;
@@ -127,8 +152,14 @@ public class LocationService extends LocationProvider implements Subscriber<MLoc
             // Stop bluetooth location service
             locationProviderBluetooth.locationUpdates.unsubscribe(this);
             locationProviderBluetooth.stop();
+        } else if (locationMode == LOCATION_REPLAY && locationProviderReplay != null) {
+            // Stop replay
+            locationProviderReplay.locationUpdates.unsubscribe(this);
+            locationProviderReplay.stop();
         }
         locationMode = LOCATION_NONE;
+        synchronous = false;
+        Log.i(TAG, "Location delivery " + locationUpdates.queue());
         super.stop();
     }
 
@@ -0,0 +1,98 @@
+package com.platypii.baseline.location;
+
+import androidx.annotation.NonNull;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sentences and UBX frames from one read of a GPS byte stream.
+ * Both are slices of the framer's buffer, so a batch is only valid until the next read,
+ * and must be consumed synchronously.
+ */
+public class NMEABatch {
+
+    // Time the bytes were read, in milliseconds since epoch
+    public long timestamp;
+
+    @NonNull
+    final byte[] buf;
+    @NonNull
+    private int[] starts = new int[16];
+    @NonNull
+    private int[] ends = new int[16];
+    private int size = 0;
+    @NonNull
+    private int[] ubxStarts = new int[4];
+    @NonNull
+    private int[] ubxEnds = new int[4];
+    private int ubxSize = 0;
+
+    NMEABatch(@NonNull byte[] buf) {
+        this.buf = buf;
+    }
+
+    void clear(long timestamp) {
+        this.timestamp = timestamp;
+        size = 0;
+        ubxSize = 0;
+    }
+
+    void add(int start, int end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    void addUbx(int start, int end) {
+        if (ubxSize == ubxStarts.length) {
+            ubxStarts = Arrays.copyOf(ubxStarts, ubxSize * 2);
+            ubxEnds = Arrays.copyOf(ubxEnds, ubxSize * 2);
+        }
+        ubxStarts[ubxSize] = start;
+        ubxEnds[ubxSize] = end;
+        ubxSize++;
+    }
+
+    /**
+     * Number of NMEA sentences in this batch
+     */
+    public int size() {
+        return size;
+    }
+
+    int start(int i) {
+        return starts[i];
+    }
+
+    int end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * Number of UBX frames in this batch, with valid checksums
+     */
+    public int ubxSize() {
+        return ubxSize;
+    }
+
+    int ubxStart(int i) {
+        return ubxStarts[i];
+    }
+
+    int ubxEnd(int i) {
+        return ubxEnds[i];
+    }
+
+    /**
+     * Copy of a sentence, for logging and tests
+     */
+    @NonNull
+    public String sentence(int i) {
+        return new String(buf, starts[i], ends[i] - starts[i], StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,386 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.util.Convert;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+
+/**
+ * Gathers the NMEA sentences of one fix epoch, keyed on their UTC time field,
+ * so that position, altitude and velocity of a fix always come from the same epoch.
+ *
+ * An epoch closes as soon as every sentence type expected per epoch has arrived,
+ * when a sentence with a different time arrives, or when it is older than a timeout.
+ * Expected types are learned from the stream. A type is expected as soon as it appears,
+ * and is only forgotten after it is missing from several epochs in a row.
+ * Epochs only close early once the last epoch had every expected type, so a single
+ * dropped sentence can't teach the assembler to close before that sentence arrives.
+ * Sentences without a time field (GSA, GSV, VTG) belong to the open epoch.
+ * Dilution of precision and satellite counts change slowly, and carry over between epochs.
+ */
+class NMEAEpochAssembler {
+    private static final String TAG = "NMEAEpoch";
+
+    // Sentence type bits
+    static final int GGA = 1;
+    static final int RMC = 2;
+    static final int GNS = 4;
+    static final int GSA = 8;
+    static final int GSV = 16;
+    static final int VTG = 32;
+    private static final int TYPES = 6;
+
+    // Forget an expected sentence type after it is missing from this many epochs in a row
+    static final int MISSING_EPOCHS = 3;
+
+    // Close an epoch if no other sentence closes it within this time, in phone milliseconds.
+    // Longer than a 1 Hz burst takes on a slow serial link.
+    static final long TIMEOUT = 1000;
+
+    private static final long DAY = 86400000L;
+
+    interface Listener {
+        /**
+         * Called with each closed epoch that has a valid position.
+         * The epoch is reused, so copy what you need.
+         */
+        void onEpoch(@NonNull Epoch epoch);
+    }
+
+    static class Epoch {
+        long millis; // GPS time, milliseconds since epoch
+        double latitude;
+        double longitude;
+        double altitude_gps;
+        double vN;
+        double vE;
+        float pdop;
+        float hdop;
+        float vdop;
+        int satellitesUsed;
+        int satellitesInView;
+        // Sentence types received in this epoch, and expected per epoch
+        int seen;
+        int expected;
+
+        /**
+         * Returns true if every expected sentence type arrived
+         */
+        boolean complete() {
+            return expected != 0 && (seen & expected) == expected;
+        }
+    }
+
+    @NonNull
+    private final Listener listener;
+    @NonNull
+    private final Epoch epoch = new Epoch();
+
+    // Open epoch
+    private boolean open = false;
+    private long timeOfDay; // UTC milliseconds since midnight
+    private long openedAt; // phone millis
+    private long date; // RMC date of this epoch, or 0
+
+    // Learned from closed epochs
+    private int expected = 0;
+    private final int[] missing = new int[TYPES];
+    // True if the last closed epoch had every expected type, so epochs can close early
+    private boolean confirmed = false;
+    // True if the current sentence belongs to an epoch that already closed
+    private boolean late = false;
+    private long lastDate = 0; // The number of milliseconds until the start of this day, midnight GMT
+    private long lastTimeOfDay = -1;
+
+    // Slowly changing data, carried over between epochs
+    private float pdop = Float.NaN;
+    private float hdop = Float.NaN;
+    private float vdop = Float.NaN;
+    private int satellitesInView = -1;
+    private int satellitesUsed = -1;
+
+    // Completeness stats
+    private long epochs = 0;
+    private long completeEpochs = 0;
+    private long invalidEpochs = 0;
+
+    NMEAEpochAssembler(@NonNull Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Add a validated sentence
+     *
+     * @param now phone time that the sentence was received, for timeouts
+     */
+    void add(@NonNull NMEAParser parser, long now) throws NMEAException {
+        if (open && now - openedAt > TIMEOUT) {
+            close();
+        }
+        switch (parser.command()) {
+            case NMEAParser.GGA:
+                if (parser.fields() < 11) {
+                    throw new NMEAException("Invalid GGA command");
+                }
+                // Time. At this point we have (at least) 3 choices of clock.
+                // 1) timestamp parameter, is measured in milliseconds
+                // 2) System.currentTime(), depends on how long execution takes to this point
+                // 3) GPS time, most accurate, but must be parsed carefully, since we only get milliseconds since midnight GMT
+                // field 1: Time: 123456 = 12:34:56 UTC
+                begin(parser, now);
+
+                // Fix data
+                if (open && Double.isNaN(epoch.latitude)) {
+                    epoch.latitude = parser.parseDegreesMinutes(2, 3);
+                    epoch.longitude = parser.parseDegreesMinutes(4, 5);
+                }
+                // gpsFix = parser.parseInt(6, -1); // 0 = Invalid, 1 = Valid SPS, 2 = Valid DGPS, 3 = Valid PPS
+                satellitesUsed = parser.parseInt(7, -1);
+                hdop = parser.parseFloat(8);
+                if (open && !parser.isEmpty(9) && parser.equals(10, 'M')) {
+                    epoch.altitude_gps = parser.parseDouble(9);
+                }
+                // double geoidSeparation = parser.parseDouble(11); // Geoid separation according to WGS-84 ellipsoid
+                // assert parser.equals(12, 'M') // Separation Units
+                // double dgpsAge = parser.parseDouble(13); // Age of Differential GPS Data (secs)
+                // int dgpsStationId = parser.parseInt(14, -1); // Differential Reference Station ID
+                // TODO: hAcc, vAcc, sAcc
+                seen(GGA);
+                break;
+            case NMEAParser.RMC:
+                // Recommended minimum data for gps
+                if (parser.fields() < 10) {
+                    throw new NMEAException("Invalid RMC command");
+                }
+                // field 1: Time: 123456 = 12:34:56 UTC
+                begin(parser, now);
+                if (open) {
+                    // boolean status = parser.equals(2, 'A'); // A = active, V = void
+                    epoch.latitude = parser.parseDegreesMinutes(3, 4);
+                    epoch.longitude = parser.parseDegreesMinutes(5, 6);
+                    velocity(Convert.kts2mps(parser.parseDouble(7)), parser.parseDouble(8));
+                    // fields 10, 11: 003.1,W magnetic variation
+                    // field 9: Date: 230394 = 23 March 1994
+                    date = parser.parseDate(9);
+                }
+                seen(RMC);
+                break;
+            case NMEAParser.GNS:
+                // Fixes data for single or combined (GPS, GLONASS, etc) satellite navigation systems
+                begin(parser, now);
+                if (open && Double.isNaN(epoch.latitude)) {
+                    epoch.latitude = parser.parseDegreesMinutes(2, 3);
+                    epoch.longitude = parser.parseDegreesMinutes(4, 5);
+                }
+                // modeIndicator = field 6
+                satellitesUsed = parser.parseInt(7, satellitesUsed);
+                // hdop = parser.parseFloat(8);
+                if (open && !parser.isEmpty(9)) {
+                    epoch.altitude_gps = parser.parseDouble(9);
+                    // double geoidSeparation = parser.parseDouble(10);
+                }
+                seen(GNS);
+                break;
+            case NMEAParser.GSA:
+                // Overall satellite data (DOP and active satellites)
+                // boolean autoDim = parser.equals(1, 'A'); // A = Auto 2D/3D, M = Forced 2D/3D
+                // gpsFix = parser.parseInt(2, 0); // 0 = null, 1 = No fix, 2 = 2D, 3 = 3D
+                if (parser.fields() >= 10) {
+                    // Some devices send shorter GSA sentence
+                    final int fields = parser.fields();
+                    pdop = parser.parseFloat(fields - 3);
+                    hdop = parser.parseFloat(fields - 2);
+                    vdop = parser.parseFloat(fields - 1);
+                }
+                seen(GSA);
+                break;
+            case NMEAParser.GSV:
+                // Detailed satellite data (satellites in view)
+                satellitesInView = parser.parseInt(3, -1);
+                seen(GSV);
+                break;
+            case NMEAParser.VTG:
+                // Velocity, when a receiver doesn't send RMC
+                if (open && Double.isNaN(epoch.vN)) {
+                    velocity(Convert.kts2mps(parser.parseDouble(5)), parser.parseDouble(1));
+                }
+                seen(VTG);
+                break;
+            case NMEAParser.PWR:
+                // Dual proprietary sentence for power, handled in LocationProviderBluetooth
+            case NMEAParser.GLL:
+                // latitude = parser.parseDegreesMinutes(1, 2);
+                // longitude = parser.parseDegreesMinutes(3, 4);
+                // long time = parser.parseTime(5); // 123456 = 12:34:56 UTC
+                // boolean status = parser.equals(6, 'A'); // A = active, V = void
+            case NMEAParser.ACC:
+                // $GNACCURACY,0.8*1E is too long to pack, and lands in default
+            case NMEAParser.ATT:
+                // $GPATT,45.781233,10.862333,1796.3,45.0,2.6,2.6,*72
+                // $GPATT,lat,lon,alt,bear?,???,???
+            case NMEAParser.GLG:
+                // $GPGLG,VER2,GNSS,130616,171913.0,85,4737.550964,N,12219.566617,W,96.0,38.5,2.0,0.0,13.0,TP,Seoul,,,15,3,,*5C
+                // $GPGLG,version,provider,???,???,???,lat,lat,lon,lon,...
+            case NMEAParser.GRS:
+                // Bluetooth:
+                // $GNGRS,153238.10,1,2.7,0.1,-8.4,-18.5,8.6,2.1,12.3,,,,,*78
+            case NMEAParser.GST:
+                // $GNGST,183132.000,6.1,15,11,76,11,15,32
+                // field 2: RMS value of the standard deviation of the range inputs to the navigation process. Range inputs include preudoranges & DGNSS corrections.
+                // field 3: Stdev of semi-major axis of error ellipse (meters)
+                // field 4: Stdev of semi-minor axis of error ellipse (meters)
+                // field 5: Orientation of semi-major axis of error ellipse (degrees from true north)
+                // field 6: Stdev of latitude error (meters)
+                // field 7: Stdev of longitude error (meters)
+                // field 8: Stdev of altitude error (meters)
+                break;
+            default:
+                // Log.d(TAG, "Unknown NMEA command: " + parser);
+        }
+    }
+
+    /**
+     * Start a new epoch if the time field changed
+     */
+    private void begin(@NonNull NMEAParser parser, long now) {
+        late = false;
+        if (parser.isEmpty(1)) return;
+        final long time = parser.parseTime(1);
+        if (open && time != timeOfDay) {
+            close();
+        }
+        if (!open && time == lastTimeOfDay) {
+            // Late sentence from an epoch that already closed
+            late = true;
+            return;
+        }
+        if (!open) {
+            open = true;
+            timeOfDay = time;
+            openedAt = now;
+            date = 0;
+            epoch.latitude = Double.NaN;
+            epoch.longitude = Double.NaN;
+            epoch.altitude_gps = Double.NaN;
+            epoch.vN = Double.NaN;
+            epoch.vE = Double.NaN;
+            epoch.seen = 0;
+            epoch.expected = expected;
+        }
+    }
+
+    private void velocity(double groundSpeed, double bearing) {
+        epoch.vN = groundSpeed * Math.cos(Math.toRadians(bearing));
+        epoch.vE = groundSpeed * Math.sin(Math.toRadians(bearing));
+    }
+
+    /**
+     * Mark a sentence type as received, and close the epoch if it's complete
+     */
+    private void seen(int type) {
+        if (open) {
+            epoch.seen |= type;
+            if (confirmed && epoch.complete()) {
+                close();
+            }
+        } else if (late) {
+            // Epoch closed too soon, wait for every type next time
+            late = false;
+            expect(type);
+            confirmed = false;
+        }
+    }
+
+    private void expect(int type) {
+        expected |= type;
+        missing[Integer.numberOfTrailingZeros(type)] = 0;
+    }
+
+    /**
+     * Close the open epoch, if any
+     */
+    void flush() {
+        if (open) {
+            close();
+        }
+    }
+
+    private void close() {
+        open = false;
+        // Learn which sentence types arrive every epoch
+        confirmed = epoch.complete();
+        for (int i = 0; i < TYPES; i++) {
+            final int type = 1 << i;
+            if ((epoch.seen & type) != 0) {
+                expect(type);
+            } else if ((expected & type) != 0 && ++missing[i] >= MISSING_EPOCHS) {
+                expected &= ~type;
+            }
+        }
+
+        epoch.millis = resolveDate(openedAt) + timeOfDay;
+        epoch.pdop = pdop;
+        epoch.hdop = hdop;
+        epoch.vdop = vdop;
+        epoch.satellitesUsed = satellitesUsed;
+        epoch.satellitesInView = satellitesInView;
+
+        // Sanity checks
+        final int locationError = LocationCheck.validate(epoch.latitude, epoch.longitude);
+        if (locationError == LocationCheck.VALID) {
+            epochs++;
+            if (epoch.complete()) completeEpochs++;
+            listener.onEpoch(epoch);
+        } else {
+            invalidEpochs++;
+            Log.w(TAG, LocationCheck.message[locationError] + ": " + epoch.latitude + "," + epoch.longitude);
+        }
+    }
+
+    /**
+     * Midnight UTC of the open epoch, in milliseconds since epoch.
+     * Uses the RMC date if there was one, otherwise the last date, otherwise the phone date.
+     */
+    private long resolveDate(long phoneMillis) {
+        if (date > 0) {
+            lastDate = date;
+        } else if (lastDate > 0) {
+            // Without a date, roll over at midnight
+            if (timeOfDay < lastTimeOfDay - DAY / 2) {
+                lastDate += DAY;
+            }
+        } else {
+            // Phone date, unless it's on the other side of midnight
+            final long phoneTimeOfDay = phoneMillis % DAY;
+            lastDate = phoneMillis - phoneTimeOfDay;
+            if (timeOfDay > phoneTimeOfDay + DAY / 2) {
+                lastDate -= DAY;
+            } else if (timeOfDay < phoneTimeOfDay - DAY / 2) {
+                lastDate += DAY;
+            }
+        }
+        lastTimeOfDay = timeOfDay;
+        return lastDate;
+    }
+
+    /**
+     * Number of epochs emitted
+     */
+    long epochs() {
+        return epochs;
+    }
+
+    /**
+     * Number of epochs emitted with every expected sentence type
+     */
+    long completeEpochs() {
+        return completeEpochs;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "NMEAEpochAssembler(epochs=" + epochs + " complete=" + completeEpochs + " invalid=" + invalidEpochs + " expected=" + Integer.toBinaryString(expected) + ")";
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.platypii.baseline.location;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Frames NMEA sentences directly from the bytes of a stream, without decoding lines into strings.
+ * Each read produces a batch of sentence slices into a reusable buffer.
+ *
+ * Sentences start at $ and end at a line break or any other control char.
+ * A $ in the middle of a sentence starts a new sentence, to recover from missing line breaks.
+ * Bytes outside of a sentence, non-ascii bytes, and overlong sentences are dropped as line noise.
+ * Sentences are not validated here, that is left to the parser.
+ *
+ * Binary UBX frames may be interleaved with sentences, and are framed by their length.
+ * UBX frames are only added to the batch if their checksum is valid, otherwise framing resumes
+ * from the byte after the sync char.
+ */
+public class NMEAFramer {
+
+    static final int BUFFER_SIZE = 4096;
+    // Spec says 82, but some receivers send longer proprietary sentences
+    static final int MAX_SENTENCE = 512;
+
+    // A partial sentence is moved to the front after each read, so that sentences are contiguous
+    @NonNull
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private int limit = 0;
+    // Start of the sentence in progress, or -1 if between sentences
+    private int sentenceStart = -1;
+    // Start of the UBX frame in progress, or -1
+    private int ubxStart = -1;
+
+    @NonNull
+    public final NMEABatch batch = new NMEABatch(buf);
+
+    // Stream health
+    private long sentences = 0;
+    private long noiseBytes = 0;
+    private long missingBreaks = 0;
+    private long ubxFrames = 0;
+
+    /**
+     * Read once from the stream, and frame complete sentences into batch
+     *
+     * @return number of bytes read, or -1 at end of stream
+     */
+    public int read(@NonNull InputStream in) throws IOException {
+        compact();
+        final int count = in.read(buf, limit, buf.length - limit);
+        batch.clear(System.currentTimeMillis());
+        if (count > 0) {
+            frame(limit, limit + count);
+            limit += count;
+        }
+        return count;
+    }
+
+    /**
+     * Discard framed bytes, keeping the sentence in progress
+     */
+    private void compact() {
+        final int keep = ubxStart >= 0 ? ubxStart : sentenceStart;
+        if (keep < 0) {
+            limit = 0;
+        } else if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            limit -= keep;
+            if (ubxStart >= 0) ubxStart = 0;
+            if (sentenceStart >= 0) sentenceStart = 0;
+        }
+    }
+
+    private void frame(int from, int to) {
+        int i = from;
+        while (i < to) {
+            if (ubxStart >= 0) {
+                i = frameUbx(to);
+                continue;
+            }
+            final byte b = buf[i];
+            if (b == '$') {
+                if (sentenceStart >= 0) {
+                    missingBreaks++;
+                    emit(i);
+                }
+                sentenceStart = i;
+            } else if (0 <= b && b < ' ') {
+                // Line break, or other control char
+                if (sentenceStart >= 0) {
+                    emit(i);
+                    sentenceStart = -1;
+                }
+            } else if (sentenceStart < 0) {
+                if (b == UBX.SYNC1) {
+                    ubxStart = i;
+                } else {
+                    noiseBytes++;
+                }
+            } else if (b < 0 || i - sentenceStart >= MAX_SENTENCE) {
+                // Non-ascii or runaway sentence, resync on the next $
+                noiseBytes += i - sentenceStart;
+                sentenceStart = -1;
+                if (b == UBX.SYNC1) {
+                    ubxStart = i;
+                } else {
+                    noiseBytes++;
+                }
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Continue the UBX frame in progress
+     *
+     * @return the next index to frame from
+     */
+    private int frameUbx(int to) {
+        // Wait for sync, class, id and length
+        if (ubxStart + 1 < to && buf[ubxStart + 1] != UBX.SYNC2) {
+            return notUbx();
+        }
+        if (to < ubxStart + UBX.HEADER) {
+            return to;
+        }
+        final int length = UBX.payloadLength(buf, ubxStart);
+        if (length > UBX.MAX_PAYLOAD) {
+            return notUbx();
+        }
+        final int end = ubxStart + UBX.HEADER + length + UBX.CHECKSUM;
+        if (to < end) {
+            return to;
+        }
+        if (!UBX.checksum(buf, ubxStart, end)) {
+            return notUbx();
+        }
+        batch.addUbx(ubxStart, end);
+        ubxFrames++;
+        ubxStart = -1;
+        return end;
+    }
+
+    /**
+     * Sync char was line noise, frame again from the next byte
+     */
+    private int notUbx() {
+        noiseBytes++;
+        final int next = ubxStart + 1;
+        ubxStart = -1;
+        return next;
+    }
+
+    private void emit(int end) {
+        if (end - sentenceStart > 1) {
+            batch.add(sentenceStart, end);
+            sentences++;
+        }
+    }
+
+    /**
+     * Number of sentences framed
+     */
+    public long sentences() {
+        return sentences;
+    }
+
+    /**
+     * Number of bytes dropped as line noise
+     */
+    public long noiseBytes() {
+        return noiseBytes;
+    }
+
+    /**
+     * Number of sentences that started before the previous one ended
+     */
+    public long missingBreaks() {
+        return missingBreaks;
+    }
+
+    /**
+     * Number of UBX frames with valid checksums
+     */
+    public long ubxFrames() {
+        return ubxFrames;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "NMEAFramer(sentences=" + sentences + " noise=" + noiseBytes + " missingBreaks=" + missingBreaks + " ubx=" + ubxFrames + ")";
+    }
+
+}
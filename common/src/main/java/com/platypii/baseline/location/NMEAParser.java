@@ -0,0 +1,423 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.util.Exceptions;
+import com.platypii.baseline.util.Numbers;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reusable NMEA sentence parser.
+ * Sentences are copied into a char buffer, validated, and split into field offsets.
+ * Fields are then parsed in place by index, so a sentence is parsed without allocating.
+ * Not thread safe, use one parser per stream.
+ */
+public class NMEAParser {
+    private static final String TAG = "NMEAParser";
+
+    // Commands packed into ints, so that dispatch is a switch on int
+    static final int ACC = ('A' << 16) | ('C' << 8) | 'C';
+    static final int ATT = ('A' << 16) | ('T' << 8) | 'T';
+    static final int GGA = ('G' << 16) | ('G' << 8) | 'A';
+    static final int GLG = ('G' << 16) | ('L' << 8) | 'G';
+    static final int GLL = ('G' << 16) | ('L' << 8) | 'L';
+    static final int GNS = ('G' << 16) | ('N' << 8) | 'S';
+    static final int GRS = ('G' << 16) | ('R' << 8) | 'S';
+    static final int GSA = ('G' << 16) | ('S' << 8) | 'A';
+    static final int GST = ('G' << 16) | ('S' << 8) | 'T';
+    static final int GSV = ('G' << 16) | ('S' << 8) | 'V';
+    static final int PWR = ('P' << 16) | ('W' << 8) | 'R';
+    static final int RMC = ('R' << 16) | ('M' << 8) | 'C';
+    static final int VTG = ('V' << 16) | ('T' << 8) | 'G';
+    /** Commands longer than four chars don't pack */
+    static final int UNKNOWN = 0;
+
+    @NonNull
+    private char[] buf = new char[128];
+    private int length = 0;
+
+    // Field i is buf[starts[i], ends[i]), not including the checksum
+    @NonNull
+    private int[] starts = new int[32];
+    @NonNull
+    private int[] ends = new int[32];
+    private int fields = 0;
+
+    private int talker = 0;
+    private int command = UNKNOWN;
+
+    // Date only changes at midnight, so cache the last one
+    private final char[] cachedDate = new char[6];
+    private long cachedDateMillis = -1;
+
+    /**
+     * Load and validate a sentence
+     *
+     * @return true if the sentence is well formed with a valid checksum
+     */
+    public boolean parse(@NonNull CharSequence str) {
+        return load(str, 0, str.length()) && validate();
+    }
+
+    /**
+     * Load a sentence from a slice of a string, and split it into fields without validating.
+     * Anything before $ and trailing whitespace is ignored.
+     *
+     * @return true if a sentence was found
+     */
+    public boolean load(@NonNull CharSequence str, int start, int end) {
+        start = skipToDollar(str, start, end);
+        while (end > start && str.charAt(end - 1) <= ' ') end--;
+        length = Math.max(0, end - start);
+        ensureCapacity(length);
+        if (str instanceof String) {
+            ((String) str).getChars(start, start + length, buf, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buf[i] = str.charAt(start + i);
+            }
+        }
+        return split();
+    }
+
+    /**
+     * Load an ascii sentence from a slice of a byte buffer, and split it into fields without validating
+     *
+     * @return true if a sentence was found
+     */
+    public boolean load(@NonNull byte[] bytes, int start, int end) {
+        while (start < end && bytes[start] != '$') start++;
+        while (end > start && (bytes[end - 1] & 0xff) <= ' ') end--;
+        length = end - start;
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buf[i] = (char) (bytes[start + i] & 0xff);
+        }
+        return split();
+    }
+
+    private static int skipToDollar(@NonNull CharSequence str, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (str.charAt(i) == '$') return i;
+        }
+        return end;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buf.length < capacity) {
+            buf = new char[Math.max(capacity, buf.length * 2)];
+        }
+    }
+
+    /**
+     * Find field offsets, and pack the talker and command from the first field
+     */
+    private boolean split() {
+        fields = 0;
+        talker = 0;
+        command = UNKNOWN;
+        if (length == 0) return false;
+        // Strip checksum
+        int bodyEnd = length;
+        final int star = lastIndexOf('*');
+        if (star > 0) bodyEnd = star;
+        int fieldStart = 0;
+        for (int i = 0; i <= bodyEnd; i++) {
+            if (i == bodyEnd || buf[i] == ',') {
+                if (fields == starts.length) {
+                    starts = Arrays.copyOf(starts, fields * 2);
+                    ends = Arrays.copyOf(ends, fields * 2);
+                }
+                starts[fields] = fieldStart;
+                ends[fields] = i;
+                fields++;
+                fieldStart = i + 1;
+            }
+        }
+        // $TTCCC: two char talker, then command
+        final int end0 = ends[0];
+        if (buf[0] == '$' && end0 >= 3) {
+            talker = (buf[1] << 8) | buf[2];
+            if (end0 - 3 <= 4) {
+                for (int i = 3; i < end0; i++) {
+                    command = (command << 8) | (buf[i] & 0xff);
+                }
+            }
+        }
+        return true;
+    }
+
+    private int lastIndexOf(char c) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buf[i] == c) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the loaded sentence checksum is valid.
+     * Logs errors for invalid sentences.
+     */
+    public boolean validate() {
+        final int starIndex = lastIndexOf('*');
+        // Ensure that:
+        // - string is long enough
+        // - starts with $
+        // - ends with checksum
+        if (length < 8 || buf[0] != '$' || starIndex != length - 3) {
+            Log.e(TAG, "Invalid NMEA sentence: " + this);
+            return false;
+        }
+        // Special commands that don't checksum
+        if (buf[length - 2] == '0' && buf[length - 1] == '0' && (startsWith("$AIDSTAT") || startsWith("$ENGINESTATE"))) {
+            return false;
+        }
+
+        // Compute checksum
+        int checksum1 = 0;
+        for (int i = 1; i < starIndex; i++) {
+            checksum1 ^= buf[i];
+        }
+        final int hi = Character.digit(buf[length - 2], 16);
+        final int lo = Character.digit(buf[length - 1], 16);
+        final int checksum2 = hi < 0 || lo < 0 ? -1 : (hi << 4) | lo;
+        if (checksum1 != checksum2) {
+            Log.e(TAG, String.format(Locale.US, "Invalid NMEA checksum: %02X != %s for sentence: %s", checksum1, new String(buf, length - 2, 2), this));
+            return false;
+        }
+        return true;
+    }
+
+    private boolean startsWith(@NonNull String prefix) {
+        if (length < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf[i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Length of the loaded sentence, including checksum
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Number of comma separated fields, including the $TTCCC field
+     */
+    public int fields() {
+        return fields;
+    }
+
+    /**
+     * Two char talker id packed into an int, for example GP or GN
+     */
+    public int talker() {
+        return talker;
+    }
+
+    /**
+     * Command packed into an int, or UNKNOWN
+     */
+    public int command() {
+        return command;
+    }
+
+    /**
+     * Pack a command into an int, for comparing with command()
+     */
+    static int pack(char a, char b, char c) {
+        return (a << 16) | (b << 8) | c;
+    }
+
+    /**
+     * Returns true if the field is missing or empty
+     */
+    public boolean isEmpty(int field) {
+        return field >= fields || starts[field] == ends[field];
+    }
+
+    /**
+     * Returns true if the field is exactly one char c
+     */
+    public boolean equals(int field, char c) {
+        return field < fields && ends[field] - starts[field] == 1 && buf[starts[field]] == c;
+    }
+
+    /**
+     * Parse a field as a double, NaN if missing or invalid
+     */
+    public double parseDouble(int field) {
+        if (isEmpty(field)) return Double.NaN;
+        return Numbers.parseDouble(buf, starts[field], ends[field]);
+    }
+
+    /**
+     * Parse a field as a float, NaN if missing or invalid
+     */
+    public float parseFloat(int field) {
+        return (float) parseDouble(field);
+    }
+
+    /**
+     * Parse a field as a signed decimal int, or defaultValue if missing or invalid
+     */
+    public int parseInt(int field, int defaultValue) {
+        if (isEmpty(field)) return defaultValue;
+        int start = starts[field];
+        final boolean negative = buf[start] == '-';
+        if (negative || buf[start] == '+') start++;
+        final int value = Numbers.parseDigits(buf, start, ends[field]);
+        if (value < 0) return defaultValue;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse a field as unsigned hexadecimal, or -1 if missing or invalid
+     */
+    public int parseHex(int field) {
+        if (isEmpty(field) || ends[field] - starts[field] > 7) return -1;
+        int value = 0;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            final int digit = Character.digit(buf[i], 16);
+            if (digit < 0) return -1;
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Parse DDDMM.MMMM,N fields into decimal degrees
+     *
+     * @param field The latitude or longitude in "DDDMM.MMMM" format
+     * @param nsew The field with modifier "N", "S", "E", or "W"
+     * @return The latitude or longitude in decimal degrees, NaN if missing or invalid
+     */
+    public double parseDegreesMinutes(int field, int nsew) {
+        if (isEmpty(field)) return Double.NaN;
+        final int start = starts[field];
+        final int end = ends[field];
+        int dot = start;
+        while (dot < end && buf[dot] != '.') dot++;
+        final int index = dot - 2;
+        if (dot == end || index < start) {
+            Exceptions.report(new NMEAException("NMEA lat/lon parse error missing decimal: " + field(field)));
+            return Double.NaN;
+        }
+        final double m = Numbers.parseDouble(buf, index, end);
+        final int d = (index == start) ? 0 : Numbers.parseDigits(buf, start, index);
+        if (Double.isNaN(m) || d < 0) {
+            Exceptions.report(new NMEAException("NMEA lat/lon parse error: " + field(field)));
+            return Double.NaN;
+        }
+        final double degrees = d + m / 60.0;
+        if (equals(nsew, 'S') || equals(nsew, 's') || equals(nsew, 'W') || equals(nsew, 'w')) {
+            return -degrees;
+        } else {
+            return degrees;
+        }
+    }
+
+    /**
+     * Parse a HHMMSS.SS UTC time field into milliseconds since midnight, 0 if missing or invalid
+     */
+    public long parseTime(int field) {
+        if (isEmpty(field)) return 0;
+        final int start = starts[field];
+        final int end = ends[field];
+        if (end - start < 6) {
+            Log.e(TAG, "Time format error " + field(field));
+            return 0;
+        }
+        if (end - start > 6 && buf[start + 6] != '.') {
+            Log.e(TAG, "Time format error " + field(field));
+        }
+        final long hour = Numbers.parseDigits(buf, start, start + 2);
+        final long min = Numbers.parseDigits(buf, start + 2, start + 4);
+        final long sec = Numbers.parseDigits(buf, start + 4, start + 6);
+        final double fraction = end - start == 6 ? 0 : Numbers.parseDouble(buf, start + 6, end);
+        if (hour < 0 || min < 0 || sec < 0 || Double.isNaN(fraction)) {
+            return 0;
+        }
+        final long ms = (long) (1000 * fraction);
+        return hour * 3600000 + min * 60000 + sec * 1000 + ms;
+    }
+
+    /**
+     * Parse a DDMMYY date field into milliseconds since epoch, 0 if missing or invalid
+     */
+    public long parseDate(int field) {
+        if (isEmpty(field)) return 0;
+        final int start = starts[field];
+        if (ends[field] - start != 6) {
+            Log.e(TAG, "Date format error " + field(field));
+            return 0;
+        }
+        if (cachedDateMillis >= 0 && sameDate(start)) {
+            return cachedDateMillis;
+        }
+        final int day = Numbers.parseDigits(buf, start, start + 2);
+        final int month = Numbers.parseDigits(buf, start + 2, start + 4);
+        final int year = Numbers.parseDigits(buf, start + 4, start + 6);
+        if (day < 0 || month < 0 || year < 0) {
+            Log.e(TAG, "Date format error " + field(field));
+            return 0;
+        }
+        System.arraycopy(buf, start, cachedDate, 0, 6);
+        cachedDateMillis = NMEA.dateMillis(day, month, year);
+        return cachedDateMillis;
+    }
+
+    private boolean sameDate(int start) {
+        for (int i = 0; i < 6; i++) {
+            if (buf[start + i] != cachedDate[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Convert Dual XGPS voltage in a GPPWR sentence into battery level %.
+     * Inspired by code from XGPS160API.m
+     * TODO: Voltage not valid while charging
+     *
+     * Dual proprietary sentence for battery level:
+     * $GPPWR,04C3,0,0,0,0,00,0,0,97, 1 9 ,S00 // not charging 04C3 = 1219 = ~70%
+     * $GPPWR,0501,1,0,1,1,00,0,0,97, 1 9 ,S00 // charging
+     */
+    public float parsePowerLevel() {
+        if (command != PWR) {
+            Exceptions.report(new IllegalStateException("Parse power level should only be called on GPPWR"));
+        }
+        final int voltage = parseHex(1);
+        if (voltage < 0) {
+            Exceptions.report(new NMEAException("NMEA power level parse error: " + this));
+            return Float.NaN;
+        }
+        // Voltage ranges from 1100 to 1280
+        final float batteryLevel = (voltage - 1091) / (1280f - 1091f);
+        // Restrict range from 0 to 100%
+        return Math.max(0f, Math.min(batteryLevel, 1f));
+    }
+
+    /**
+     * Copy of a field, for error messages
+     */
+    @NonNull
+    private String field(int field) {
+        if (field >= fields) return "";
+        return new String(buf, starts[field], ends[field] - starts[field]);
+    }
+
+    /**
+     * Copy of the loaded sentence, for error messages
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        return new String(buf, 0, length);
+    }
+
+}
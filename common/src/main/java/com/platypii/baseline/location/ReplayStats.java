@@ -0,0 +1,247 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.PubSub.Subscriber;
+import com.platypii.baseline.util.Stat;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Throughput and per-stage latency of a replay through the location pipeline.
+ * The replay stamps each fix as it is emitted. Each stage counts the fixes delivered to it, and
+ * measures the delay until it receives each fix and how long its component takes to handle it.
+ * Throughput only counts fixes that made it through the slowest stage.
+ * Latencies are in microseconds.
+ */
+public class ReplayStats {
+
+    // Fixes remembered for matching, must cover the fixes in flight between stages
+    private static final int HISTORY = 1024;
+
+    private final long[] emitMillis = new long[HISTORY];
+    private final long[] emitNanos = new long[HISTORY];
+    private long fixes = 0;
+    private long pressures = 0;
+    private final Stat pressureService = new Stat();
+    private long startNano = 0;
+    private long finishNano = 0;
+
+    @NonNull
+    private final List<Stage> stages = new ArrayList<>();
+
+    synchronized void start() {
+        fixes = 0;
+        pressures = 0;
+        startNano = finishNano = System.nanoTime();
+    }
+
+    synchronized void finish() {
+        finishNano = System.nanoTime();
+    }
+
+    /**
+     * Stamp a fix as it leaves the replay
+     */
+    synchronized void emitted(long millis) {
+        final int i = (int) (fixes % HISTORY);
+        emitMillis[i] = millis;
+        emitNanos[i] = System.nanoTime();
+        fixes++;
+    }
+
+    /**
+     * Record the time the altimeter took to handle a pressure event
+     */
+    synchronized void pressure(long nanos) {
+        pressures++;
+        pressureService.addSample(nanos * 1e-3);
+    }
+
+    /**
+     * Emit time of a fix, or -1 if it is too old to remember
+     */
+    private long emitNano(long millis) {
+        for (long n = fixes - 1; n >= 0 && n >= fixes - HISTORY; n--) {
+            final int i = (int) (n % HISTORY);
+            if (emitMillis[i] == millis) {
+                return emitNanos[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Measure a stage of the pipeline.
+     * Subscribe the stage in place of the component, and it will pass each fix on.
+     *
+     * @param component the subscriber to measure, or null to only measure delivery
+     */
+    @NonNull
+    public synchronized Stage stage(@NonNull String name, @Nullable Subscriber<MLocation> component) {
+        final Stage stage = new Stage(name, component);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Wait until every stage has received every fix
+     *
+     * @return false if a stage is still behind after the timeout, such as when fixes were dropped
+     */
+    public synchronized boolean await(long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (behind()) {
+            final long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    private boolean behind() {
+        for (Stage stage : stages) {
+            if (stage.count < fixes) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Number of fixes emitted by the replay
+     */
+    public synchronized long fixes() {
+        return fixes;
+    }
+
+    /**
+     * Number of pressure events fed to the altimeter
+     */
+    public synchronized long pressures() {
+        return pressures;
+    }
+
+    public class Stage implements Subscriber<MLocation> {
+        @NonNull
+        public final String name;
+        @Nullable
+        private final Subscriber<MLocation> component;
+
+        private long count = 0;
+        private long lastNano = 0;
+        private final Stat latency = new Stat();
+        private double maxLatency = 0;
+        private final Stat service = new Stat();
+
+        private Stage(@NonNull String name, @Nullable Subscriber<MLocation> component) {
+            this.name = name;
+            this.component = component;
+        }
+
+        @Override
+        public void apply(@NonNull MLocation loc) {
+            final long received = System.nanoTime();
+            if (component != null) {
+                component.apply(loc);
+            }
+            final long done = System.nanoTime();
+            synchronized (ReplayStats.this) {
+                final long emitted = emitNano(loc.millis);
+                if (emitted >= 0) {
+                    final double micros = (received - emitted) * 1e-3;
+                    latency.addSample(micros);
+                    if (micros > maxLatency) maxLatency = micros;
+                }
+                service.addSample((done - received) * 1e-3);
+                lastNano = done;
+                count++;
+                ReplayStats.this.notifyAll();
+            }
+        }
+
+        /**
+         * Number of fixes received by this stage
+         */
+        public long count() {
+            synchronized (ReplayStats.this) {
+                return count;
+            }
+        }
+
+        /**
+         * Number of emitted fixes this stage has not received
+         */
+        public long dropped() {
+            synchronized (ReplayStats.this) {
+                return fixes - count;
+            }
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            synchronized (ReplayStats.this) {
+                return String.format(Locale.US, "%s: delivered %d dropped %d, latency %s max %.0f us, service %s us", name, count, fixes - count, format(latency), maxLatency, format(service));
+            }
+        }
+    }
+
+    /**
+     * Fixes delivered through every stage, per second
+     */
+    public synchronized double throughput() {
+        return delivered() / seconds();
+    }
+
+    /**
+     * Fixes received by the slowest stage, or emitted if no stage is measured
+     */
+    private long delivered() {
+        long delivered = fixes;
+        for (Stage stage : stages) {
+            delivered = Math.min(delivered, stage.count);
+        }
+        return delivered;
+    }
+
+    /**
+     * Time from the first emit until the last stage received its last fix
+     */
+    private double seconds() {
+        long endNano = finishNano;
+        for (Stage stage : stages) {
+            endNano = Math.max(endNano, stage.lastNano);
+        }
+        return (endNano - startNano) * 1e-9;
+    }
+
+    /**
+     * Throughput of the whole pipeline, then each stage
+     */
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        final double seconds = seconds();
+        final long delivered = delivered();
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "Replay %d fixes, %d delivered, %d pressure in %.3f s: %.0f fixes/s, %.0f pressure/s", fixes, delivered, pressures, seconds, delivered / seconds, pressures / seconds));
+        sb.append(String.format(Locale.US, "\n  Baro: service %s us", format(pressureService)));
+        for (Stage stage : stages) {
+            sb.append("\n  ").append(stage);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Mean and standard deviation
+     */
+    @NonNull
+    private static String format(@NonNull Stat stat) {
+        return String.format(Locale.US, "%.1f ± %.1f", stat.mean(), Math.sqrt(stat.var()));
+    }
+
+}
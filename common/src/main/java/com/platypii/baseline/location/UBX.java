@@ -0,0 +1,127 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.Dates;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * u-blox UBX binary protocol decoding functions.
+ *
+ * Frame: 0xB5 0x62, class, id, little endian u16 payload length, payload, Fletcher checksum ck_a ck_b.
+ */
+public class UBX {
+    private static final String TAG = "UBX";
+
+    static final byte SYNC1 = (byte) 0xb5;
+    static final byte SYNC2 = 0x62;
+    static final int HEADER = 6;
+    static final int CHECKSUM = 2;
+    // Larger than any navigation message, anything longer is line noise
+    static final int MAX_PAYLOAD = 1024;
+
+    static final int NAV = 0x01;
+    static final int NAV_PVT = 0x07;
+    static final int NAV_PVT_LENGTH = 92;
+
+    // NAV-PVT flags
+    private static final int VALID_DATE = 0x01;
+    private static final int VALID_TIME = 0x02;
+    private static final int GNSS_FIX_OK = 0x01;
+    private static final int INVALID_LLH = 0x01;
+
+    /**
+     * Payload length from a frame header
+     */
+    static int payloadLength(@NonNull byte[] buf, int start) {
+        return u2(buf, start + 4);
+    }
+
+    /**
+     * Returns true if the Fletcher checksum over class, id, length and payload matches
+     */
+    static boolean checksum(@NonNull byte[] buf, int start, int end) {
+        int ckA = 0;
+        int ckB = 0;
+        for (int i = start + 2; i < end - CHECKSUM; i++) {
+            ckA = (ckA + buf[i]) & 0xff;
+            ckB = (ckB + ckA) & 0xff;
+        }
+        return ckA == (buf[end - 2] & 0xff) && ckB == (buf[end - 1] & 0xff);
+    }
+
+    /**
+     * Returns true if the frame is a NAV-PVT message
+     */
+    static boolean isNavPvt(@NonNull byte[] buf, int start, int end) {
+        return buf[start + 2] == NAV && buf[start + 3] == NAV_PVT && end - start == HEADER + NAV_PVT_LENGTH + CHECKSUM;
+    }
+
+    /**
+     * Parse a NAV-PVT frame into a location, with native vertical speed and accuracy estimates
+     *
+     * @return the location, or null if the receiver has no valid fix
+     */
+    @Nullable
+    static MLocation parseNavPvt(@NonNull byte[] buf, int start, int end) {
+        if (!isNavPvt(buf, start, end)) {
+            Log.e(TAG, "Not a NAV-PVT frame");
+            return null;
+        }
+        final int p = start + HEADER;
+        final int valid = buf[p + 11];
+        final int fixType = buf[p + 20];
+        final int flags = buf[p + 21];
+        final int flags3 = buf[p + 78];
+        // 2D, 3D, or GNSS + dead reckoning
+        if ((flags & GNSS_FIX_OK) == 0 || fixType < 2 || fixType > 4 || (flags3 & INVALID_LLH) != 0) {
+            return null;
+        }
+        if ((valid & (VALID_DATE | VALID_TIME)) != (VALID_DATE | VALID_TIME)) {
+            return null;
+        }
+
+        // UTC time
+        final long day = Dates.dayMillis(u2(buf, p + 4), buf[p + 6], buf[p + 7]);
+        final long seconds = buf[p + 8] * 3600L + buf[p + 9] * 60L + buf[p + 10];
+        final long millis = day + seconds * 1000L + Math.round(i4(buf, p + 16) * 1e-6);
+
+        final double longitude = i4(buf, p + 24) * 1e-7;
+        final double latitude = i4(buf, p + 28) * 1e-7;
+        final int locationError = LocationCheck.validate(latitude, longitude);
+        if (locationError != LocationCheck.VALID) {
+            Log.w(TAG, LocationCheck.message[locationError] + ": " + latitude + "," + longitude);
+            return null;
+        }
+        final double altitude_gps = i4(buf, p + 36) * 0.001; // hMSL
+        final double vN = i4(buf, p + 48) * 0.001;
+        final double vE = i4(buf, p + 52) * 0.001;
+        final double climb = i4(buf, p + 56) * -0.001; // velD
+        final float hAcc = u4(buf, p + 40) * 0.001f;
+        final float pdop = u2(buf, p + 76) * 0.01f;
+        final int satellitesUsed = buf[p + 23] & 0xff;
+
+        final MLocation loc = new MLocation(
+                millis, latitude, longitude, altitude_gps, climb, vN, vE,
+                hAcc, pdop, Float.NaN, Float.NaN, satellitesUsed, -1
+        );
+        loc.vAcc = u4(buf, p + 44) * 0.001f;
+        loc.sAcc = u4(buf, p + 68) * 0.001f;
+        return loc;
+    }
+
+    private static int u2(@NonNull byte[] buf, int i) {
+        return (buf[i] & 0xff) | (buf[i + 1] & 0xff) << 8;
+    }
+
+    private static int i4(@NonNull byte[] buf, int i) {
+        return (buf[i] & 0xff) | (buf[i + 1] & 0xff) << 8 | (buf[i + 2] & 0xff) << 16 | buf[i + 3] << 24;
+    }
+
+    private static long u4(@NonNull byte[] buf, int i) {
+        return i4(buf, i) & 0xffffffffL;
+    }
+
+}
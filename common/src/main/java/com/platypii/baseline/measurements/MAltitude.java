@@ -19,10 +19,8 @@ public class MAltitude extends Measurement {
         this.climb = climb;
     }
 
-    @NonNull
     @Override
-    public String toRow() {
-        return "";
+    public void appendRow(@NonNull StringBuilder sb) {
     }
 
     @NonNull
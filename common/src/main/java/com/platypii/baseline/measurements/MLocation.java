@@ -5,6 +5,7 @@ import com.platypii.baseline.location.LocationCheck;
 import com.platypii.baseline.location.NMEAException;
 import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.StringBuilderUtil;
 
 import android.util.Log;
 import androidx.annotation.NonNull;
@@ -21,11 +22,11 @@ public class MLocation extends Measurement implements Comparable<MLocation> {
     public final double latitude; // Latitude
     public final double longitude; // Longitude
     public final double altitude_gps; // GPS altitude MSL
-    private final double vN; // Velocity north
-    private final double vE; // Velocity east
+    public final double vN; // Velocity north
+    public final double vE; // Velocity east
     public float hAcc = Float.NaN; // Horizontal accuracy
-    //public float vAcc = Float.NaN; // Vertical accuracy
-    //public float sAcc = Float.NaN; // Speed accuracy
+    public float vAcc = Float.NaN; // Vertical accuracy
+    public float sAcc = Float.NaN; // Speed accuracy
     public final float pdop; // Positional dilution of precision
     public final float hdop; // Horizontal dilution of precision
     public final float vdop; // Vertical dilution of precision
@@ -65,31 +66,35 @@ public class MLocation extends Measurement implements Comparable<MLocation> {
         this.satellitesInView = satellitesInView;
     }
 
-    @NonNull
     @Override
-    public String toRow() {
+    public void appendRow(@NonNull StringBuilder sb) {
+        appendRow(sb, millis, latitude, longitude, altitude_gps, vN, vE, satellitesUsed);
+    }
+
+    /**
+     * Append a gps CSV row from primitive values, so a track writer doesn't need an MLocation
+     */
+    public static void appendRow(@NonNull StringBuilder sb, long millis, double lat, double lon, double alt, double vN, double vE, int satellitesUsed) {
         // millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV,gX,gY,gZ,rotX,rotY,rotZ,acc
-        final StringBuilder sb = new StringBuilder();
         sb.append(millis);
         sb.append(",,gps,,");
-        sb.append(Numbers.format6.format(latitude));
+        StringBuilderUtil.formatDecimal(sb, lat, 6);
         sb.append(',');
-        sb.append(Numbers.format6.format(longitude));
+        StringBuilderUtil.formatDecimal(sb, lon, 6);
         sb.append(',');
-        sb.append(Numbers.format3.format(altitude_gps));
+        StringBuilderUtil.formatDecimal(sb, alt, 3);
         sb.append(',');
         if (Numbers.isReal(vN)) {
-            sb.append(Numbers.format2.format(vN));
+            StringBuilderUtil.formatDecimal(sb, vN, 2);
         }
         sb.append(',');
         if (Numbers.isReal(vE)) {
-            sb.append(Numbers.format2.format(vE));
+            StringBuilderUtil.formatDecimal(sb, vE, 2);
         }
         sb.append(',');
         if (satellitesUsed != -1) {
             sb.append(satellitesUsed);
         }
-        return sb.toString();
     }
 
     public double groundSpeed() {
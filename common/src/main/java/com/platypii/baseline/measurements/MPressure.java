@@ -1,6 +1,6 @@
 package com.platypii.baseline.measurements;
 
-import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.StringBuilderUtil;
 
 import androidx.annotation.NonNull;
 import java.util.Locale;
@@ -24,11 +24,23 @@ public class MPressure extends Measurement {
         this.pressure = pressure;
     }
 
-    @NonNull
     @Override
-    public String toRow() {
+    public void appendRow(@NonNull StringBuilder sb) {
+        appendRow(sb, millis, nano, pressure, true);
+    }
+
+    /**
+     * Append a pressure CSV row from primitive values
+     *
+     * @param enabled false if the barometric altimeter is disabled, logged as "alt-" sensor
+     */
+    public static void appendRow(@NonNull StringBuilder sb, long millis, long nano, double pressure, boolean enabled) {
         // millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV,gX,gY,gZ,rotX,rotY,rotZ,acc
-        return millis + "," + nano + ",alt," + Numbers.format3.format(pressure);
+        sb.append(millis);
+        sb.append(',');
+        sb.append(nano);
+        sb.append(enabled ? ",alt," : ",alt-,");
+        StringBuilderUtil.formatDecimal(sb, pressure, 3);
     }
 
     @NonNull
@@ -14,7 +14,16 @@ public abstract class Measurement {
 
     // All measurements must be able to write out to CSV
     @NonNull
-    public abstract String toRow();
+    public String toRow() {
+        final StringBuilder sb = new StringBuilder();
+        appendRow(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Append the CSV row, without a line ending, so a writer can reuse one builder for every row
+     */
+    public abstract void appendRow(@NonNull StringBuilder sb);
 
     public static final String header = "millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV,gX,gY,gZ,rotX,rotY,rotZ,acc";
 
@@ -0,0 +1,256 @@
+package com.platypii.baseline.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static com.platypii.baseline.util.BlockGzipOutputStream.BLOCK_SIZE;
+import static com.platypii.baseline.util.BlockGzipOutputStream.HEADER_SIZE;
+import static com.platypii.baseline.util.BlockGzipOutputStream.TRAILER_SIZE;
+
+/**
+ * Reads a file written by BlockGzipOutputStream, inflating blocks in parallel.
+ * Blocks are decoded a few at a time ahead of the reader, and returned in order.
+ */
+public class BlockGzipInputStream extends InputStream {
+
+    private static final int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final int lookahead = 2 * threads;
+
+    @Nullable
+    private static ExecutorService executor;
+
+    @NonNull
+    private final RandomAccessFile file;
+    @NonNull
+    private final long[] index;
+    private final boolean truncated;
+    private int nextBlock;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    // Current inflated block
+    private byte[] block = new byte[0];
+    private int blockPos = 0;
+
+    /**
+     * Open a gzip file, using parallel block decoding if the file is block gzip.
+     * Single core devices read sequentially, since there is nothing to gain.
+     */
+    @NonNull
+    public static InputStream open(@NonNull File file) throws IOException {
+        final long[] index = threads > 1 ? index(file) : null;
+        if (index != null) {
+            return new BlockGzipInputStream(file, index);
+        } else {
+            return new GZIPInputStream(new FileInputStream(file));
+        }
+    }
+
+    /**
+     * @param index block offsets from index(), ending with the end of the last complete block
+     */
+    BlockGzipInputStream(@NonNull File file, @NonNull long[] index) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.index = index;
+        this.truncated = index[index.length - 1] != this.file.length();
+    }
+
+    /**
+     * Find block boundaries by reading only the block headers
+     *
+     * @return offset of each block, followed by the end of the last complete block,
+     * or null if the file is not block gzip
+     */
+    @Nullable
+    static long[] index(@NonNull File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final long length = raf.length();
+            final byte[] header = new byte[HEADER_SIZE];
+            long[] offsets = new long[16];
+            int count = 0;
+            long offset = 0;
+            while (offset + HEADER_SIZE <= length) {
+                raf.seek(offset);
+                raf.readFully(header);
+                final int blockSize = blockSize(header);
+                if (blockSize < 0) {
+                    return null;
+                }
+                if (offset + blockSize > length) {
+                    // Truncated block
+                    break;
+                }
+                if (count + 1 >= offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[count++] = offset;
+                offset += blockSize;
+            }
+            if (count == 0) {
+                return null;
+            }
+            offsets[count] = offset;
+            return Arrays.copyOf(offsets, count + 1);
+        }
+    }
+
+    /**
+     * @return total block size from a BGZF style header, or -1 if not a block header
+     */
+    private static int blockSize(@NonNull byte[] h) {
+        if ((h[0] & 0xff) != 0x1f || (h[1] & 0xff) != 0x8b || h[2] != 8 || (h[3] & 4) == 0
+                || h[10] != 6 || h[11] != 0 || h[12] != 'B' || h[13] != 'C' || h[14] != 2 || h[15] != 0) {
+            return -1;
+        }
+        return ((h[16] & 0xff) | (h[17] & 0xff) << 8) + 1;
+    }
+
+    /**
+     * Number of complete blocks in the index
+     */
+    static int blockCount(@NonNull long[] index) {
+        return index.length - 1;
+    }
+
+    /**
+     * Inflate a single block
+     */
+    @NonNull
+    static byte[] readBlock(@NonNull FileChannel channel, @NonNull long[] index, int block) throws IOException {
+        final long offset = index[block];
+        final int size = (int) (index[block + 1] - offset);
+        final ByteBuffer buf = ByteBuffer.allocate(size);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) < 0) {
+                throw new EOFException("Unexpected end of block gzip file");
+            }
+        }
+        final byte[] compressed = buf.array();
+        final int trailer = size - TRAILER_SIZE;
+        final int expectedCrc = readInt(compressed, trailer);
+        final int length = readInt(compressed, trailer + 4);
+        if (length < 0 || length > BLOCK_SIZE) {
+            // Don't trust a corrupt trailer to size the buffer
+            throw new IOException("Corrupt block " + block + " length " + length);
+        }
+        final byte[] out = new byte[length];
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed, HEADER_SIZE, trailer - HEADER_SIZE);
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                final int inflated = inflater.inflate(out, n, length - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != length) {
+                throw new IOException("Corrupt block " + block + " length " + n + " expected " + length);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block " + block, e);
+        } finally {
+            inflater.end();
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(out, 0, length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("CRC mismatch in block " + block);
+        }
+        return out;
+    }
+
+    private static int readInt(@NonNull byte[] b, int i) {
+        return (b[i] & 0xff) | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff) << 16 | (b[i + 3] & 0xff) << 24;
+    }
+
+    @NonNull
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                final Thread thread = new Thread(r, "BlockGzip");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Load the next block, queueing more blocks to inflate in the background
+     *
+     * @return false at end of file
+     */
+    private boolean nextBlock() throws IOException {
+        final FileChannel channel = file.getChannel();
+        while (pending.size() < lookahead && nextBlock < blockCount(index)) {
+            final int i = nextBlock++;
+            pending.add(executor().submit(() -> readBlock(channel, index, i)));
+        }
+        final Future<byte[]> future = pending.poll();
+        if (future == null) {
+            if (truncated) {
+                throw new EOFException("Unexpected end of block gzip file");
+            }
+            return false;
+        }
+        try {
+            block = future.get();
+            blockPos = 0;
+            return true;
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (blockPos >= block.length) {
+            if (!nextBlock()) return -1;
+        }
+        return block[blockPos++] & 0xff;
+    }
+
+    @Override
+    public int read(@NonNull byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (blockPos >= block.length) {
+            if (!nextBlock()) return -1;
+        }
+        final int n = Math.min(len, block.length - blockPos);
+        System.arraycopy(block, blockPos, b, off, n);
+        blockPos += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<byte[]> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        file.close();
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.platypii.baseline.util;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes gzip as a series of small, independently deflated members, like BGZF.
+ * The output is still a valid gzip file for gunzip and the server, but each block header records
+ * its compressed size, so BlockGzipInputStream can find blocks without inflating them,
+ * and decode blocks in parallel.
+ *
+ * Blocks end on a newline when possible, so every block after the first starts on a CSV row.
+ */
+public class BlockGzipOutputStream extends OutputStream {
+
+    // Max uncompressed bytes per block, so that the compressed block always fits in 64 KiB
+    static final int BLOCK_SIZE = 0xff00;
+    static final int HEADER_SIZE = 18;
+    static final int TRAILER_SIZE = 8;
+    static final int MAX_BLOCK = 0x10000;
+
+    @NonNull
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private int count = 0;
+
+    private final byte[] compressed = new byte[MAX_BLOCK];
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private boolean closed = false;
+
+    public BlockGzipOutputStream(@NonNull OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == BLOCK_SIZE) {
+            writeBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == BLOCK_SIZE) {
+                writeBlock();
+            }
+            final int n = Math.min(len, BLOCK_SIZE - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Flush the underlying stream. Does not end the current block, to avoid tiny blocks.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                while (count > 0) {
+                    writeBlock();
+                }
+                // Empty block marks the end of file, like BGZF
+                writeMember(0);
+                out.flush();
+            } finally {
+                deflater.end();
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Write the buffer up to the last newline as a gzip member, and keep the remainder
+     */
+    private void writeBlock() throws IOException {
+        int length = count;
+        if (count == BLOCK_SIZE) {
+            for (int i = count - 1; i > 0; i--) {
+                if (buffer[i] == '\n') {
+                    length = i + 1;
+                    break;
+                }
+            }
+        }
+        writeMember(length);
+        System.arraycopy(buffer, length, buffer, 0, count - length);
+        count -= length;
+    }
+
+    private void writeMember(int length) throws IOException {
+        int size = deflate(length, Deflater.DEFAULT_COMPRESSION);
+        if (size < 0) {
+            // Incompressible data, store it instead
+            size = deflate(length, Deflater.NO_COMPRESSION);
+        }
+        crc.reset();
+        crc.update(buffer, 0, length);
+        final int blockSize = HEADER_SIZE + size + TRAILER_SIZE;
+        final byte[] header = {
+                0x1f, (byte) 0x8b, // gzip magic
+                8, // deflate
+                4, // FEXTRA
+                0, 0, 0, 0, // mtime
+                0, // xfl
+                (byte) 0xff, // os unknown
+                6, 0, // xlen
+                'B', 'C', 2, 0, // subfield
+                (byte) (blockSize - 1), (byte) ((blockSize - 1) >> 8)
+        };
+        out.write(header);
+        out.write(compressed, 0, size);
+        writeInt((int) crc.getValue());
+        writeInt(length);
+    }
+
+    /**
+     * @return compressed size, or -1 if it would not fit in a block
+     */
+    private int deflate(int length, int level) {
+        final int limit = MAX_BLOCK - HEADER_SIZE - TRAILER_SIZE;
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(buffer, 0, length);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == limit) {
+                return -1;
+            }
+            size += deflater.deflate(compressed, size, limit - size);
+        }
+        return size;
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value);
+        out.write(value >> 8);
+        out.write(value >> 16);
+        out.write(value >> 24);
+    }
+
+}
@@ -26,6 +26,14 @@ public class CSVHeader {
         return columns.get(columnName);
     }
 
+    /**
+     * Return the column index, else -1
+     */
+    public int index(@NonNull String columnName) {
+        final Integer index = columns.get(columnName);
+        return index != null ? index : -1;
+    }
+
     public void addMapping(@NonNull String from, @NonNull String to) {
         if (columns.containsKey(from) && !columns.containsKey(to)) {
             columns.put(to, columns.get(from));
@@ -2,8 +2,6 @@ package com.platypii.baseline.util;
 
 import android.util.Log;
 import androidx.annotation.NonNull;
-import java.text.ParseException;
-import java.util.Date;
 
 /**
  * Parse data from CSV files
@@ -21,13 +19,13 @@ public class CSVParse {
     public static double getColumnDouble(@NonNull String[] row, @NonNull CSVHeader columns, @NonNull String columnName) {
         final Integer index = columns.get(columnName);
         if (index != null && index < row.length) {
-            try {
-                final String col = row[index];
-                if (!col.isEmpty()) {
-                    return Double.parseDouble(col);
+            final String col = row[index];
+            if (!col.isEmpty()) {
+                final double value = Numbers.parseDouble(col, 0, col.length());
+                if (Double.isNaN(value) && !col.equals("NaN")) {
+                    Log.w(TAG, "CSV column double parsing error " + col);
                 }
-            } catch (Exception e) {
-                Log.w(TAG, "CSV column double parsing exception", e);
+                return value;
             }
         }
         return Double.NaN;
@@ -107,31 +105,12 @@ public class CSVParse {
         }
     }
 
-    static long parseFlySightDate(@NonNull String dateString) throws ParseException {
-        // 2018-01-25T11:48:09.80Z
-        if (!Character.isDigit(dateString.charAt(0))) {
-            return -1;
-        }
-
-        // Parse manually for speed
-        final int year = Integer.parseInt(dateString.substring(0, 4)) - 1900;
-        final int month = Integer.parseInt(dateString.substring(5, 7)) - 1;
-        final int day = Integer.parseInt(dateString.substring(8, 10));
-        final int hour = Integer.parseInt(dateString.substring(11, 13));
-        final int minute = Integer.parseInt(dateString.substring(14, 16));
-        final int second = Integer.parseInt(dateString.substring(17, 19));
-        final long whole = Date.UTC(year, month, day, hour, minute, second);
-
-        // Handle milliseconds separately
-        long millis = 0;
-        final int dotIndex = 19;
-        if (dateString.charAt(dotIndex) == '.') {
-            final int len = dateString.length();
-            final int digits = Math.min(3, len - dotIndex - 2);
-            final String zeros = "000".substring(digits);
-            final String milliString = dateString.substring(dotIndex + 1, dotIndex + digits + 1) + zeros;
-            millis = Long.parseLong(milliString);
-        }
-        return whole + millis;
+    /**
+     * Parse FlySight date like 2018-01-25T11:48:09.80Z
+     *
+     * @return milliseconds since epoch, or -1 if the date is malformed
+     */
+    static long parseFlySightDate(@NonNull String dateString) {
+        return FlySightDateParser.parse(dateString);
     }
 }
@@ -0,0 +1,256 @@
+package com.platypii.baseline.util;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming CSV tokenizer that splits rows in place on a reusable char buffer.
+ * Cells are parsed directly from the line buffer, so reading a row allocates nothing.
+ * Not thread safe, but one tokenizer can be reused across many files.
+ */
+public class CSVTokenizer {
+    private static final String TAG = "CSVTokenizer";
+
+    // Read buffer
+    private final char[] chunk = new char[8192];
+    private int chunkPos = 0;
+    private int chunkLimit = 0;
+    private Reader reader;
+
+    // Current line
+    private char[] line = new char[256];
+    private int lineLength = 0;
+
+    // Cell boundaries within the current line
+    private int[] cellStart = new int[32];
+    private int[] cellEnd = new int[32];
+    private int cellCount = 0;
+
+    // Reusable view of one cell, for parsing dates in place
+    private final Cell cell = new Cell();
+    private final FlySightDateParser dateParser = new FlySightDateParser();
+
+    /**
+     * Start reading rows from a new reader.
+     * Anything already consumed from the reader (such as the CSVHeader) is skipped.
+     */
+    public void reset(@NonNull Reader reader) {
+        this.reader = reader;
+        chunkPos = 0;
+        chunkLimit = 0;
+        lineLength = 0;
+        cellCount = 0;
+    }
+
+    /**
+     * Advance to the next row
+     *
+     * @return false when the end of the stream is reached
+     */
+    public boolean next() throws IOException {
+        lineLength = 0;
+        boolean eof = false;
+        while (true) {
+            if (chunkPos >= chunkLimit) {
+                chunkLimit = reader.read(chunk, 0, chunk.length);
+                chunkPos = 0;
+                if (chunkLimit <= 0) {
+                    chunkLimit = 0;
+                    eof = true;
+                    break;
+                }
+            }
+            // Scan for end of line
+            final int start = chunkPos;
+            while (chunkPos < chunkLimit && chunk[chunkPos] != '\n') {
+                chunkPos++;
+            }
+            append(start, chunkPos);
+            if (chunkPos < chunkLimit) {
+                // Consume newline
+                chunkPos++;
+                break;
+            }
+        }
+        if (eof && lineLength == 0) {
+            cellCount = 0;
+            return false;
+        }
+        // Strip carriage return, like BufferedReader.readLine
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        split();
+        return true;
+    }
+
+    private void append(int start, int end) {
+        final int len = end - start;
+        if (lineLength + len > line.length) {
+            final char[] grown = new char[Math.max(line.length * 2, lineLength + len)];
+            System.arraycopy(line, 0, grown, 0, lineLength);
+            line = grown;
+        }
+        System.arraycopy(chunk, start, line, lineLength, len);
+        lineLength += len;
+    }
+
+    /**
+     * Find cell boundaries in the current line
+     */
+    private void split() {
+        cellCount = 0;
+        int start = 0;
+        for (int i = 0; i <= lineLength; i++) {
+            if (i == lineLength || line[i] == ',') {
+                if (cellCount == cellStart.length) {
+                    final int[] grownStart = new int[cellCount * 2];
+                    final int[] grownEnd = new int[cellCount * 2];
+                    System.arraycopy(cellStart, 0, grownStart, 0, cellCount);
+                    System.arraycopy(cellEnd, 0, grownEnd, 0, cellCount);
+                    cellStart = grownStart;
+                    cellEnd = grownEnd;
+                }
+                cellStart[cellCount] = start;
+                cellEnd[cellCount] = i;
+                cellCount++;
+                start = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Number of cells in the current row
+     */
+    public int size() {
+        return cellCount;
+    }
+
+    /**
+     * Return true if the column index is missing or the cell is empty
+     */
+    public boolean isEmpty(int index) {
+        return index < 0 || index >= cellCount || cellStart[index] == cellEnd[index];
+    }
+
+    /**
+     * Return true if the cell is exactly equal to value. Case sensiTive.
+     */
+    public boolean equals(int index, @NonNull String value) {
+        if (index < 0 || index >= cellCount) return false;
+        final int start = cellStart[index];
+        final int len = cellEnd[index] - start;
+        if (len != value.length()) return false;
+        for (int i = 0; i < len; i++) {
+            if (line[start + i] != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Return column value as double, else NaN
+     *
+     * @param index the column index from CSVHeader.index
+     */
+    public double getDouble(int index) {
+        if (isEmpty(index)) return Double.NaN;
+        final double value = Numbers.parseDouble(line, cellStart[index], cellEnd[index]);
+        if (Double.isNaN(value) && !equals(index, "NaN")) {
+            // NaN cells are written for missing values, only warn on garbage
+            Log.w(TAG, "CSV column double parsing failed: " + getString(index));
+        }
+        return value;
+    }
+
+    /**
+     * Return column value as long, else -1
+     *
+     * @param index the column index from CSVHeader.index
+     */
+    public long getLong(int index) {
+        if (isEmpty(index)) return -1L;
+        final int start = cellStart[index];
+        final int end = cellEnd[index];
+        int i = start;
+        final boolean negative = line[i] == '-';
+        if (negative || line[i] == '+') i++;
+        if (i == end || end - i > 18) {
+            return parseLongSlow(index);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return parseLongSlow(index);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private long parseLongSlow(int index) {
+        try {
+            return Long.parseLong(getString(index));
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "CSV column long parsing exception", e);
+            return -1L;
+        }
+    }
+
+    /**
+     * Return column value parsed as ISO date, else -1
+     *
+     * @param index the column index from CSVHeader.index
+     * @return date in milliseconds since the epoch
+     */
+    public long getDate(int index) {
+        if (isEmpty(index)) return -1L;
+        cell.start = cellStart[index];
+        cell.end = cellEnd[index];
+        final long millis = dateParser.parseCached(cell);
+        if (millis == -1L) {
+            Log.w(TAG, "CSV column date parsing failed: " + getString(index));
+        }
+        return millis;
+    }
+
+    /**
+     * Return column value as string, else "".
+     * This allocates, so avoid it on hot paths.
+     */
+    @NonNull
+    public String getString(int index) {
+        if (isEmpty(index)) return "";
+        return new String(line, cellStart[index], cellEnd[index] - cellStart[index]);
+    }
+
+    private class Cell implements CharSequence {
+        int start;
+        int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return line[start + index];
+        }
+
+        @NonNull
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(line, start + from, to - from);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return new String(line, start, end - start);
+        }
+    }
+
+}
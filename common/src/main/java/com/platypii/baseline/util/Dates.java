@@ -0,0 +1,40 @@
+package com.platypii.baseline.util;
+
+/**
+ * UTC calendar math without a shared calendar, shared by the NMEA, UBX, and FlySight parsers
+ */
+public class Dates {
+
+    public static final long DAY_MILLIS = 86400000L;
+
+    /**
+     * Milliseconds since epoch at midnight UTC.
+     * Out of range days and months roll over, like a lenient calendar.
+     */
+    public static long dayMillis(int year, int month, int day) {
+        // Roll month into 0..11
+        int m = month - 1;
+        if (m < 0) {
+            year--;
+            m += 12;
+        } else {
+            year += m / 12;
+            m %= 12;
+        }
+        return (epochDay(year, m + 1, 1) + day - 1) * DAY_MILLIS;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic gregorian date
+     */
+    public static long epochDay(int year, int month, int day) {
+        // Count years from march, so that leap day is last
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.platypii.baseline.util;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+
+/**
+ * Bounded queue drained in order by a single consumer thread.
+ * Replaces starting a new thread per event, which is expensive at gps rates and doesn't preserve order.
+ * The consumer thread starts on the first event, and runs until close().
+ */
+public class EventQueue<T> {
+    private static final String TAG = "EventQueue";
+
+    // Log dropped events at most this often, so a stalled consumer doesn't flood the log
+    private static final long DROP_LOG_NANOS = 10000000000L;
+
+    /**
+     * What to do when an event is offered and the queue is full
+     */
+    public enum Backpressure {
+        /** Wait for the consumer to make room */
+        BLOCK,
+        /** Discard the oldest queued event */
+        DROP_OLDEST,
+        /** Discard every queued event, only the latest matters */
+        LATEST
+    }
+
+    @NonNull
+    private final String name;
+    private final int capacity;
+    @NonNull
+    private final Backpressure backpressure;
+    @NonNull
+    private final PubSub.Subscriber<T> consumer;
+
+    // Guarded by queue
+    @NonNull
+    private final ArrayDeque<T> queue;
+    private Thread thread;
+    private int maxDepth = 0;
+    private long delivered = 0;
+    private long dropped = 0;
+    private long loggedDrops = 0;
+    private long dropLogNano;
+
+    /**
+     * @param name thread name, for debugging
+     * @param capacity max queued events
+     * @param consumer called with each event, in order, from the consumer thread
+     */
+    public EventQueue(@NonNull String name, int capacity, @NonNull Backpressure backpressure, @NonNull PubSub.Subscriber<T> consumer) {
+        if (capacity < 1) throw new IllegalArgumentException("Invalid event queue capacity " + capacity);
+        this.name = name;
+        this.capacity = backpressure == Backpressure.LATEST ? 1 : capacity;
+        this.backpressure = backpressure;
+        this.consumer = consumer;
+        queue = new ArrayDeque<>(this.capacity);
+    }
+
+    /**
+     * Queue an event for the consumer thread
+     */
+    public void offer(T obj) {
+        String warning = null;
+        synchronized (queue) {
+            if (Thread.currentThread() == thread && queue.size() >= capacity && backpressure == Backpressure.BLOCK) {
+                // Consumer posting to its own queue would wait forever
+                Log.w(TAG, name + " queue full, dropping re-entrant event");
+                dropped++;
+                return;
+            }
+            while (queue.size() >= capacity) {
+                if (backpressure == Backpressure.BLOCK) {
+                    try {
+                        queue.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped++;
+                        return;
+                    }
+                } else {
+                    queue.removeFirst();
+                    dropped++;
+                    if (backpressure == Backpressure.DROP_OLDEST) {
+                        final long now = System.nanoTime();
+                        if (loggedDrops == 0 || now - dropLogNano >= DROP_LOG_NANOS) {
+                            warning = name + " queue full, dropped " + (dropped - loggedDrops) + " events, " + dropped + " total";
+                            loggedDrops = dropped;
+                            dropLogNano = now;
+                        }
+                    }
+                }
+            }
+            queue.addLast(obj);
+            if (queue.size() > maxDepth) maxDepth = queue.size();
+            if (thread == null) {
+                // First event, or the consumer was closed or interrupted
+                thread = new Thread(this::run, name);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            queue.notifyAll();
+        }
+        if (warning != null) {
+            Log.w(TAG, warning);
+        }
+    }
+
+    /**
+     * Deliver events until this thread is no longer the queue's consumer
+     */
+    private void run() {
+        final Thread self = Thread.currentThread();
+        while (true) {
+            final T obj;
+            synchronized (queue) {
+                while (queue.isEmpty() && thread == self) {
+                    try {
+                        queue.wait();
+                    } catch (InterruptedException e) {
+                        Log.e(TAG, name + " consumer interrupted", e);
+                        // Next offer starts a new consumer
+                        if (thread == self) thread = null;
+                        return;
+                    }
+                }
+                if (thread != self) return;
+                obj = queue.removeFirst();
+                // Wake blocked producers
+                queue.notifyAll();
+            }
+            try {
+                consumer.apply(obj);
+            } catch (RuntimeException e) {
+                // Keep delivering to other subscribers and later events
+                Log.e(TAG, name + " subscriber failed", e);
+                Exceptions.report(e);
+            }
+            synchronized (queue) {
+                delivered++;
+            }
+        }
+    }
+
+    /**
+     * Stop the consumer thread, and discard events that haven't been delivered.
+     * The consumer finishes the event it is handling, if any.
+     * A later offer starts a new consumer.
+     */
+    public void close() {
+        synchronized (queue) {
+            if (thread != null) {
+                dropped += queue.size();
+                queue.clear();
+                thread = null;
+                queue.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Number of events waiting for the consumer
+     */
+    public int depth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Most events ever waiting at once
+     */
+    public int maxDepth() {
+        synchronized (queue) {
+            return maxDepth;
+        }
+    }
+
+    /**
+     * Number of events handed to the consumer
+     */
+    public long delivered() {
+        synchronized (queue) {
+            return delivered;
+        }
+    }
+
+    /**
+     * Number of events discarded by backpressure
+     */
+    public long dropped() {
+        synchronized (queue) {
+            return dropped;
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        synchronized (queue) {
+            return "EventQueue(" + name + " depth=" + queue.size() + "/" + capacity + " max=" + maxDepth + " delivered=" + delivered + " dropped=" + dropped + ")";
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.platypii.baseline.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Parse FlySight ISO dates like 2018-01-25T11:48:09.80Z without allocating.
+ * Digits are read directly from the CharSequence, and the epoch of the current UTC day is cached,
+ * since consecutive rows are almost always on the same day.
+ * Instances are not thread safe, use the static parse method to skip the cache.
+ */
+public class FlySightDateParser {
+
+    // Cached start of the last day seen
+    private int cachedYear = -1;
+    private int cachedMonth = -1;
+    private int cachedDay = -1;
+    private long cachedDayMillis;
+
+    /**
+     * @return milliseconds since epoch, or -1 if the date is malformed
+     */
+    public long parseCached(@NonNull CharSequence str) {
+        return parse(str, this);
+    }
+
+    /**
+     * @return milliseconds since epoch, or -1 if the date is malformed
+     */
+    public static long parse(@NonNull CharSequence str) {
+        return parse(str, null);
+    }
+
+    private static long parse(@NonNull CharSequence str, @Nullable FlySightDateParser cache) {
+        final int len = str.length();
+        // Need at least yyyy-mm-ddThh:mm:ss and one more character
+        if (len < 20) return -1;
+        final int year = Numbers.parseDigits(str, 0, 4);
+        final int month = Numbers.parseDigits(str, 5, 7);
+        final int day = Numbers.parseDigits(str, 8, 10);
+        final int hour = Numbers.parseDigits(str, 11, 13);
+        final int minute = Numbers.parseDigits(str, 14, 16);
+        final int second = Numbers.parseDigits(str, 17, 19);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return -1;
+        }
+
+        final long dayMillis;
+        if (cache == null) {
+            dayMillis = Dates.dayMillis(year, month, day);
+        } else if (year == cache.cachedYear && month == cache.cachedMonth && day == cache.cachedDay) {
+            dayMillis = cache.cachedDayMillis;
+        } else {
+            dayMillis = Dates.dayMillis(year, month, day);
+            cache.cachedYear = year;
+            cache.cachedMonth = month;
+            cache.cachedDay = day;
+            cache.cachedDayMillis = dayMillis;
+        }
+
+        // Fractional seconds, up to 3 digits, not counting the trailing Z
+        int millis = 0;
+        if (str.charAt(19) == '.') {
+            final int fractionDigits = Math.min(3, len - 21);
+            if (fractionDigits < 0) return -1;
+            for (int i = 0; i < 3; i++) {
+                millis *= 10;
+                if (i < fractionDigits) {
+                    final int digit = str.charAt(20 + i) - '0';
+                    if (digit < 0 || digit > 9) return -1;
+                    millis += digit;
+                }
+            }
+        }
+        return dayMillis + hour * 3600000L + minute * 60000L + second * 1000L + millis;
+    }
+
+}
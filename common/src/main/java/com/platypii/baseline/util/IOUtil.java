@@ -9,8 +9,11 @@ import java.nio.charset.StandardCharsets;
 
 public class IOUtil {
 
+    // Buffer size for copying files and network streams
+    public static final int BUFFER_SIZE = 0x10000;
+
     public static void copy(@NonNull InputStream input, @NonNull OutputStream output) throws IOException {
-        final byte[] buffer = new byte[1024];
+        final byte[] buffer = new byte[BUFFER_SIZE];
         int bytesRead;
         while ((bytesRead = input.read(buffer)) != -1) {
             output.write(buffer, 0, bytesRead);
@@ -29,8 +29,7 @@ public class MD5 {
                 // Do nothing
             }
             inputStream.close();
-            // Format digest as hex
-            return String.format("%1$032x", new BigInteger(1, md.digest()));
+            return hex(md);
         } catch (NoSuchAlgorithmException e) {
             Log.e(TAG, "Failed to compute MD5", e);
             return null;
@@ -40,4 +39,25 @@ public class MD5 {
         }
     }
 
+    /**
+     * New MD5 digest, such as for a DigestOutputStream that hashes a file while it is written
+     */
+    @NonNull
+    public static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // Every java platform is required to support MD5
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Finish the digest and format as hex
+     */
+    @NonNull
+    public static String hex(@NonNull MessageDigest md) {
+        return String.format("%1$032x", new BigInteger(1, md.digest()));
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.platypii.baseline.util;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -33,12 +34,105 @@ public class Numbers {
         if (str == null || str.isEmpty()) {
             return Double.NaN;
         } else {
-            try {
-                return Double.parseDouble(str);
-            } catch (NumberFormatException e) {
-                return Double.NaN;
+            return parseDouble(str, 0, str.length());
+        }
+    }
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Parse a slice of a char buffer into a double, using NaN instead of exceptions.
+     * Plain decimals with at most 15 significant digits are parsed without allocating,
+     * and are exact because both the mantissa and power of ten are exact doubles.
+     * Anything else falls back to Double.parseDouble.
+     */
+    public static double parseDouble(@NonNull char[] buf, int start, int end) {
+        return parseDouble(buf, null, start, end);
+    }
+
+    /**
+     * Parse a slice of a string into a double, using NaN instead of exceptions.
+     * Same fast path as the char buffer version.
+     */
+    public static double parseDouble(@NonNull CharSequence str, int start, int end) {
+        return parseDouble(null, str, start, end);
+    }
+
+    /**
+     * Shared by the char buffer and string versions, reading from whichever is not null
+     */
+    private static double parseDouble(@Nullable char[] buf, @Nullable CharSequence str, int start, int end) {
+        int i = start;
+        if (i >= end) return Double.NaN;
+        final boolean negative = charAt(buf, str, i) == '-';
+        if (negative || charAt(buf, str, i) == '+') i++;
+        long mantissa = 0;
+        int digits = 0; // significant digits
+        int fraction = 0; // digits after decimal point
+        boolean dot = false;
+        boolean any = false;
+        for (; i < end; i++) {
+            final char c = charAt(buf, str, i);
+            if ('0' <= c && c <= '9') {
+                any = true;
+                if (dot) fraction++;
+                if (mantissa == 0 && c == '0') continue; // leading zero
+                if (++digits > 15) return parseDoubleSlow(buf, str, start, end);
+                mantissa = mantissa * 10 + (c - '0');
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                // Exponent, NaN, Infinity, or garbage
+                return parseDoubleSlow(buf, str, start, end);
             }
         }
+        if (!any || fraction >= POW10.length) return parseDoubleSlow(buf, str, start, end);
+        final double value = fraction == 0 ? mantissa : mantissa / POW10[fraction];
+        return negative ? -value : value;
+    }
+
+    private static char charAt(@Nullable char[] buf, @Nullable CharSequence str, int i) {
+        return buf != null ? buf[i] : str.charAt(i);
+    }
+
+    private static double parseDoubleSlow(@Nullable char[] buf, @Nullable CharSequence str, int start, int end) {
+        try {
+            final String slice = buf != null ? new String(buf, start, end - start) : str.subSequence(start, end).toString();
+            return Double.parseDouble(slice);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parse a slice of a char buffer of decimal digits into an int, or -1 if any are not digits
+     */
+    public static int parseDigits(@NonNull char[] buf, int start, int end) {
+        return parseDigits(buf, null, start, end);
+    }
+
+    /**
+     * Parse a slice of a string of decimal digits into an int, or -1 if any are not digits
+     */
+    public static int parseDigits(@NonNull CharSequence str, int start, int end) {
+        return parseDigits(null, str, start, end);
+    }
+
+    /**
+     * Shared by the char buffer and string versions, reading from whichever is not null
+     */
+    private static int parseDigits(@Nullable char[] buf, @Nullable CharSequence str, int start, int end) {
+        if (start >= end || end - start > 9) return -1;
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = charAt(buf, str, i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
     }
 
     /**
@@ -0,0 +1,113 @@
+package com.platypii.baseline.util;
+
+import androidx.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces progress updates from a copy loop, so that listeners see a few updates per second
+ * instead of one per buffer. Reports when the interval has elapsed or progress has advanced
+ * by a percentage step, whichever comes first, and always reports the final value.
+ * Call from a single thread.
+ */
+public class ProgressReporter {
+
+    public static final long DEFAULT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    public static final int DEFAULT_PERCENT_STEP = 5;
+
+    public interface Listener {
+        /**
+         * @param bytes bytes copied so far
+         * @param total expected bytes, or -1 if unknown
+         * @param bytesPerSecond average throughput since start
+         */
+        void onProgress(long bytes, long total, double bytesPerSecond);
+    }
+
+    private final long total;
+    private final long intervalNanos;
+    private final long stepBytes;
+    @NonNull
+    private final Listener listener;
+
+    private final long startNano;
+    private long bytes = 0;
+    private long lastReportNano;
+    private long lastReportBytes = 0;
+    private int reports = 0;
+
+    public ProgressReporter(long total, @NonNull Listener listener) {
+        this(total, DEFAULT_INTERVAL_NANOS, DEFAULT_PERCENT_STEP, listener, System.nanoTime());
+    }
+
+    /**
+     * @param total expected bytes, or -1 if unknown
+     * @param intervalNanos max time between reports while progressing
+     * @param percentStep report after this much progress, even if the interval hasn't elapsed
+     */
+    ProgressReporter(long total, long intervalNanos, int percentStep, @NonNull Listener listener, long startNano) {
+        this.total = total;
+        this.intervalNanos = intervalNanos;
+        this.stepBytes = total > 0 && percentStep > 0 ? Math.max(1, total * percentStep / 100) : Long.MAX_VALUE;
+        this.listener = listener;
+        this.startNano = startNano;
+        lastReportNano = startNano;
+    }
+
+    /**
+     * Count bytes copied, and report if due
+     */
+    public void add(int count) {
+        add(count, System.nanoTime());
+    }
+
+    void add(int count, long nano) {
+        bytes += count;
+        if (nano - lastReportNano >= intervalNanos || bytes - lastReportBytes >= stepBytes) {
+            report(nano);
+        }
+    }
+
+    /**
+     * Report the final value, if it hasn't been reported already
+     */
+    public void finish() {
+        finish(System.nanoTime());
+    }
+
+    void finish(long nano) {
+        if (bytes != lastReportBytes || reports == 0) {
+            report(nano);
+        }
+    }
+
+    private void report(long nano) {
+        lastReportNano = nano;
+        lastReportBytes = bytes;
+        reports++;
+        listener.onProgress(bytes, total, bytesPerSecond(nano));
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Number of times the listener was called
+     */
+    public int reports() {
+        return reports;
+    }
+
+    /**
+     * Average throughput since start
+     */
+    public double bytesPerSecond() {
+        return bytesPerSecond(System.nanoTime());
+    }
+
+    private double bytesPerSecond(long nano) {
+        final long elapsed = nano - startNano;
+        return elapsed > 0 ? bytes * 1e9 / elapsed : 0;
+    }
+
+}
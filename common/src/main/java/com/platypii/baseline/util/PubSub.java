@@ -2,83 +2,147 @@ package com.platypii.baseline.util;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Message;
 import android.util.Log;
 import androidx.annotation.NonNull;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
- * Publish/subscribe with background and main thread awareness
+ * Publish/subscribe with background and main thread awareness.
+ * Subscriber lists are immutable arrays, replaced on subscribe and unsubscribe,
+ * so posting never locks or allocates, and a slow subscriber never blocks other threads.
  */
 public class PubSub<T> {
     private static final String TAG = "PubSub";
 
+    @SuppressWarnings("rawtypes")
+    private static final Subscriber[] EMPTY = new Subscriber[0];
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private volatile Subscriber<T>[] subs = EMPTY;
     @NonNull
-    private final List<Subscriber<T>> subs = new ArrayList<>();
+    @SuppressWarnings("unchecked")
+    private volatile Subscriber<T>[] mainSubs = EMPTY;
+
+    // Main thread events are sent as pooled messages, instead of a new runnable per event
     @NonNull
-    private final List<Subscriber<T>> mainSubs = new ArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper(), this::handleMessage);
 
+    // Async posts are delivered in order from a single thread
+    static final int DEFAULT_CAPACITY = 64;
     @NonNull
-    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final EventQueue<T> queue;
+
+    public PubSub() {
+        this("PubSub", DEFAULT_CAPACITY, EventQueue.Backpressure.DROP_OLDEST);
+    }
+
+    /**
+     * @param name name of the delivery thread, for debugging
+     * @param capacity max events waiting for async delivery
+     * @param backpressure what postAsync does when subscribers fall behind
+     */
+    public PubSub(@NonNull String name, int capacity, @NonNull EventQueue.Backpressure backpressure) {
+        queue = new EventQueue<>(name, capacity, backpressure, this::post);
+    }
 
     public void post(T obj) {
-        synchronized (subs) {
-            for (Subscriber<T> sub : subs) {
-                sub.apply(obj);
-            }
+        final Subscriber<T>[] current = subs;
+        for (Subscriber<T> sub : current) {
+            sub.apply(obj);
         }
         // Run on UI thread
-        if (!mainSubs.isEmpty()) {
-            handler.post(() -> {
-                synchronized (mainSubs) {
-                    for (Subscriber<T> sub : mainSubs) {
-                        sub.apply(obj);
-                    }
-                }
-            });
+        if (mainSubs.length > 0) {
+            handler.sendMessage(handler.obtainMessage(0, obj));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean handleMessage(@NonNull Message msg) {
+        final Subscriber<T>[] current = mainSubs;
+        for (Subscriber<T> sub : current) {
+            sub.apply((T) msg.obj);
         }
+        return true;
     }
 
     /**
-     * Post in a thread so that the caller doesn't block
+     * Post from the delivery thread, so that the caller doesn't wait for subscribers.
+     * Events are delivered in the order posted.
      */
     public void postAsync(T obj) {
-        new Thread(() -> post(obj)).start();
+        queue.offer(obj);
     }
 
-    public void subscribe(@NonNull Subscriber<T> sub) {
-        synchronized (subs) {
-            subs.add(sub);
-        }
+    /**
+     * Stop the async delivery thread, and discard undelivered events.
+     * A later postAsync starts it again.
+     */
+    public void close() {
+        queue.close();
     }
 
-    public void subscribeMain(@NonNull Subscriber<T> sub) {
-        synchronized (mainSubs) {
-            mainSubs.add(sub);
+    /**
+     * Async delivery queue, for metrics
+     */
+    @NonNull
+    public EventQueue<T> queue() {
+        return queue;
+    }
+
+    public synchronized void subscribe(@NonNull Subscriber<T> sub) {
+        subs = added(subs, sub);
+    }
+
+    public synchronized void subscribeMain(@NonNull Subscriber<T> sub) {
+        mainSubs = added(mainSubs, sub);
+    }
+
+    public synchronized void unsubscribe(@NonNull Subscriber<T> sub) {
+        final Subscriber<T>[] updated = removed(subs, sub);
+        if (updated != null) {
+            subs = updated;
+        } else {
+            Log.e(TAG, "Unexpected listener unsubscribed");
         }
     }
 
-    public void unsubscribe(@NonNull Subscriber<T> sub) {
-        synchronized (subs) {
-            if (!subs.remove(sub)) {
-                Log.e(TAG, "Unexpected listener unsubscribed");
-            }
+    public synchronized void unsubscribeMain(@NonNull Subscriber<T> sub) {
+        final Subscriber<T>[] updated = removed(mainSubs, sub);
+        if (updated != null) {
+            mainSubs = updated;
+        } else {
+            Log.e(TAG, "Unexpected main listener unsubscribed");
         }
     }
 
-    public void unsubscribeMain(@NonNull Subscriber<T> sub) {
-        synchronized (mainSubs) {
-            if (!mainSubs.remove(sub)) {
-                Log.e(TAG, "Unexpected main listener unsubscribed");
+    @NonNull
+    private static <S> Subscriber<S>[] added(@NonNull Subscriber<S>[] list, @NonNull Subscriber<S> sub) {
+        final Subscriber<S>[] updated = Arrays.copyOf(list, list.length + 1);
+        updated[list.length] = sub;
+        return updated;
+    }
+
+    /**
+     * Copy of list without the first occurrence of sub, or null if not found
+     */
+    private static <S> Subscriber<S>[] removed(@NonNull Subscriber<S>[] list, @NonNull Subscriber<S> sub) {
+        for (int i = 0; i < list.length; i++) {
+            if (list[i].equals(sub)) {
+                final Subscriber<S>[] updated = Arrays.copyOf(list, list.length - 1);
+                System.arraycopy(list, i + 1, updated, i, list.length - 1 - i);
+                return updated;
             }
         }
+        return null;
     }
 
     /**
      * Return true if there are no subscribers
      */
     public boolean isEmpty() {
-        return subs.isEmpty() && mainSubs.isEmpty();
+        return subs.length == 0 && mainSubs.length == 0;
     }
 
     public interface Subscriber<S> {
@@ -1,9 +1,73 @@
 package com.platypii.baseline.util;
 
 import androidx.annotation.NonNull;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
 
 public class StringBuilderUtil {
 
+    private static final int MAX_PRECISION = 9;
+    private static final long[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000};
+
+    // Used for values that cannot be rounded exactly with double arithmetic
+    private static final DecimalFormat[] fallback = new DecimalFormat[MAX_PRECISION + 1];
+
+    static {
+        final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.US);
+        final StringBuilder pattern = new StringBuilder("#.");
+        for (int i = 0; i <= MAX_PRECISION; i++) {
+            fallback[i] = new DecimalFormat(i == 0 ? "#" : pattern.toString(), symbols);
+            pattern.append('#');
+        }
+    }
+
+    /**
+     * Acts like StringBuilder.append(new DecimalFormat("#.##").format(x)) with as many #'s as precision,
+     * but avoids allocating any memory. Rounds half even, and drops trailing zeros.
+     * Output is identical to Numbers.format2, format3 and format6.
+     */
+    public static void formatDecimal(@NonNull StringBuilder sb, double x, int precision) {
+        final double y = Math.abs(x) * POW10[precision];
+        // Also catches NaN and infinity
+        if (!(y < 0x1p52)) {
+            formatFallback(sb, x, precision);
+            return;
+        }
+        final double floor = Math.floor(y);
+        final double frac = y - floor;
+        // y is within half an ulp of the exact value, so only fractions near one half can round wrong
+        if (Math.abs(frac - 0.5) <= Math.ulp(y)) {
+            formatFallback(sb, x, precision);
+            return;
+        }
+        final long n = (long) floor + (frac > 0.5 ? 1 : 0);
+        // DecimalFormat keeps the sign of negative values that round to zero
+        if (x < 0 || (x == 0 && 1 / x < 0)) {
+            sb.append('-');
+        }
+        sb.append(n / POW10[precision]);
+        long fraction = n % POW10[precision];
+        if (fraction != 0) {
+            int digits = precision;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            sb.append('.');
+            for (int i = digits - 1; i >= 0; i--) {
+                sb.append((char) ('0' + fraction / POW10[i] % 10));
+            }
+        }
+    }
+
+    private static void formatFallback(@NonNull StringBuilder sb, double x, int precision) {
+        final DecimalFormat format = fallback[precision];
+        synchronized (format) {
+            sb.append(format.format(x));
+        }
+    }
+
     /**
      * Acts like StringBuilder.append(String.format("%.2f", x)) but avoids allocating any memory.
      */
@@ -0,0 +1,216 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.bluetooth.BluetoothService;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+
+import androidx.annotation.NonNull;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that recorded tracks replay through the location pipeline
+ */
+public class LocationProviderReplayTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final long date = 1524182400000L; // 2018-04-20
+    private static final long noon = 12 * 3600000L;
+
+    private final LocationService location = new LocationService(new BluetoothService());
+
+    @Test
+    public void replayNMEA() throws Exception {
+        final File file = folder.newFile("replay.nmea");
+        try (Writer writer = new FileWriter(file)) {
+            for (int i = 0; i < 50; i++) {
+                final String time = time(noon + i * 100);
+                writer.write(checksum("GNGGA," + time + ",4737.550964,N,12219.566617,W,1,12,0.9," + (1000 - i) + ".0,M,-17.0,M,,") + "\r\n");
+                writer.write(checksum("GNRMC," + time + ",A,4737.550964,N,12219.566617,W,10.0,90.0,200418,,,A") + "\r\n");
+            }
+        }
+        final LocationProviderReplay replay = new LocationProviderReplay(location.alti, file, LocationProviderReplay.MAX_SPEED);
+        final List<MLocation> received = new ArrayList<>();
+        final ReplayStats.Stage service = replay.stats.stage("LocationService", location);
+        final ReplayStats.Stage subscriber = replay.stats.stage("Subscriber", received::add);
+        replay.locationUpdates.subscribe(service);
+        location.locationUpdates.subscribe(subscriber);
+
+        replay.replay();
+        assertTrue(replay.stats.await(5000));
+        assertEquals(50, replay.stats.fixes());
+        assertEquals(0, service.dropped());
+        assertEquals(0, subscriber.dropped());
+        assertEquals(50, received.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(date + noon + i * 100, received.get(i).millis);
+            assertEquals(1000 - i, received.get(i).altitude_gps, 1e-6);
+        }
+    }
+
+    @Test
+    public void replayNMEAPaced() throws Exception {
+        // 10 Hz epochs at quarter speed, so the first read of the log takes longer than the epoch timeout to replay
+        final int count = 10;
+        final File file = folder.newFile("paced.nmea");
+        try (Writer writer = new FileWriter(file)) {
+            int length = 0;
+            for (int i = 0; i < count; i++) {
+                final String time = time(noon + i * 100);
+                final String rmc = checksum("GNRMC," + time + ",A,4737.550964,N,12219.566617,W,10.0,90.0,200418,,,A") + "\r\n";
+                if (i == count / 2) {
+                    // Line noise, so the read ends between the RMC and GGA of this epoch
+                    final StringBuilder noise = new StringBuilder();
+                    while (length + noise.length() + rmc.length() < NMEAFramer.BUFFER_SIZE) noise.append(' ');
+                    writer.write(noise.toString());
+                    length += noise.length();
+                }
+                final String sentences = rmc
+                        + checksum("GNVTG,90.0,T,,M,10.0,N,18.5,K,A") + "\r\n"
+                        + checksum("GNGGA," + time + ",4737.550964,N,12219.566617,W,1,12,0.9," + (1000 - i) + ".0,M,-17.0,M,,") + "\r\n"
+                        + checksum("GNGSA,A,3,01,03,06,11,14,17,19,22,24,28,32,,1.6,0.9,1.3") + "\r\n"
+                        + checksum("GPGSV,3,1,12,01,45,083,42,03,22,310,38,06,67,201,45,11,12,045,33") + "\r\n";
+                writer.write(sentences);
+                length += sentences.length();
+            }
+            assertTrue(length > NMEAFramer.BUFFER_SIZE);
+        }
+        final LocationProviderReplay replay = new LocationProviderReplay(location.alti, file, 0.25);
+        final List<MLocation> received = new ArrayList<>();
+        replay.locationUpdates.subscribe(received::add);
+
+        final long start = System.nanoTime();
+        replay.replay();
+        final long elapsed = (System.nanoTime() - start) / 1000000L;
+        assertTrue("Replay took " + elapsed + " ms", elapsed > NMEAEpochAssembler.TIMEOUT);
+        assertEquals(count, received.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(date + noon + i * 100, received.get(i).millis);
+            assertEquals(1000 - i, received.get(i).altitude_gps, 1e-6);
+        }
+    }
+
+    @Test
+    public void replayTrack() throws Exception {
+        final File file = track(10);
+        final LocationProviderReplay replay = new LocationProviderReplay(location.alti, file, LocationProviderReplay.MAX_SPEED);
+        final List<MPressure> pressures = new ArrayList<>();
+        location.alti.baro.pressureEvents.subscribe(pressures::add);
+        replay.locationUpdates.subscribe(replay.stats.stage("LocationService", location));
+
+        replay.replay();
+        assertTrue(replay.stats.await(5000));
+        // Pressure events feed the barometer
+        assertEquals(100, replay.stats.pressures());
+        assertEquals(100, pressures.size());
+        assertEquals(1000 - 99 * 0.01, location.alti.baro.pressure, 1e-3);
+        // Gps fixes at 5 Hz
+        assertEquals(50, replay.stats.fixes());
+        assertEquals(date + noon + 9800, location.lastLoc.millis);
+        assertEquals(12, location.lastLoc.satellitesUsed);
+    }
+
+    @Test
+    public void replayService() throws Exception {
+        // Through LocationService, like the app does
+        final File file = track(10);
+        final LocationProviderReplay replay = new LocationProviderReplay(location.alti, file, LocationProviderReplay.MAX_SPEED);
+        final List<MLocation> received = new ArrayList<>();
+        location.locationUpdates.subscribe(replay.stats.stage("Subscriber", received::add));
+        location.setReplay(replay);
+        location.start(null);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (replay.stats.fixes() < 50 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(replay.stats.await(5000));
+        location.stop();
+        // No fix is posted before LocationService subscribes
+        assertEquals(50, received.size());
+        assertEquals(date + noon, received.get(0).millis);
+    }
+
+    @Test
+    public void slowSubscriber() throws Exception {
+        // More fixes than the async delivery queue holds
+        final File file = track(100);
+        final LocationProviderReplay replay = new LocationProviderReplay(location.alti, file, LocationProviderReplay.MAX_SPEED);
+        location.synchronous = true; // as LocationService.start does for a replay
+        final ReplayStats.Stage service = replay.stats.stage("LocationService", location);
+        final ReplayStats.Stage subscriber = replay.stats.stage("Subscriber", loc -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ignored) {
+            }
+        });
+        replay.locationUpdates.subscribe(service);
+        location.locationUpdates.subscribe(subscriber);
+
+        replay.replay();
+        assertTrue(replay.stats.await(5000));
+        assertEquals(500, replay.stats.fixes());
+        assertEquals(500, service.count());
+        assertEquals(500, subscriber.count());
+        assertEquals(0, subscriber.dropped());
+        assertTrue(replay.stats.throughput() > 0);
+    }
+
+    @Test
+    public void replaySpeed() throws Exception {
+        // One second of recorded time at 10x
+        final File file = track(1);
+        final LocationProviderReplay replay = new LocationProviderReplay(location.alti, file, 10);
+        final long start = System.nanoTime();
+        replay.replay();
+        final long elapsed = (System.nanoTime() - start) / 1000000L;
+        assertEquals(5, replay.stats.fixes());
+        assertTrue("Replay took " + elapsed + " ms", elapsed >= 80);
+    }
+
+    /**
+     * BASEline track file, with 10 Hz barometer and 5 Hz gps
+     */
+    @NonNull
+    private File track(int seconds) throws IOException {
+        final File file = folder.newFile("replay.csv");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV\n");
+            for (int i = 0; i < seconds * 10; i++) {
+                final long millis = date + noon + i * 100;
+                writer.write(String.format(Locale.US, "%d,%d,alt,%.3f\n", millis, i * 100000000L + 1, 1000 - i * 0.01));
+                if (i % 2 == 0) {
+                    writer.write(String.format(Locale.US, "%d,,gps,,47.625849,-122.326110,%.3f,1.50,-2.50,12\n", millis, 100.0 - i * 0.1));
+                }
+            }
+        }
+        return file;
+    }
+
+    @NonNull
+    private static String time(long millis) {
+        return String.format(Locale.US, "%02d%02d%02d.%02d", millis / 3600000 % 24, millis / 60000 % 60, millis / 1000 % 60, millis % 1000 / 10);
+    }
+
+    @NonNull
+    private static String checksum(@NonNull String body) {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return String.format(Locale.US, "$%s*%02X", body, checksum);
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.platypii.baseline.location;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that fixes are assembled from the sentences of one epoch
+ */
+public class NMEAEpochAssemblerTest {
+
+    private static final long date = 1524182400000L; // 2018-04-20
+    private static final long noon = 12 * 3600000L;
+
+    private final List<double[]> fixes = new ArrayList<>();
+    private final List<Boolean> complete = new ArrayList<>();
+    private final NMEAEpochAssembler epochs = new NMEAEpochAssembler(epoch -> {
+        fixes.add(new double[]{epoch.millis, epoch.latitude, epoch.altitude_gps, epoch.vN, epoch.vE, epoch.satellitesInView});
+        complete.add(epoch.complete());
+    });
+    private final NMEAParser parser = new NMEAParser();
+
+    @Test
+    public void highRate() throws NMEAException {
+        // 25 Hz, each epoch emits as soon as its last expected sentence arrives
+        for (int i = 0; i < 100; i++) {
+            final long millis = noon + i * 40;
+            add(millis, rmc(millis, i), vtg(), gga(millis, i), gsa(), gsv());
+            if (i >= 2) {
+                assertEquals(i + 1, fixes.size());
+            }
+        }
+        epochs.flush();
+        assertEquals(100, fixes.size());
+        for (int i = 0; i < 100; i++) {
+            final double[] fix = fixes.get(i);
+            assertEquals(date + noon + i * 40, (long) fix[0]);
+            // Position and altitude from the same epoch
+            assertEquals(latitude(i), fix[1], 1e-6);
+            assertEquals(altitude(i), fix[2], 1e-6);
+        }
+        // Types seen in the first epoch are learned before epochs complete
+        assertFalse(complete.get(0));
+        assertTrue(complete.get(1));
+        assertEquals(99, epochs.completeEpochs());
+    }
+
+    @Test
+    public void noStaleMixing() throws NMEAException {
+        for (int i = 0; i < 5; i++) {
+            final long millis = noon + i * 100;
+            if (i == 3) {
+                // Epoch without GGA
+                add(millis, rmc(millis, i), gsa());
+            } else {
+                add(millis, rmc(millis, i), gga(millis, i), gsa());
+            }
+        }
+        epochs.flush();
+        assertEquals(5, fixes.size());
+        assertEquals(altitude(2), fixes.get(2)[2], 1e-6);
+        // Missing altitude is not taken from the previous epoch
+        assertTrue(Double.isNaN(fixes.get(3)[2]));
+        assertFalse(complete.get(3));
+        assertEquals(altitude(4), fixes.get(4)[2], 1e-6);
+    }
+
+    @Test
+    public void droppedTrailingGga() throws NMEAException {
+        for (int i = 0; i < 10; i++) {
+            final long millis = noon + i * 200;
+            if (i == 4) {
+                // Trailing GGA lost once
+                add(millis, rmc(millis, i));
+            } else {
+                add(millis, rmc(millis, i), gga(millis, i));
+            }
+        }
+        epochs.flush();
+        assertEquals(10, fixes.size());
+        assertTrue(Double.isNaN(fixes.get(4)[2]));
+        // Altitude comes back on the next epoch, and stays
+        for (int i = 5; i < 10; i++) {
+            assertEquals(altitude(i), fixes.get(i)[2], 1e-6);
+            assertTrue(complete.get(i));
+        }
+    }
+
+    @Test
+    public void lateGga() throws NMEAException {
+        // Only RMC so far, so epoch 2 closes as soon as its RMC arrives
+        add(0, rmc(noon, 0));
+        add(100, rmc(noon + 200, 1));
+        add(200, rmc(noon + 400, 2));
+        assertEquals(3, fixes.size());
+        // GGA for epoch 2 arrives after it closed
+        add(200, gga(noon + 400, 2));
+        for (int i = 3; i < 8; i++) {
+            final long millis = noon + i * 200;
+            add(i * 100, rmc(millis, i), gga(millis, i));
+        }
+        epochs.flush();
+        assertEquals(8, fixes.size());
+        for (int i = 3; i < 8; i++) {
+            assertEquals(altitude(i), fixes.get(i)[2], 1e-6);
+        }
+    }
+
+    @Test
+    public void stoppedType() throws NMEAException {
+        // VTG stops after a few epochs
+        for (int i = 0; i < 12; i++) {
+            final long millis = noon + i * 200;
+            if (i < 4) {
+                add(millis, rmc(millis, i), gga(millis, i), vtg());
+            } else {
+                add(millis, rmc(millis, i), gga(millis, i));
+            }
+        }
+        epochs.flush();
+        assertEquals(12, fixes.size());
+        // Incomplete until VTG is forgotten
+        for (int i = 4; i < 4 + NMEAEpochAssembler.MISSING_EPOCHS; i++) {
+            assertFalse(complete.get(i));
+        }
+        for (int i = 4 + NMEAEpochAssembler.MISSING_EPOCHS; i < 12; i++) {
+            assertTrue(complete.get(i));
+        }
+    }
+
+    @Test
+    public void noRmc() throws NMEAException {
+        // Receivers that only send GGA and VTG still emit, dated by the phone
+        final long phone = date + noon + 500;
+        for (int i = 0; i < 4; i++) {
+            final long millis = noon + i * 200;
+            add(phone + i * 200, gga(millis, i), vtg());
+        }
+        epochs.flush();
+        assertEquals(4, fixes.size());
+        assertEquals(date + noon + 600, (long) fixes.get(3)[0]);
+        // Velocity from VTG, 10 knots due east
+        assertEquals(0, fixes.get(3)[3], 1e-6);
+        assertEquals(5.144, fixes.get(3)[4], 1e-3);
+    }
+
+    @Test
+    public void midnight() throws NMEAException {
+        add(0, rmc(86400000L - 500, 0), gga(86400000L - 500, 0));
+        // Midnight without a date
+        add(0, gga(0, 1));
+        add(0, gga(500, 2));
+        epochs.flush();
+        assertEquals(3, fixes.size());
+        assertEquals(date + 86400000L - 500, (long) fixes.get(0)[0]);
+        assertEquals(date + 86400000L, (long) fixes.get(1)[0]);
+        assertEquals(date + 86400000L + 500, (long) fixes.get(2)[0]);
+    }
+
+    @Test
+    public void timeout() throws NMEAException {
+        add(1000, rmc(noon, 0), gga(noon, 0));
+        assertEquals(0, fixes.size());
+        // Satellites in view, long after the epoch
+        add(1000 + NMEAEpochAssembler.TIMEOUT + 1, gsv());
+        assertEquals(1, fixes.size());
+        // Late sentence from the closed epoch doesn't emit again
+        add(3000, gga(noon, 0));
+        epochs.flush();
+        assertEquals(1, fixes.size());
+    }
+
+    private void add(long now, @NonNull String... sentences) throws NMEAException {
+        for (String sentence : sentences) {
+            assertTrue(parser.load(sentence, 0, sentence.length()));
+            epochs.add(parser, now);
+        }
+    }
+
+    private static double latitude(int i) {
+        return 47 + i * 1e-5;
+    }
+
+    private static double altitude(int i) {
+        return 1000 - i * 5;
+    }
+
+    @NonNull
+    private static String time(long millis) {
+        return String.format(Locale.US, "%02d%02d%02d.%02d", millis / 3600000 % 24, millis / 60000 % 60, millis / 1000 % 60, millis % 1000 / 10);
+    }
+
+    @NonNull
+    private static String lat(int i) {
+        final double minutes = (latitude(i) - 47) * 60;
+        return String.format(Locale.US, "47%09.6f", minutes);
+    }
+
+    @NonNull
+    private static String rmc(long millis, int i) {
+        final String day = millis < 86400000L ? "200418" : "210418";
+        return "$GNRMC," + time(millis) + ",A," + lat(i) + ",N,12219.566617,W,10.0,90.0," + day + ",,,A";
+    }
+
+    @NonNull
+    private static String gga(long millis, int i) {
+        return "$GNGGA," + time(millis) + "," + lat(i) + ",N,12219.566617,W,1,12,0.9," + altitude(i) + ",M,-17.0,M,,";
+    }
+
+    @NonNull
+    private static String vtg() {
+        return "$GNVTG,90.0,T,,M,10.0,N,18.5,K,A";
+    }
+
+    @NonNull
+    private static String gsa() {
+        return "$GNGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1";
+    }
+
+    @NonNull
+    private static String gsv() {
+        return "$GPGSV,3,1,11,03,03,111,00,04,15,270,00,06,01,010,00,13,06,292,00";
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.platypii.baseline.location;
+
+import androidx.annotation.NonNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that sentences are framed from raw bluetooth bytes, regardless of how reads are chunked
+ */
+public class NMEAFramerTest {
+
+    // Typical stream from a Dual XGPS160
+    private static final String[] recorded = {
+            "$GPPWR,04C3,0,0,0,0,00,0,0,97, 1 9 ,S00",
+            "$GNGGA,183132.000,4737.5509,N,12219.5666,W,1,15,0.79,96.0,M,-17.0,M,,*70",
+            "$GNGSA,A,3,21,15,24,13,20,10,18,32,,,,,1.39,0.79,1.14*15",
+            "$GPGSV,3,1,11,03,03,111,00,04,15,270,00,06,01,010,00,13,06,292,00*74",
+            "$GNRMC,183132.000,A,4737.5509,N,12219.5666,W,0.03,112.68,200418,,,A*6C",
+            "$GNVTG,112.68,T,,M,0.03,N,0.06,K,A*2A"
+    };
+
+    @Test
+    public void recordedStream() throws IOException {
+        final String stream = String.join("\r\n", recorded) + "\r\n";
+        for (int chunk = 1; chunk <= 80; chunk++) {
+            final NMEAFramer framer = new NMEAFramer();
+            assertEquals("chunk " + chunk, Arrays.asList(recorded), frameAll(framer, bytes(stream), chunk));
+            assertEquals(0, framer.noiseBytes());
+            assertEquals(recorded.length, framer.sentences());
+        }
+    }
+
+    @Test
+    public void missingLineBreaks() throws IOException {
+        final String stream = recorded[1] + recorded[2] + "\n" + recorded[3] + "\0\r\n" + recorded[4];
+        final NMEAFramer framer = new NMEAFramer();
+        // Last sentence is not terminated, so it's still in progress at end of stream
+        assertEquals(Arrays.asList(recorded[1], recorded[2], recorded[3]), frameAll(framer, bytes(stream), 7));
+        assertEquals(1, framer.missingBreaks());
+    }
+
+    @Test
+    public void lineNoise() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        os.write(new byte[]{(byte) 0xff, 'x', 0x7f});
+        os.write(bytes(recorded[1] + "\r\n"));
+        // Corrupted sentence
+        os.write(bytes("$GNGSA,A,3,21,15"));
+        os.write(new byte[]{(byte) 0xf0, (byte) 0x9f});
+        os.write(bytes("24,13*1A\r\n"));
+        os.write(bytes(recorded[2] + "\r\n"));
+        final NMEAFramer framer = new NMEAFramer();
+        assertEquals(Arrays.asList(recorded[1], recorded[2]), frameAll(framer, os.toByteArray(), 13));
+        // Leading junk, the corrupted sentence, and its tail before the line break
+        assertEquals(3 + 17 + 1 + 8, framer.noiseBytes());
+    }
+
+    @Test
+    public void runawaySentence() throws IOException {
+        final StringBuilder sb = new StringBuilder("$GPFOO");
+        for (int i = 0; i < NMEAFramer.MAX_SENTENCE; i++) sb.append('0');
+        sb.append("\r\n").append(recorded[4]).append("\r\n");
+        final NMEAFramer framer = new NMEAFramer();
+        assertEquals(Arrays.asList(recorded[4]), frameAll(framer, bytes(sb.toString()), 1000));
+    }
+
+    @Test
+    public void validates() throws IOException {
+        final NMEAFramer framer = new NMEAFramer();
+        final NMEAParser parser = new NMEAParser();
+        framer.read(new ByteArrayInputStream(bytes(String.join("\r\n", recorded) + "\r\n")));
+        final NMEABatch batch = framer.batch;
+        assertEquals(recorded.length, batch.size());
+        for (int i = 1; i < batch.size(); i++) {
+            parser.load(batch.buf, batch.start(i), batch.end(i));
+            assertTrue(recorded[i], parser.validate());
+        }
+    }
+
+    /**
+     * Read the whole stream, a few bytes at a time, and collect framed sentences
+     */
+    @NonNull
+    private static List<String> frameAll(@NonNull NMEAFramer framer, @NonNull byte[] bytes, int chunk) throws IOException {
+        final InputStream in = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(@NonNull byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+        final List<String> sentences = new ArrayList<>();
+        while (framer.read(in) >= 0) {
+            for (int i = 0; i < framer.batch.size(); i++) {
+                sentences.add(framer.batch.sentence(i));
+            }
+        }
+        return sentences;
+    }
+
+    @NonNull
+    private static byte[] bytes(@NonNull String str) {
+        return str.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.platypii.baseline.location;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that we are parsing NMEA correctly
+ */
+public class NMEAParserTest {
+
+    private static final String rmc = "$GPRMC,200418.99,A,4737.550964,N,12219.566617,W,12.5,270.0,200418,003.1,W*69";
+    private static final String gga = "$GNGGA,200418.99,4737.550964,N,12219.566617,W,1,12,0.9,96.0,M,-17.0,M,,*71";
+    private static final String gsa = "$GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1*39";
+
+    @Test
+    public void parseRmc() {
+        final NMEAParser parser = new NMEAParser();
+        assertTrue(parser.parse(rmc));
+        assertEquals(NMEAParser.RMC, parser.command());
+        assertEquals(('G' << 8) | 'P', parser.talker());
+        assertEquals(12, parser.fields());
+        assertEquals(47 + 37.550964 / 60.0, parser.parseDegreesMinutes(3, 4), 0);
+        assertEquals(-(122 + 19.566617 / 60.0), parser.parseDegreesMinutes(5, 6), 0);
+        assertEquals(12.5, parser.parseDouble(7), 0);
+        assertEquals(72258990L, parser.parseTime(1));
+        assertEquals(1524182400000L, parser.parseDate(9));
+        assertTrue(parser.equals(11, 'W'));
+        assertTrue(parser.isEmpty(12));
+    }
+
+    @Test
+    public void parseGga() {
+        final NMEAParser parser = new NMEAParser();
+        assertTrue(parser.parse(gga));
+        assertEquals(NMEAParser.GGA, parser.command());
+        assertEquals(12, parser.parseInt(7, -1));
+        assertEquals(0.9f, parser.parseFloat(8), 0);
+        assertEquals(96.0, parser.parseDouble(9), 0);
+        assertEquals(-17.0, parser.parseDouble(11), 0);
+        assertEquals(1, parser.parseInt(6, -1));
+        assertTrue(parser.isEmpty(13));
+        assertEquals(-1, parser.parseInt(13, -1));
+        assertEquals(Double.NaN, parser.parseDouble(99), 0);
+    }
+
+    @Test
+    public void split() {
+        final NMEAParser parser = new NMEAParser();
+        // Checksum is not a field
+        assertTrue(parser.load("$GPFOO,0,1,2,3*99", 0, 17));
+        assertEquals(5, parser.fields());
+        for (int i = 1; i < 5; i++) {
+            assertEquals(i - 1, parser.parseInt(i, -1));
+        }
+        // Trailing empty fields are kept
+        assertTrue(parser.load("$GPFOO,,,", 0, 9));
+        assertEquals(4, parser.fields());
+        assertFalse(parser.isEmpty(0));
+        assertTrue(parser.isEmpty(1));
+        assertTrue(parser.isEmpty(3));
+        // GSA with empty satellite slots
+        assertTrue(parser.parse(gsa));
+        assertEquals(18, parser.fields());
+        assertEquals(4, parser.parseInt(3, -1));
+        assertTrue(parser.isEmpty(5));
+        assertEquals(2.1, parser.parseDouble(17), 0);
+    }
+
+    @Test
+    public void validate() {
+        final NMEAParser parser = new NMEAParser();
+        for (String nmea : new String[]{rmc, gga, gsa, "$GPATT,45.781233,10.862333,1796.3,45.0,2.6,2.6,*72"}) {
+            assertTrue(parser.parse(nmea));
+            assertTrue(parser.validate());
+        }
+        assertFalse(parser.parse("$GPATT,45.781233,10.862333,1796.3,45.0,2.6,2.6,*71"));
+        assertFalse(parser.parse("$GPATT,45.781233,10.862333,1796.3,45.0,2.6,2.6,*99"));
+        assertFalse(parser.parse("$GPATT,45.781233,10.862333,1796.3,45.0,2.6,2.6,*ZZ"));
+        assertFalse(parser.parse("GPATT,45.781233,10.862333,1796.3,45.0,2.6,2.6,*72"));
+        assertFalse(parser.parse("$GPATT,***"));
+        assertFalse(parser.parse("$GPATT*"));
+        assertFalse(parser.parse("$AIDSTAT,1,2,3*00"));
+        assertFalse(parser.parse(""));
+    }
+
+    @Test
+    public void trim() {
+        final NMEAParser parser = new NMEAParser();
+        assertTrue(parser.parse("\0" + rmc + " \r\n\0"));
+        assertEquals(rmc, parser.toString());
+        // Junk before $ and trailing whitespace and \0
+        for (String junk : new String[]{"$GPFOO,0,1,2,3*99\n", "$GPFOO,0,1,2,3*99\0", " $GPFOO,0,1,2,3*99 ", "\0$GPFOO,0,1,2,3*99 "}) {
+            assertTrue(parser.load(junk, 0, junk.length()));
+            assertEquals("$GPFOO,0,1,2,3*99", parser.toString());
+        }
+        // Slice of a line with two sentences
+        final String line = gga + rmc;
+        assertTrue(parser.load(line, gga.length(), line.length()));
+        assertEquals(rmc, parser.toString());
+        assertTrue(parser.load(line, 0, gga.length()));
+        assertEquals(gga, parser.toString());
+    }
+
+    @Test
+    public void loadBytes() {
+        final NMEAParser parser = new NMEAParser();
+        final byte[] bytes = ("junk" + rmc + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        assertTrue(parser.load(bytes, 0, bytes.length));
+        assertTrue(parser.validate());
+        assertEquals(rmc, parser.toString());
+        assertEquals(NMEAParser.RMC, parser.command());
+    }
+
+    @Test
+    public void longSentence() {
+        final NMEAParser parser = new NMEAParser();
+        final StringBuilder sb = new StringBuilder("$GPFOO");
+        for (int i = 0; i < 100; i++) sb.append(',').append(i);
+        assertTrue(parser.load(sb, 0, sb.length()));
+        assertEquals(101, parser.fields());
+        assertEquals(99, parser.parseInt(100, -1));
+        // Commands that don't pack
+        assertTrue(parser.parse("$GNACCURACY,0.8*1E"));
+        assertEquals(NMEAParser.UNKNOWN, parser.command());
+    }
+
+    @Test
+    public void parseDegreesMinutes() {
+        // Parse DDDMM.MMMM,N into decimal degrees
+        assertEquals(123.761315, degreesMinutes("12345.6789", "N"), 0.01);
+        assertEquals(-123.761315, degreesMinutes("12345.6789", "S"), 0.01);
+        assertEquals(Double.NaN, degreesMinutes("", ""), 0.01);
+        assertEquals(Double.NaN, degreesMinutes("X", ""), 0.01);
+        assertEquals(Double.NaN, degreesMinutes("XX.YY", ""), 0.01);
+        assertEquals(Double.NaN, degreesMinutes("12345", ""), 0.01);
+        assertEquals(Double.NaN, degreesMinutes("1X345.6789", "N"), 0.01);
+        assertEquals(Double.NaN, degreesMinutes("12345.6X89", "N"), 0.01);
+        assertEquals(47 + 37.550964 / 60.0, degreesMinutes("4737.550964", "N"), 0);
+        assertEquals(-(122 + 20.123456 / 60.0), degreesMinutes("12220.123456", "W"), 0);
+        assertEquals(0.5 / 60.0, degreesMinutes("00.5", "E"), 0);
+    }
+
+    @Test
+    public void parseTime() {
+        // Parse HHMMSS.SS UTC time into milliseconds since midnight
+        assertEquals(72258990L, time("200418.99"));
+        assertEquals(0L, time(""));
+        assertEquals(0L, time("X"));
+        assertEquals(0L, time("20X418.99"));
+        assertEquals(0L, time("200418.X"));
+        assertEquals(72258000L, time("200418"));
+        assertEquals(72258500L, time("200418.5"));
+    }
+
+    @Test
+    public void parseDate() {
+        final NMEAParser parser = new NMEAParser();
+        parser.load("$GPRMC,,,,,,,,,200418", 0, 21);
+        assertEquals(1524182400000L, parser.parseDate(9));
+        // Cached
+        assertEquals(1524182400000L, parser.parseDate(9));
+        parser.load("$GPRMC,,,,,,,,,210418", 0, 21);
+        assertEquals(1524182400000L + 86400000L, parser.parseDate(9));
+        parser.load("$GPRMC,,,,,,,,,2X0418", 0, 21);
+        assertEquals(0L, parser.parseDate(9));
+        parser.load("$GPRMC,,,,,,,,,X", 0, 16);
+        assertEquals(0L, parser.parseDate(9));
+        parser.load("$GPRMC,,,,,,,,,", 0, 15);
+        assertEquals(0L, parser.parseDate(9));
+    }
+
+    @Test
+    public void parsePower() {
+        final NMEAParser parser = new NMEAParser();
+        final String notCharging = "$GPPWR,04C3,0,0,0,0,00,0,0,97, 1 9 ,S00";
+        parser.load(notCharging, 0, notCharging.length());
+        assertEquals(NMEAParser.PWR, parser.command());
+        assertEquals(0x04c3, parser.parseHex(1));
+        assertEquals(0.677, parser.parsePowerLevel(), 0.001);
+        assertEquals(0, parser.parseInt(5, -1));
+        parser.load("$GPPWR", 0, 6);
+        assertEquals(Double.NaN, parser.parsePowerLevel(), 0.001);
+    }
+
+    private static double degreesMinutes(String dm, String nsew) {
+        final NMEAParser parser = new NMEAParser();
+        final String nmea = "$GPGLL," + dm + "," + nsew;
+        parser.load(nmea, 0, nmea.length());
+        return parser.parseDegreesMinutes(1, 2);
+    }
+
+    private static long time(String time) {
+        final NMEAParser parser = new NMEAParser();
+        final String nmea = "$GPGLL,,,,," + time;
+        parser.load(nmea, 0, nmea.length());
+        return parser.parseTime(5);
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.measurements.MLocation;
+
+import androidx.annotation.NonNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that we are decoding u-blox binary frames correctly
+ */
+public class UBXTest {
+
+    // Frames are synthesized from the u-blox 8 protocol description, not captured from a receiver.
+    // NAV-PVT 2018-04-20T18:31:32.200Z 3D fix, 15 satellites. Payload contains 0x0a and 0xb5 bytes.
+    private static final String navPvt = "b56201075c00b85a9318e2070414121f20071900000000c2eb0b0301000f498416b7b520631c68b9010000770100dc05000098080000d20400003cf6ffffb80b0000f00a000080ba8c015e010000803801008b000000000000000000000000000000946d";
+    // Same, with no fix
+    private static final String navPvtNoFix = "b56201075c00b85a9318e2070414121f20071900000000c2eb0b0000000f498416b7b520631c68b9010000770100dc05000098080000d20400003cf6ffffb80b0000f00a000080ba8c015e010000803801008b000000000000000000000000000000904e";
+    private static final String gga = "$GNGGA,183132.000,4737.5509,N,12219.5666,W,1,15,0.79,96.0,M,-17.0,M,,*70";
+
+    @Test
+    public void parseNavPvt() {
+        final byte[] frame = hex(navPvt);
+        assertTrue(UBX.checksum(frame, 0, frame.length));
+        assertTrue(UBX.isNavPvt(frame, 0, frame.length));
+        final MLocation loc = UBX.parseNavPvt(frame, 0, frame.length);
+        assertNotNull(loc);
+        assertEquals(1524249092200L, loc.millis);
+        assertEquals(47.6258485, loc.latitude, 1e-9);
+        assertEquals(-122.3261111, loc.longitude, 1e-9);
+        assertEquals(96.0, loc.altitude_gps, 1e-9);
+        assertEquals(1.234, loc.vN, 1e-9);
+        assertEquals(-2.5, loc.vE, 1e-9);
+        // Native vertical speed, velD is down
+        assertEquals(-3.0, loc.climb, 1e-9);
+        assertEquals(1.5f, loc.hAcc, 1e-6);
+        assertEquals(2.2f, loc.vAcc, 1e-6);
+        assertEquals(0.35f, loc.sAcc, 1e-6);
+        assertEquals(1.39f, loc.pdop, 1e-6);
+        assertEquals(15, loc.satellitesUsed);
+    }
+
+    @Test
+    public void noFix() {
+        final byte[] frame = hex(navPvtNoFix);
+        assertTrue(UBX.checksum(frame, 0, frame.length));
+        assertNull(UBX.parseNavPvt(frame, 0, frame.length));
+    }
+
+    @Test
+    public void checksum() {
+        final byte[] frame = hex(navPvt);
+        frame[40]++;
+        assertFalse(UBX.checksum(frame, 0, frame.length));
+    }
+
+    @Test
+    public void framedWithNmea() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            os.write(hex(navPvt));
+            os.write((gga + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        final byte[] bytes = os.toByteArray();
+        for (int chunk = 1; chunk <= 120; chunk++) {
+            final NMEAFramer framer = new NMEAFramer();
+            int sentences = 0;
+            final InputStream in = chunked(bytes, chunk);
+            while (framer.read(in) >= 0) {
+                final NMEABatch batch = framer.batch;
+                for (int i = 0; i < batch.ubxSize(); i++) {
+                    assertNotNull(UBX.parseNavPvt(batch.buf, batch.ubxStart(i), batch.ubxEnd(i)));
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    assertEquals(gga, batch.sentence(i));
+                    sentences++;
+                }
+            }
+            assertEquals("chunk " + chunk, 3, framer.ubxFrames());
+            assertEquals("chunk " + chunk, 3, sentences);
+            assertEquals("chunk " + chunk, 0, framer.noiseBytes());
+        }
+    }
+
+    @Test
+    public void corruptFrame() throws IOException {
+        final byte[] frame = hex(navPvt);
+        frame[40]++;
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        os.write(frame);
+        os.write((gga + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        final NMEAFramer framer = new NMEAFramer();
+        framer.read(new ByteArrayInputStream(os.toByteArray()));
+        // Corrupt frame is dropped, and framing recovers for the next sentence
+        assertEquals(0, framer.batch.ubxSize());
+        assertEquals(1, framer.batch.size());
+        assertEquals(gga, framer.batch.sentence(0));
+    }
+
+    @NonNull
+    private static InputStream chunked(@NonNull byte[] bytes, int chunk) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(@NonNull byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    @NonNull
+    private static byte[] hex(@NonNull String hex) {
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.platypii.baseline.measurements;
 
+import com.platypii.baseline.util.Numbers;
+
 import com.google.android.gms.maps.model.LatLng;
+import java.util.Random;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -54,6 +57,38 @@ public class MLocationTest {
         assertEquals("1541348400990,,gps,,47.6,-122.33,100,3,4,0", seattle.toRow());
     }
 
+    /**
+     * Rows must be byte identical to the old DecimalFormat rows, and parse back to the same values
+     */
+    @Test
+    public void toRowRoundTrip() {
+        final Random random = new Random(2012);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            final double lat = random.nextDouble() * 180 - 90;
+            final double lon = random.nextDouble() * 360 - 180;
+            final double alt = random.nextDouble() * 5000 - 100;
+            final double vN = random.nextGaussian() * 30;
+            final double vE = random.nextInt(10) == 0 ? Double.NaN : random.nextGaussian() * 30;
+            final MLocation loc = new MLocation(1541348400990L + i, lat, lon, alt, 0, vN, vE, 0f, 0f, 0f, 0f, random.nextInt(20) - 1, 0);
+            final String legacy = loc.millis + ",,gps,," + Numbers.format6.format(lat) + "," + Numbers.format6.format(lon)
+                    + "," + Numbers.format3.format(alt) + "," + Numbers.format2.format(vN) + ","
+                    + (Double.isNaN(vE) ? "" : Numbers.format2.format(vE)) + ","
+                    + (loc.satellitesUsed == -1 ? "" : loc.satellitesUsed);
+            final String row = loc.toRow();
+            assertEquals(legacy, row);
+            // Appending into a reused builder matches toRow
+            sb.setLength(0);
+            loc.appendRow(sb);
+            assertEquals(row, sb.toString());
+            final String[] split = row.split(",", -1);
+            assertEquals(lat, Double.parseDouble(split[4]), 0.5e-6);
+            assertEquals(lon, Double.parseDouble(split[5]), 0.5e-6);
+            assertEquals(alt, Double.parseDouble(split[6]), 0.5e-3);
+            assertEquals(vN, Double.parseDouble(split[7]), 0.5e-2);
+        }
+    }
+
     @Test
     public void stringify() {
         assertEquals("MLocation(2018-11-04T16:20:00.990Z,47.600000,-122.330000,100.0,3,4)", seattle.toString());
@@ -13,6 +13,13 @@ public class MPressureTest {
         assertEquals("1541348400990,111000,alt,1014.3", pres.toRow());
     }
 
+    @Test
+    public void appendRow() {
+        final StringBuilder sb = new StringBuilder("previous,");
+        pres.appendRow(sb);
+        assertEquals("previous,1541348400990,111000,alt,1014.3", sb.toString());
+    }
+
     @Test
     public void stringify() {
         assertEquals("MPressure(1541348400990,1014.30)", pres.toString());
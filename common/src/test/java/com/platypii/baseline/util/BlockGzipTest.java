@@ -0,0 +1,134 @@
+package com.platypii.baseline.util;
+
+import androidx.annotation.NonNull;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BlockGzipTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        final byte[] content = csv(20000);
+        final File file = write(content);
+
+        // Standard gzip reader sees one continuous stream
+        assertArrayEquals(content, readAll(new GZIPInputStream(new FileInputStream(file))));
+
+        // Parallel block reader
+        final long[] index = BlockGzipInputStream.index(file);
+        assertNotNull(index);
+        assertTrue(BlockGzipInputStream.blockCount(index) > 4);
+        assertEquals(file.length(), index[index.length - 1]);
+        assertArrayEquals(content, readAll(new BlockGzipInputStream(file, index)));
+    }
+
+    @Test
+    public void incompressible() throws IOException {
+        final byte[] content = new byte[300000];
+        new Random(1).nextBytes(content);
+        final File file = write(content);
+        assertArrayEquals(content, readAll(new GZIPInputStream(new FileInputStream(file))));
+        final long[] index = BlockGzipInputStream.index(file);
+        assertNotNull(index);
+        assertArrayEquals(content, readAll(new BlockGzipInputStream(file, index)));
+    }
+
+    @Test
+    public void empty() throws IOException {
+        final File file = write(new byte[0]);
+        assertEquals(0, readAll(BlockGzipInputStream.open(file)).length);
+    }
+
+    @Test
+    public void plainGzip() throws IOException {
+        final File file = File.createTempFile("plain", ".csv.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(csv(100));
+        }
+        assertNull(BlockGzipInputStream.index(file));
+        assertArrayEquals(csv(100), readAll(BlockGzipInputStream.open(file)));
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        final File file = write(csv(20000));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1000);
+        }
+        try {
+            readAll(BlockGzipInputStream.open(file));
+            fail("Expected EOFException");
+        } catch (EOFException ignored) {
+        }
+    }
+
+    @Test
+    public void corruptLength() throws IOException {
+        final File file = write(csv(20000));
+        final long[] index = BlockGzipInputStream.index(file);
+        assertNotNull(index);
+        // Overwrite ISIZE in the trailer of the first block
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(index[1] - 4);
+            raf.write(new byte[]{(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0x7f});
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            BlockGzipInputStream.readBlock(raf.getChannel(), index, 0);
+            fail("Expected IOException");
+        } catch (IOException ignored) {
+        }
+    }
+
+    @NonNull
+    private static byte[] csv(int rows) {
+        final StringBuilder sb = new StringBuilder("millis,sensor,lat,lon,hMSL\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append(1000 + i * 200).append(",gps,47.").append(i).append(",-123.").append(i * 7).append(',').append(i % 1000).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @NonNull
+    private static File write(@NonNull byte[] content) throws IOException {
+        final File file = File.createTempFile("block", ".csv.gz");
+        try (OutputStream out = new BlockGzipOutputStream(new FileOutputStream(file))) {
+            // Write in uneven pieces
+            int i = 0;
+            while (i < content.length) {
+                final int n = Math.min(777, content.length - i);
+                out.write(content, i, n);
+                i += n;
+            }
+        }
+        return file;
+    }
+
+    @NonNull
+    private static byte[] readAll(@NonNull InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = in) {
+            IOUtil.copy(is, out);
+        }
+        return out.toByteArray();
+    }
+
+}
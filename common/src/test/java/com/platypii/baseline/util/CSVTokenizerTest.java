@@ -0,0 +1,113 @@
+package com.platypii.baseline.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CSVTokenizerTest {
+
+    @Test
+    public void tokenize() throws IOException {
+        final CSVTokenizer tokenizer = tokenizer("2018-11-04T16:20:00.99Z,3.14,1024,gps\n,,,\n");
+        assertTrue(tokenizer.next());
+        assertEquals(4, tokenizer.size());
+        assertEquals(1541348400990L, tokenizer.getDate(0));
+        assertEquals(3.14, tokenizer.getDouble(1), 0.0001);
+        assertEquals(1024L, tokenizer.getLong(2));
+        assertTrue(tokenizer.equals(3, "gps"));
+        assertFalse(tokenizer.equals(3, "alt"));
+        assertEquals("gps", tokenizer.getString(3));
+
+        // Empty cells
+        assertTrue(tokenizer.next());
+        assertEquals(4, tokenizer.size());
+        assertEquals(-1L, tokenizer.getDate(0));
+        assertEquals(Double.NaN, tokenizer.getDouble(1), 0.0001);
+        assertEquals(-1L, tokenizer.getLong(2));
+        assertFalse(tokenizer.equals(3, "gps"));
+
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    public void missingColumns() throws IOException {
+        final CSVTokenizer tokenizer = tokenizer("1,2");
+        assertTrue(tokenizer.next());
+        assertEquals(2, tokenizer.size());
+        assertEquals(Double.NaN, tokenizer.getDouble(-1), 0.0001);
+        assertEquals(Double.NaN, tokenizer.getDouble(2), 0.0001);
+        assertEquals(-1L, tokenizer.getLong(5));
+        assertEquals("", tokenizer.getString(5));
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    public void corrupted() throws IOException {
+        final CSVTokenizer tokenizer = tokenizer("NOPE,1.2.3,-,99999999999999999999");
+        assertTrue(tokenizer.next());
+        assertEquals(-1L, tokenizer.getDate(0));
+        assertEquals(Double.NaN, tokenizer.getDouble(0), 0.0001);
+        assertEquals(Double.NaN, tokenizer.getDouble(1), 0.0001);
+        assertEquals(-1L, tokenizer.getLong(2));
+        assertEquals(-1L, tokenizer.getLong(3));
+    }
+
+    @Test
+    public void nanCells() throws IOException {
+        final CSVTokenizer tokenizer = tokenizer("NaN,1.5");
+        assertTrue(tokenizer.next());
+        assertTrue(Double.isNaN(tokenizer.getDouble(0)));
+        assertEquals(1.5, tokenizer.getDouble(1), 0.0001);
+    }
+
+    @Test
+    public void lineEndings() throws IOException {
+        final CSVTokenizer tokenizer = tokenizer("a,b\r\n\r\nc");
+        assertTrue(tokenizer.next());
+        assertEquals("b", tokenizer.getString(1));
+        assertTrue(tokenizer.next());
+        assertEquals(1, tokenizer.size());
+        assertTrue(tokenizer.isEmpty(0));
+        assertTrue(tokenizer.next());
+        assertEquals("c", tokenizer.getString(0));
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    public void longLines() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(i);
+        }
+        final CSVTokenizer tokenizer = tokenizer(sb + "\n" + sb);
+        for (int row = 0; row < 2; row++) {
+            assertTrue(tokenizer.next());
+            assertEquals(5000, tokenizer.size());
+            assertEquals(4999L, tokenizer.getLong(4999));
+        }
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    public void reuse() throws IOException {
+        final CSVTokenizer tokenizer = tokenizer("1,2,3");
+        assertTrue(tokenizer.next());
+        tokenizer.reset(new StringReader("4"));
+        assertTrue(tokenizer.next());
+        assertEquals(1, tokenizer.size());
+        assertEquals(4L, tokenizer.getLong(0));
+        assertFalse(tokenizer.next());
+    }
+
+    private CSVTokenizer tokenizer(String str) {
+        final CSVTokenizer tokenizer = new CSVTokenizer();
+        tokenizer.reset(new StringReader(str));
+        return tokenizer;
+    }
+
+}
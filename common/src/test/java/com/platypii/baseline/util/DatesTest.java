@@ -0,0 +1,35 @@
+package com.platypii.baseline.util;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DatesTest {
+
+    @Test
+    public void dayMillis() {
+        // Same as a lenient calendar, including rollover of out of range days and months
+        final Calendar cal = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+        for (int year = 1900; year <= 2100; year++) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    cal.clear();
+                    cal.set(year, month - 1, day, 0, 0, 0);
+                    assertEquals(cal.getTimeInMillis(), Dates.dayMillis(year, month, day));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void epochDay() {
+        assertEquals(0, Dates.epochDay(1970, 1, 1));
+        assertEquals(-1, Dates.epochDay(1969, 12, 31));
+        assertEquals(11016, Dates.epochDay(2000, 2, 29));
+        assertEquals(11017, Dates.epochDay(2000, 3, 1));
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.platypii.baseline.util;
+
+import androidx.annotation.NonNull;
+import java.util.Date;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlySightDateParserTest {
+
+    @Test
+    public void parse() {
+        final FlySightDateParser parser = new FlySightDateParser();
+        assertEquals(1517000000400L, parser.parseCached("2018-01-26T20:53:20.40Z"));
+        assertEquals(1517000000400L, parser.parseCached("2018-01-26T20:53:20.400Z"));
+        assertEquals(1517000000410L, parser.parseCached("2018-01-26T20:53:20.41Z"));
+        assertEquals(1517000000000L, parser.parseCached("2018-01-26T20:53:20Z"));
+        assertEquals(0L, parser.parseCached("1970-01-01T00:00:00.00Z"));
+        assertEquals(951782400000L, parser.parseCached("2000-02-29T00:00:00.00Z"));
+    }
+
+    @Test
+    public void malformed() {
+        assertEquals(-1L, FlySightDateParser.parse(""));
+        assertEquals(-1L, FlySightDateParser.parse("time"));
+        assertEquals(-1L, FlySightDateParser.parse("2018-01-26T20:53:20"));
+        assertEquals(-1L, FlySightDateParser.parse("2018-0X-26T20:53:20.40Z"));
+        assertEquals(-1L, FlySightDateParser.parse("2018-01-26T20:53:20.XXZ"));
+    }
+
+    /**
+     * Compare against the previous substring and Date.UTC implementation
+     */
+    @Test
+    public void fuzz() {
+        final Random random = new Random(2018);
+        final FlySightDateParser parser = new FlySightDateParser();
+        for (int i = 0; i < 100000; i++) {
+            final String date = randomDate(random);
+            long expected;
+            try {
+                expected = legacyParse(date);
+            } catch (Exception e) {
+                expected = -1;
+            }
+            assertEquals(date, expected, FlySightDateParser.parse(date));
+            assertEquals(date, expected, parser.parseCached(date));
+        }
+    }
+
+    @NonNull
+    private static String randomDate(@NonNull Random random) {
+        // Stay on one day for a while, to exercise the cache
+        final StringBuilder sb = new StringBuilder();
+        sb.append(1970 + random.nextInt(130)).append('-');
+        pad(sb, random.nextInt(10) == 0 ? random.nextInt(100) : 1 + random.nextInt(12));
+        sb.append('-');
+        pad(sb, random.nextInt(10) == 0 ? random.nextInt(100) : 1 + random.nextInt(28));
+        sb.append('T');
+        pad(sb, random.nextInt(24));
+        sb.append(':');
+        pad(sb, random.nextInt(60));
+        sb.append(':');
+        pad(sb, random.nextInt(60));
+        final int fraction = random.nextInt(5);
+        if (fraction > 0) {
+            sb.append('.');
+            for (int i = 0; i < fraction; i++) {
+                sb.append(random.nextInt(10));
+            }
+        }
+        sb.append('Z');
+        return sb.toString();
+    }
+
+    private static void pad(@NonNull StringBuilder sb, int value) {
+        if (value < 10) sb.append('0');
+        sb.append(value);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long legacyParse(@NonNull String dateString) {
+        if (!Character.isDigit(dateString.charAt(0))) {
+            return -1;
+        }
+        final int year = Integer.parseInt(dateString.substring(0, 4)) - 1900;
+        final int month = Integer.parseInt(dateString.substring(5, 7)) - 1;
+        final int day = Integer.parseInt(dateString.substring(8, 10));
+        final int hour = Integer.parseInt(dateString.substring(11, 13));
+        final int minute = Integer.parseInt(dateString.substring(14, 16));
+        final int second = Integer.parseInt(dateString.substring(17, 19));
+        final long whole = Date.UTC(year, month, day, hour, minute, second);
+        long millis = 0;
+        final int dotIndex = 19;
+        if (dateString.charAt(dotIndex) == '.') {
+            final int len = dateString.length();
+            final int digits = Math.min(3, len - dotIndex - 2);
+            final String zeros = "000".substring(digits);
+            final String milliString = dateString.substring(dotIndex + 1, dotIndex + digits + 1) + zeros;
+            millis = Long.parseLong(milliString);
+        }
+        return whole + millis;
+    }
+
+}
@@ -1,7 +1,12 @@
 package com.platypii.baseline.util;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -21,4 +26,19 @@ public class MD5Test {
         assertEquals("d41d8cd98f00b204e9800998ecf8427e", checksum);
     }
 
+    @Test
+    public void streaming() throws IOException {
+        final File tempfile = File.createTempFile("md5-test-", ".txt");
+        final MessageDigest digest = MD5.digest();
+        try (OutputStream os = new DigestOutputStream(new FileOutputStream(tempfile), digest)) {
+            os.write("The quick brown fox ".getBytes(StandardCharsets.UTF_8));
+            os.write('j');
+            os.write("umps over the lazy dog".getBytes(StandardCharsets.UTF_8));
+        }
+        final String checksum = MD5.hex(digest);
+        assertEquals("9e107d9d372bb6826bd81d3542a419d6", checksum);
+        assertEquals(MD5.md5(tempfile), checksum);
+        assertTrue(tempfile.delete());
+    }
+
 }
@@ -1,5 +1,7 @@
 package com.platypii.baseline.util;
 
+import androidx.annotation.NonNull;
+import java.util.Random;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -81,6 +83,84 @@ public class NumbersTest {
         assertEquals(Double.NaN, Numbers.parseDouble(null), 0.1);
     }
 
+    @Test
+    public void parseDoubleChars() {
+        final String[] values = {"0", "-0", "1", "-2", "0.1", "3.14", "-12.345", "4737.550964", "-122.123456",
+                "1234.56", "0.000123", "+5", "1.", ".5", "123456789012345", "1234567890.123456789", "1e3"};
+        for (String value : values) {
+            assertEquals(value, Double.parseDouble(value), parseChars(value), 0);
+        }
+        assertEquals(Double.NaN, parseChars(""), 0);
+        assertEquals(Double.NaN, parseChars("-"), 0);
+        assertEquals(Double.NaN, parseChars("."), 0);
+        assertEquals(Double.NaN, parseChars("X"), 0);
+        assertEquals(Double.NaN, parseChars("1.2.3"), 0);
+        // Slice in the middle of a buffer
+        assertEquals(2.5, Numbers.parseDouble("1,2.5,3".toCharArray(), 2, 5), 0);
+    }
+
+    private double parseChars(String str) {
+        return Numbers.parseDouble(str.toCharArray(), 0, str.length());
+    }
+
+    @Test
+    public void parseDoubleSlice() {
+        assertEquals(2.5, Numbers.parseDouble("1,2.5,3", 2, 5), 0);
+        assertEquals(Double.NaN, Numbers.parseDouble("1,,3", 2, 2), 0);
+        assertEquals(Double.NaN, Numbers.parseDouble("1,X,3", 2, 3), 0);
+        assertEquals(Double.NaN, Numbers.parseDouble("Infinityx"), 0);
+        assertEquals(Double.POSITIVE_INFINITY, Numbers.parseDouble("Infinity"), 0);
+        assertEquals(1.5, Numbers.parseDouble(" 1.5 "), 0);
+    }
+
+    /**
+     * Fast path must be bit-exact against Double.parseDouble
+     */
+    @Test
+    public void parseDoubleExact() {
+        final Random random = new Random(2019);
+        for (int i = 0; i < 200000; i++) {
+            final String str = randomDecimal(random);
+            final long expected = Double.doubleToRawLongBits(Double.parseDouble(str));
+            assertEquals(str, expected, Double.doubleToRawLongBits(Numbers.parseDouble(str)));
+            assertEquals(str, expected, Double.doubleToRawLongBits(parseChars(str)));
+            // Slice of a longer string
+            final String row = "x," + str + ",y";
+            assertEquals(str, expected, Double.doubleToRawLongBits(Numbers.parseDouble(row, 2, row.length() - 2)));
+        }
+    }
+
+    @NonNull
+    private static String randomDecimal(@NonNull Random random) {
+        final StringBuilder sb = new StringBuilder();
+        final int sign = random.nextInt(4);
+        if (sign == 0) sb.append('-');
+        else if (sign == 1) sb.append('+');
+        final int whole = 1 + random.nextInt(12);
+        for (int i = 0; i < whole; i++) {
+            sb.append((char) ('0' + random.nextInt(10)));
+        }
+        if (random.nextBoolean()) {
+            sb.append('.');
+            final int fraction = random.nextInt(random.nextInt(10) == 0 ? 30 : 10);
+            for (int i = 0; i < fraction; i++) {
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void parseDigits() {
+        assertEquals(0, Numbers.parseDigits("0", 0, 1));
+        assertEquals(12, Numbers.parseDigits("x12y", 1, 3));
+        assertEquals(-1, Numbers.parseDigits("x12y", 0, 3));
+        assertEquals(-1, Numbers.parseDigits("12", 1, 1));
+        assertEquals(-1, Numbers.parseDigits("-1", 0, 2));
+        assertEquals(12, Numbers.parseDigits("x12y".toCharArray(), 1, 3));
+        assertEquals(-1, Numbers.parseDigits("x12y".toCharArray(), 0, 3));
+    }
+
     @Test
     public void parseDoubleNull() {
         assertEquals(-2, Numbers.parseDoubleNull("-2"), 0.1);
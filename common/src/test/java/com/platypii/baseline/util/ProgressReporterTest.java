@@ -0,0 +1,59 @@
+package com.platypii.baseline.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProgressReporterTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void coalesceByTime() {
+        final List<Long> reported = new ArrayList<>();
+        // Unknown total, so only time matters
+        final ProgressReporter progress = new ProgressReporter(-1, 250 * MS, 5, (bytes, total, rate) -> reported.add(bytes), 0);
+        // 5000 buffers of 1 KiB over 5 seconds
+        for (int i = 1; i <= 5000; i++) {
+            progress.add(1024, i * MS);
+        }
+        progress.finish(5000 * MS);
+        assertEquals(20, reported.size());
+        assertEquals(5000 * 1024L, (long) reported.get(reported.size() - 1));
+    }
+
+    @Test
+    public void coalesceByPercent() {
+        final List<Long> reported = new ArrayList<>();
+        final ProgressReporter progress = new ProgressReporter(100000, 250 * MS, 5, (bytes, total, rate) -> reported.add(bytes), 0);
+        // Fast copy, all in the same instant
+        for (int i = 0; i < 100; i++) {
+            progress.add(1000, 0);
+        }
+        progress.finish(0);
+        assertEquals(20, reported.size());
+        assertEquals(100000L, (long) reported.get(19));
+    }
+
+    @Test
+    public void throughput() {
+        final double[] rate = new double[1];
+        final ProgressReporter progress = new ProgressReporter(1000000, 250 * MS, 5, (bytes, total, bytesPerSecond) -> rate[0] = bytesPerSecond, 0);
+        progress.add(500000, 2000 * MS);
+        progress.finish(2000 * MS);
+        assertEquals(250000, rate[0], 0.001);
+    }
+
+    @Test
+    public void emptyReportsOnce() {
+        final int[] count = new int[1];
+        final ProgressReporter progress = new ProgressReporter(0, (bytes, total, rate) -> count[0]++);
+        progress.finish();
+        progress.finish();
+        assertEquals(1, count[0]);
+        assertEquals(1, progress.reports());
+    }
+
+}
@@ -1,8 +1,15 @@
 package com.platypii.baseline.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -42,4 +49,174 @@ public class PubSubTest {
         events.post("BASE");
     }
 
+    @Test
+    public void unsubscribeWhilePosting() {
+        final PubSub<String> events = new PubSub<>();
+        final int[] count = new int[2];
+        final PubSub.Subscriber<String> second = (msg) -> count[1]++;
+        events.subscribe(new PubSub.Subscriber<String>() {
+            @Override
+            public void apply(String msg) {
+                count[0]++;
+                events.unsubscribe(this);
+                events.unsubscribe(second);
+            }
+        });
+        events.subscribe(second);
+        // Post already has its list, so second still gets this one
+        events.post("BASE");
+        events.post("BASE");
+        assertEquals(1, count[0]);
+        assertEquals(1, count[1]);
+        assertTrue(events.isEmpty());
+    }
+
+    /**
+     * A slow subscriber must not block subscribe from other threads
+     */
+    @Test
+    public void slowSubscriber() throws InterruptedException {
+        final PubSub<String> events = new PubSub<>();
+        final CountDownLatch inside = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        events.subscribe((msg) -> {
+            inside.countDown();
+            await(release);
+        });
+        final Thread poster = new Thread(() -> events.post("BASE"));
+        poster.start();
+        assertTrue(inside.await(10, TimeUnit.SECONDS));
+        final PubSub.Subscriber<String> listener = (msg) -> {};
+        events.subscribe(listener);
+        events.unsubscribe(listener);
+        release.countDown();
+        poster.join();
+    }
+
+    @Test
+    public void postAsyncOrdered() throws InterruptedException {
+        final PubSub<Integer> events = new PubSub<>("test", 16, EventQueue.Backpressure.BLOCK);
+        final List<Integer> received = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        events.subscribe((n) -> {
+            received.add(n);
+            if (n == 999) done.countDown();
+        });
+        for (int i = 0; i < 1000; i++) {
+            events.postAsync(i);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1000, received.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) received.get(i));
+        }
+        assertEquals(0, events.queue().dropped());
+        assertTrue(events.queue().maxDepth() <= 16);
+    }
+
+    @Test
+    public void dropOldest() throws InterruptedException {
+        final PubSub<Integer> events = new PubSub<>("test", 4, EventQueue.Backpressure.DROP_OLDEST);
+        final List<Integer> received = new ArrayList<>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        events.subscribe((n) -> {
+            if (n == 0) {
+                blocked.countDown();
+                await(release);
+            }
+            received.add(n);
+            if (n == 9) done.countDown();
+        });
+        events.postAsync(0);
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        // Subscriber is stuck on 0, so only the last 4 survive
+        for (int i = 1; i < 10; i++) {
+            events.postAsync(i);
+        }
+        assertEquals(4, events.queue().depth());
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals("[0, 6, 7, 8, 9]", received.toString());
+        assertEquals(5, events.queue().dropped());
+    }
+
+    @Test
+    public void latest() throws InterruptedException {
+        final PubSub<Integer> events = new PubSub<>("test", 100, EventQueue.Backpressure.LATEST);
+        final List<Integer> received = new ArrayList<>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        events.subscribe((n) -> {
+            if (n == 0) {
+                blocked.countDown();
+                await(release);
+            }
+            received.add(n);
+            if (n == 9) done.countDown();
+        });
+        events.postAsync(0);
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < 10; i++) {
+            events.postAsync(i);
+        }
+        assertEquals(1, events.queue().depth());
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals("[0, 9]", received.toString());
+    }
+
+    @Test
+    public void closeStopsThread() throws InterruptedException {
+        final PubSub<Integer> events = new PubSub<>("test", 4, EventQueue.Backpressure.BLOCK);
+        final List<Thread> consumers = new ArrayList<>();
+        final CountDownLatch first = new CountDownLatch(1);
+        final CountDownLatch second = new CountDownLatch(1);
+        events.subscribe((n) -> {
+            consumers.add(Thread.currentThread());
+            (n == 1 ? first : second).countDown();
+        });
+        events.postAsync(1);
+        assertTrue(first.await(10, TimeUnit.SECONDS));
+        events.close();
+        consumers.get(0).join(10000);
+        assertFalse(consumers.get(0).isAlive());
+        // Posting again starts a new consumer
+        events.postAsync(2);
+        assertTrue(second.await(10, TimeUnit.SECONDS));
+        assertNotSame(consumers.get(0), consumers.get(1));
+        events.close();
+    }
+
+    @Test
+    public void interruptedConsumer() throws InterruptedException {
+        final PubSub<Integer> events = new PubSub<>("test", 4, EventQueue.Backpressure.BLOCK);
+        final List<Thread> consumers = new ArrayList<>();
+        final CountDownLatch first = new CountDownLatch(1);
+        final CountDownLatch second = new CountDownLatch(1);
+        events.subscribe((n) -> {
+            consumers.add(Thread.currentThread());
+            (n == 1 ? first : second).countDown();
+        });
+        events.postAsync(1);
+        assertTrue(first.await(10, TimeUnit.SECONDS));
+        consumers.get(0).interrupt();
+        consumers.get(0).join(10000);
+        assertFalse(consumers.get(0).isAlive());
+        // Events are still delivered after the consumer died
+        events.postAsync(2);
+        assertTrue(second.await(10, TimeUnit.SECONDS));
+        events.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
 }
@@ -1,5 +1,7 @@
 package com.platypii.baseline.util;
 
+import java.text.DecimalFormat;
+import java.util.Random;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -69,4 +71,52 @@ public class StringBuilderUtilTest {
         }
     }
 
+    /**
+     * Check that StringBuilderUtil.formatDecimal(buf, x, n) == Numbers.formatN.format(x)
+     */
+    @Test
+    public void formatDecimal() {
+        final double[] values = {0, -0.0, -0.001, 0.5, 0.125, 0.135, 0.005, 1.005, 9.995, -2.5, 1e-300, 1e20,
+                123456789012.345, 0.0078125, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MAX_VALUE, Double.MIN_VALUE, 47.123456789, -123.9876545, 1013.2500001f};
+        for (double value : values) {
+            checkDecimal(value);
+        }
+        for (double value : testDoubles) {
+            checkDecimal(value);
+        }
+        for (float value : testFloats) {
+            checkDecimal(value);
+        }
+    }
+
+    @Test
+    public void formatDecimalFuzz() {
+        final Random random = new Random(2012);
+        for (int i = 0; i < 50000; i++) {
+            final double magnitude = Math.pow(10, random.nextInt(14) - 6);
+            final double value = (random.nextDouble() - 0.5) * magnitude;
+            checkDecimal(value);
+            // Sensor values are floats
+            checkDecimal((float) value);
+            // Values on or near a rounding boundary
+            final double half = Math.round(value * 1000) / 1000.0 + 0.0005;
+            checkDecimal(half);
+            checkDecimal(Math.nextUp(half));
+            checkDecimal(Math.nextDown(half));
+        }
+    }
+
+    private void checkDecimal(double value) {
+        check(Numbers.format2, value, 2);
+        check(Numbers.format3, value, 3);
+        check(Numbers.format6, value, 6);
+    }
+
+    private void check(DecimalFormat format, double value, int precision) {
+        final StringBuilder sb = new StringBuilder("x");
+        StringBuilderUtil.formatDecimal(sb, value, precision);
+        assertEquals(Double.toString(value), "x" + format.format(value), sb.toString());
+    }
+
 }